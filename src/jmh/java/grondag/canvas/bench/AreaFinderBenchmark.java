@@ -0,0 +1,81 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import grondag.canvas.terrain.occlusion.geometry.AreaFinder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AreaFinderBenchmark {
+	private static final int SLICE_COUNT = 64;
+
+	@Param({"SOLID", "CAVES", "SPARSE", "FOLIAGE"})
+	public SectionPattern pattern;
+
+	private long[][] slices;
+	private int next;
+
+	/** 16x16 slices in the four-word layout expected by {@link AreaFinder#findLargest(long[])}. */
+	@Setup
+	public void setup() {
+		slices = new long[SLICE_COUNT][];
+
+		for (int s = 0; s < SLICE_COUNT; ++s) {
+			final long[] bits = new long[4];
+			final int z = s & 15;
+			final int seed = s >> 4;
+
+			for (int y = 0; y < 16; ++y) {
+				for (int x = 0; x < 16; ++x) {
+					if (pattern.isOpaque(x, y, z, seed)) {
+						final int i = x | (y << 4);
+						bits[i >> 6] |= 1L << (i & 63);
+					}
+				}
+			}
+
+			slices[s] = bits;
+		}
+	}
+
+	@Benchmark
+	public int findLargest() {
+		return AreaFinder.findLargest(slices[next++ & (SLICE_COUNT - 1)]);
+	}
+}
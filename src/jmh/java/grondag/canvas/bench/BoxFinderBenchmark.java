@@ -0,0 +1,71 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import grondag.canvas.terrain.occlusion.geometry.AreaFinder;
+import grondag.canvas.terrain.occlusion.geometry.BoxFinder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxFinderBenchmark {
+	/** Distinct sections per pattern so results don't depend on a single lucky layout. */
+	private static final int SECTION_COUNT = 16;
+
+	@Param({"SOLID", "CAVES", "SPARSE", "FOLIAGE"})
+	public SectionPattern pattern;
+
+	private final BoxFinder finder = new BoxFinder(new AreaFinder());
+	private long[][] sections;
+	private int next;
+
+	@Setup
+	public void setup() {
+		sections = new long[SECTION_COUNT][];
+
+		for (int i = 0; i < SECTION_COUNT; ++i) {
+			sections[i] = pattern.interiorBits(i);
+		}
+	}
+
+	@Benchmark
+	public int findBoxes() {
+		finder.findBoxes(sections[next++ & (SECTION_COUNT - 1)], 0);
+		return finder.boxes.size();
+	}
+}
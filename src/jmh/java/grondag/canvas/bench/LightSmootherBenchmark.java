@@ -0,0 +1,95 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import grondag.canvas.light.LightSmoother;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightSmootherBenchmark {
+	/** Matches the smoothing margin: field index 0 is four blocks outside the section. */
+	private static final int MARGIN = (LightSmoother.POS_DIAMETER - 16) / 2;
+
+	@Param({"CAVES", "SPARSE", "FOLIAGE"})
+	public SectionPattern pattern;
+
+	private final int[] sourceBlock = new int[LightSmoother.POS_COUNT];
+	private final int[] sourceSky = new int[LightSmoother.POS_COUNT];
+	private final int[] block = new int[LightSmoother.POS_COUNT];
+	private final int[] sky = new int[LightSmoother.POS_COUNT];
+	private final int[] work = new int[LightSmoother.POS_COUNT];
+
+	@Setup
+	public void setup() {
+		for (int x = 0; x < LightSmoother.POS_DIAMETER; ++x) {
+			for (int y = 0; y < LightSmoother.POS_DIAMETER; ++y) {
+				for (int z = 0; z < LightSmoother.POS_DIAMETER; ++z) {
+					final int i = LightSmoother.index(x, y, z);
+
+					if (pattern.isOpaque(x - MARGIN, y - MARGIN, z - MARGIN, 0)) {
+						sourceBlock[i] = LightSmoother.OPAQUE;
+						sourceSky[i] = LightSmoother.OPAQUE;
+					} else {
+						// packed light values are in 0-240 range, four per level
+						sourceBlock[i] = ((x * 7 + z * 3) % 16) << 4;
+						sourceSky[i] = Math.max(0, 15 - (LightSmoother.POS_DIAMETER - 1 - y) / 2) << 4;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Smoothing works in place, so values drift from the source pattern between resets.
+	 * Cost only depends on where opaque positions are, and smoothing preserves them,
+	 * so resetting per iteration keeps timer overhead out of the measurement.
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		System.arraycopy(sourceBlock, 0, block, 0, LightSmoother.POS_COUNT);
+		System.arraycopy(sourceSky, 0, sky, 0, LightSmoother.POS_COUNT);
+	}
+
+	@Benchmark
+	public int smoothLightField() {
+		LightSmoother.smoothLightField(block, sky, work);
+		return block[LightSmoother.POS_COUNT >> 1] + sky[LightSmoother.POS_COUNT >> 1];
+	}
+}
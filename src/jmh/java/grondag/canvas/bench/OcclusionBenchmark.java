@@ -0,0 +1,112 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.REGION_PADDING;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.TOTAL_STATE_COUNT;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndexToPackedSectionPos;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+import grondag.canvas.terrain.occlusion.geometry.OcclusionResult;
+import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
+
+/**
+ * Full per-region occlusion pass: capture, visibility fill and box extraction.
+ * Requires vanilla registries, so Minecraft is bootstrapped once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OcclusionBenchmark {
+	@Param({"SOLID", "CAVES", "SPARSE", "FOLIAGE"})
+	public SectionPattern pattern;
+
+	/** When false, box extraction is skipped as with advanced terrain culling disabled. */
+	@Param({"true", "false"})
+	public boolean advancedCulling;
+
+	private final BlockState[] states = new BlockState[TOTAL_STATE_COUNT];
+	private final boolean[] closed = new boolean[TOTAL_STATE_COUNT];
+
+	private final RegionOcclusionCalculator calculator = new RegionOcclusionCalculator() {
+		@Override
+		protected BlockState blockStateAtIndex(int regionIndex) {
+			return states[regionIndex];
+		}
+
+		@Override
+		protected boolean closedAtRelativePos(BlockState blockState, int regionIndex) {
+			return closed[regionIndex];
+		}
+	};
+
+	@Setup
+	public void setup() {
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+
+		for (int i = 0; i < TOTAL_STATE_COUNT; ++i) {
+			final int xyz5 = regionIndexToPackedSectionPos(i);
+			final int x = (xyz5 & 31) - REGION_PADDING;
+			final int y = ((xyz5 >> 5) & 31) - REGION_PADDING;
+			final int z = ((xyz5 >> 10) & 31) - REGION_PADDING;
+
+			switch (pattern.sample(x, y, z, 0)) {
+				case SectionPattern.OPAQUE:
+					states[i] = Blocks.STONE.defaultBlockState();
+					closed[i] = true;
+					break;
+				case SectionPattern.TRANSLUCENT:
+					states[i] = Blocks.OAK_LEAVES.defaultBlockState();
+					break;
+				default:
+					states[i] = Blocks.AIR.defaultBlockState();
+			}
+		}
+	}
+
+	@Benchmark
+	public OcclusionResult build() {
+		calculator.prepare();
+		return calculator.build(false, advancedCulling);
+	}
+}
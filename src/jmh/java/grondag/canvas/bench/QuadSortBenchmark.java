@@ -0,0 +1,122 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import it.unimi.dsi.fastutil.Swapper;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import grondag.canvas.buffer.input.QuadSorter;
+
+/**
+ * Translucent quad sort as performed by {@code SortingVertexCollector}.
+ * Distances model a water surface viewed from above: many near-equal keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadSortBenchmark {
+	/** Standard quad stride in ints for the terrain vertex format. */
+	private static final int QUAD_STRIDE = 32;
+
+	@Param({"10000", "100000", "500000"})
+	public int quadCount;
+
+	private float[] distance;
+	private float[] mergeDistance;
+	private int[] vertexData;
+	private final int[] swapData = new int[QUAD_STRIDE * 2];
+
+	@Setup
+	public void setup() {
+		final Random r = new Random(42);
+		distance = new float[quadCount];
+		mergeDistance = new float[quadCount];
+		vertexData = new int[quadCount * QUAD_STRIDE];
+
+		for (int i = 0; i < quadCount; ++i) {
+			final float dx = r.nextInt(512) - 256 + 0.5f;
+			final float dz = r.nextInt(512) - 256 + 0.5f;
+			final float dy = 6.5f;
+			distance[i] = dx * dx + dy * dy + dz * dz;
+		}
+
+		for (int i = 0; i < vertexData.length; ++i) {
+			vertexData[i] = r.nextInt();
+		}
+	}
+
+	/**
+	 * Sorting permutes vertex data but not distances, so every call
+	 * applies the same permutation and no per-call reset is needed.
+	 */
+	@Benchmark
+	public boolean sort() {
+		return QuadSorter.get().sort(vertexData, quadCount, QUAD_STRIDE, distance);
+	}
+
+	/**
+	 * Merge sort previously used by {@code SortingVertexCollector}, for comparison.
+	 * It swaps distances along with quads, so each call starts from a fresh copy.
+	 */
+	@Benchmark
+	public int[] mergeSort() {
+		final float[] dist = mergeDistance;
+		final int[] data = vertexData;
+		final int[] swapData = this.swapData;
+		System.arraycopy(distance, 0, dist, 0, quadCount);
+
+		final IntComparator comparator = (a, b) -> Float.compare(dist[b], dist[a]);
+
+		final Swapper swapper = (a, b) -> {
+			final float distSwap = dist[a];
+			dist[a] = dist[b];
+			dist[b] = distSwap;
+
+			final int aIndex = a * QUAD_STRIDE;
+			final int bIndex = b * QUAD_STRIDE;
+
+			System.arraycopy(data, aIndex, swapData, 0, QUAD_STRIDE);
+			System.arraycopy(data, bIndex, swapData, QUAD_STRIDE, QUAD_STRIDE);
+			System.arraycopy(swapData, 0, data, bIndex, QUAD_STRIDE);
+			System.arraycopy(swapData, QUAD_STRIDE, data, aIndex, QUAD_STRIDE);
+		};
+
+		it.unimi.dsi.fastutil.Arrays.mergeSort(0, quadCount, comparator, swapper);
+		return data;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.bench;
+
+/**
+ * Deterministic synthetic section content for benchmarks. Coordinates are
+ * block positions relative to the section origin and may extend outside
+ * 0-15 to supply neighbor padding.
+ */
+public enum SectionPattern {
+	/** Every position is a full opaque cube. */
+	SOLID,
+
+	/** Stone with winding open tunnels, like deep underground sections. */
+	CAVES,
+
+	/** Mostly air with a few scattered opaque blocks. */
+	SPARSE,
+
+	/** Dense, noisy mix of leaves, logs and air, like jungle canopy. */
+	FOLIAGE;
+
+	public static final int AIR = 0;
+	public static final int OPAQUE = 1;
+	public static final int TRANSLUCENT = 2;
+
+	/** Returns {@link #AIR}, {@link #OPAQUE} or {@link #TRANSLUCENT} for the given position. */
+	public int sample(int x, int y, int z, int seed) {
+		switch (this) {
+			case SOLID:
+				return OPAQUE;
+
+			case CAVES:
+				return valueNoise(x, y, z, seed, 3) > 0.45f ? OPAQUE : AIR;
+
+			case SPARSE:
+				return (hash(x, y, z, seed) & 0xFF) < 12 ? OPAQUE : AIR;
+
+			case FOLIAGE:
+			default: {
+				final int h = hash(x, y, z, seed) & 0xFF;
+
+				if (h < 24) {
+					return OPAQUE;
+				}
+
+				return valueNoise(x, y, z, seed, 2) + (h & 0x3F) / 256f > 0.55f ? TRANSLUCENT : AIR;
+			}
+		}
+	}
+
+	public boolean isOpaque(int x, int y, int z, int seed) {
+		return sample(x, y, z, seed) == OPAQUE;
+	}
+
+	/** Opaque positions of the section interior as 64 words indexed by x | y << 4 | z << 8. */
+	public long[] interiorBits(int seed) {
+		final long[] result = new long[64];
+
+		for (int i = 0; i < 4096; ++i) {
+			if (isOpaque(i & 0xF, (i >> 4) & 0xF, (i >> 8) & 0xF, seed)) {
+				result[i >> 6] |= 1L << (i & 63);
+			}
+		}
+
+		return result;
+	}
+
+	private static int hash(int x, int y, int z, int seed) {
+		int h = seed * 0x9E3779B9 + x * 0x85EBCA6B + y * 0xC2B2AE35 + z * 0x27D4EB2F;
+		h ^= h >>> 15;
+		h *= 0x2C1B3C6D;
+		h ^= h >>> 12;
+		h *= 0x297A2D39;
+		return h ^ (h >>> 15);
+	}
+
+	private static float lattice(int x, int y, int z, int seed) {
+		return (hash(x, y, z, seed) & 0xFFFF) / 65535f;
+	}
+
+	/** Trilinear value noise in the range 0-1 with lattice spacing of 1 << scaleBits blocks. */
+	private static float valueNoise(int x, int y, int z, int seed, int scaleBits) {
+		final int x0 = x >> scaleBits;
+		final int y0 = y >> scaleBits;
+		final int z0 = z >> scaleBits;
+		final float scale = 1f / (1 << scaleBits);
+		final float fx = (x - (x0 << scaleBits)) * scale;
+		final float fy = (y - (y0 << scaleBits)) * scale;
+		final float fz = (z - (z0 << scaleBits)) * scale;
+
+		final float c00 = lerp(fx, lattice(x0, y0, z0, seed), lattice(x0 + 1, y0, z0, seed));
+		final float c10 = lerp(fx, lattice(x0, y0 + 1, z0, seed), lattice(x0 + 1, y0 + 1, z0, seed));
+		final float c01 = lerp(fx, lattice(x0, y0, z0 + 1, seed), lattice(x0 + 1, y0, z0 + 1, seed));
+		final float c11 = lerp(fx, lattice(x0, y0 + 1, z0 + 1, seed), lattice(x0 + 1, y0 + 1, z0 + 1, seed));
+
+		return lerp(fz, lerp(fy, c00, c10), lerp(fy, c01, c11));
+	}
+
+	private static float lerp(float t, float a, float b) {
+		return a + (b - a) * t;
+	}
+}
@@ -32,6 +32,12 @@ import grondag.canvas.apiimpl.rendercontext.CanvasItemRenderContext;
 import grondag.canvas.config.Configurator;
 import grondag.canvas.material.property.TextureMaterialState;
 import grondag.canvas.perf.ChunkRebuildCounters;
+import grondag.canvas.perf.ClusterCompactionCounters;
+import grondag.canvas.perf.OccluderBudgetCounters;
+import grondag.canvas.perf.RegionUpdateCounters;
+import grondag.canvas.perf.SealedRegionCounters;
+import grondag.canvas.perf.ShadowIterationCounters;
+import grondag.canvas.perf.TranslucentSortCounters;
 import grondag.canvas.perf.Timekeeper;
 import grondag.canvas.pipeline.Pipeline;
 import grondag.canvas.pipeline.config.PipelineLoader;
@@ -67,6 +73,12 @@ public class CanvasState {
 		CanvasEntityBlockRenderContext.reload();
 		CanvasItemRenderContext.reload();
 		ChunkRebuildCounters.reset();
+		ClusterCompactionCounters.reset();
+		OccluderBudgetCounters.reset();
+		RegionUpdateCounters.reset();
+		SealedRegionCounters.reset();
+		ShadowIterationCounters.reset();
+		TranslucentSortCounters.reset();
 		ChunkColorCache.invalidate();
 		AoFace.clampExteriorVertices(Configurator.clampExteriorVertices);
 
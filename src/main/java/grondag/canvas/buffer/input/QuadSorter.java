@@ -0,0 +1,188 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.buffer.input;
+
+import java.util.Arrays;
+
+/**
+ * Sorts quads in a vertex array farthest-first by squared distance.
+ *
+ * <p>Each quad gets a packed long key with order-preserving distance bits
+ * in the high word and the original quad index in the low word. Keys are
+ * sorted with an LSD radix sort over the high word only - the sort is
+ * stable and keys start in index order, so ties keep their original order
+ * exactly as the previous merge sort did. Vertex data is then moved once,
+ * with a single gather into a scratch array.
+ *
+ * <p>Not thread-safe. Use {@link #get()} to obtain an instance for the current thread.
+ */
+public final class QuadSorter {
+	private static final int RADIX_BITS = 11;
+	private static final int RADIX_SIZE = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX_SIZE - 1;
+	/** 11 + 11 + 10 bits covers the 32-bit distance word. */
+	private static final int PASS_COUNT = 3;
+	private static final int INITIAL_KEYS = 512;
+	private static final int INITIAL_SCRATCH = 4096;
+	/** Larger key buffers are released after use so idle threads don't pin them. */
+	private static final int MAX_RETAINED_KEYS = 1 << 15;
+	/** Larger vertex scratch is released after use - 16k quads at the terrain stride. */
+	private static final int MAX_RETAINED_SCRATCH = 1 << 19;
+
+	private static final ThreadLocal<QuadSorter> POOL = ThreadLocal.withInitial(QuadSorter::new);
+
+	private long[] keys = new long[INITIAL_KEYS];
+	private long[] swapKeys = new long[INITIAL_KEYS];
+	private int[] scratch = new int[INITIAL_SCRATCH];
+	private final int[] counts = new int[RADIX_SIZE * PASS_COUNT];
+
+	public static QuadSorter get() {
+		return POOL.get();
+	}
+
+	/**
+	 * Reorders quads in vertexData so that the quad with the largest distance comes first.
+	 * Quads with equal distance retain their relative order.
+	 *
+	 * @param vertexData vertex data, quadCount * quadStrideInts in length or more
+	 * @param quadCount number of quads to sort
+	 * @param quadStrideInts integers per quad
+	 * @param distance squared distance of each quad, indexed by original quad position
+	 * @return true if any quad changed position
+	 */
+	public boolean sort(int[] vertexData, int quadCount, int quadStrideInts, float[] distance) {
+		if (quadCount < 2) {
+			return false;
+		}
+
+		if (keys.length < quadCount) {
+			final int newSize = Integer.highestOneBit(quadCount - 1) << 1;
+			keys = new long[newSize];
+			swapKeys = new long[newSize];
+		}
+
+		long[] keys = this.keys;
+		long[] swapKeys = this.swapKeys;
+		final int[] counts = this.counts;
+
+		Arrays.fill(counts, 0);
+
+		for (int i = 0; i < quadCount; ++i) {
+			final int hi = distanceBits(distance[i]);
+			keys[i] = ((long) hi << 32) | i;
+			++counts[hi & RADIX_MASK];
+			++counts[RADIX_SIZE + ((hi >>> RADIX_BITS) & RADIX_MASK)];
+			++counts[RADIX_SIZE * 2 + (hi >>> (RADIX_BITS * 2))];
+		}
+
+		for (int pass = 0; pass < PASS_COUNT; ++pass) {
+			final int countBase = pass * RADIX_SIZE;
+			final int shift = 32 + pass * RADIX_BITS;
+
+			// Skip pass if every key has the same digit - common for the top digit
+			if (counts[countBase + (int) ((keys[0] >>> shift) & RADIX_MASK)] == quadCount) {
+				continue;
+			}
+
+			// Convert counts to starting offsets
+			int offset = 0;
+
+			for (int d = 0; d < RADIX_SIZE; ++d) {
+				final int c = counts[countBase + d];
+				counts[countBase + d] = offset;
+				offset += c;
+			}
+
+			for (int i = 0; i < quadCount; ++i) {
+				final long k = keys[i];
+				swapKeys[counts[countBase + (int) ((k >>> shift) & RADIX_MASK)]++] = k;
+			}
+
+			final long[] swap = keys;
+			keys = swapKeys;
+			swapKeys = swap;
+		}
+
+		this.keys = keys;
+		this.swapKeys = swapKeys;
+
+		int firstMoved = 0;
+
+		while (firstMoved < quadCount && (int) keys[firstMoved] == firstMoved) {
+			++firstMoved;
+		}
+
+		final boolean moved = firstMoved < quadCount;
+
+		if (moved) {
+			gather(vertexData, keys, firstMoved, quadCount, quadStrideInts);
+		}
+
+		trim();
+		return moved;
+	}
+
+	/**
+	 * Drops buffers grown by an unusually large sort. Instances live as long as
+	 * their thread, so one huge region would otherwise hold the memory indefinitely.
+	 */
+	private void trim() {
+		if (keys.length > MAX_RETAINED_KEYS) {
+			keys = new long[INITIAL_KEYS];
+			swapKeys = new long[INITIAL_KEYS];
+		}
+
+		if (scratch.length > MAX_RETAINED_SCRATCH) {
+			scratch = new int[INITIAL_SCRATCH];
+		}
+	}
+
+	/**
+	 * Copies quads from their original location into scratch in sorted order,
+	 * then back to the vertex array.  Quads before firstMoved are already in place.
+	 */
+	private void gather(int[] vertexData, long[] keys, int firstMoved, int quadCount, int quadStrideInts) {
+		final int intCount = (quadCount - firstMoved) * quadStrideInts;
+
+		if (scratch.length < intCount) {
+			scratch = new int[Integer.highestOneBit(intCount - 1) << 1];
+		}
+
+		final int[] scratch = this.scratch;
+		int target = 0;
+
+		for (int i = firstMoved; i < quadCount; ++i) {
+			System.arraycopy(vertexData, (int) keys[i] * quadStrideInts, scratch, target, quadStrideInts);
+			target += quadStrideInts;
+		}
+
+		System.arraycopy(scratch, 0, vertexData, firstMoved * quadStrideInts, intCount);
+	}
+
+	/**
+	 * Maps a float to unsigned int bits that sort in descending
+	 * {@link Float#compare(float, float)} order.
+	 */
+	static int distanceBits(float distance) {
+		final int bits = Float.floatToIntBits(distance);
+		return ~(bits ^ ((bits >> 31) | 0x80000000));
+	}
+}
@@ -20,9 +20,6 @@
 
 package grondag.canvas.buffer.input;
 
-import it.unimi.dsi.fastutil.Swapper;
-import it.unimi.dsi.fastutil.ints.IntComparator;
-
 import net.minecraft.util.Mth;
 import net.minecraft.world.phys.Vec3;
 
@@ -31,13 +28,10 @@ import grondag.canvas.render.terrain.TerrainSectorMap.RegionRenderSector;
 
 public class SortingVertexCollector extends SimpleVertexCollector {
 	private float[] perQuadDistance = new float[512];
-	private final int[] swapData;
-	private boolean didSwap = false;
 	final QuadDistanceFunc distanceFunc;
 
 	public SortingVertexCollector(RenderState renderState, boolean isTerrain, int[] target) {
 		super(renderState, target);
-		swapData = new int[quadStrideInts * 2];
 		distanceFunc = isTerrain ? this::getDistanceSqTerrain : this::getDistanceSq;
 	}
 
@@ -62,46 +56,14 @@ public class SortingVertexCollector extends SimpleVertexCollector {
 			perQuadDistance[j] = distanceFunc.compute(x, y, z, j);
 		}
 
-		didSwap = false;
-
-		// sort the indexes by distance - farthest first
-		// mergesort is important here - quicksort causes problems
-		// PERF: consider sorting primitive packed long array with distance in high bits
-		// and then use result to reorder the array. Will need to copy vertex data.
-		it.unimi.dsi.fastutil.Arrays.mergeSort(0, quadCount, comparator, swapper);
-
-		return didSwap;
+		// sort farthest first - must be stable to avoid flicker between coplanar quads
+		return QuadSorter.get().sort(vertexData, quadCount, quadStrideInts, perQuadDistance);
 	}
 
 	private interface QuadDistanceFunc {
 		float compute(float x, float y, float z, int quadIndex);
 	}
 
-	private final IntComparator comparator = new IntComparator() {
-		@Override
-		public int compare(int a, int b) {
-			return Float.compare(perQuadDistance[b], perQuadDistance[a]);
-		}
-	};
-
-	private final Swapper swapper = new Swapper() {
-		@Override
-		public void swap(int a, int b) {
-			didSwap = true;
-			final float distSwap = perQuadDistance[a];
-			perQuadDistance[a] = perQuadDistance[b];
-			perQuadDistance[b] = distSwap;
-
-			final int aIndex = a * quadStrideInts;
-			final int bIndex = b * quadStrideInts;
-
-			System.arraycopy(vertexData, aIndex, swapData, 0, quadStrideInts);
-			System.arraycopy(vertexData, bIndex, swapData, quadStrideInts, quadStrideInts);
-			System.arraycopy(swapData, 0, vertexData, bIndex, quadStrideInts);
-			System.arraycopy(swapData, quadStrideInts, vertexData, aIndex, quadStrideInts);
-		}
-	};
-
 	private float getDistanceSq(float x, float y, float z, int quadIndex) {
 		final int integerStride = quadStrideInts / 4;
 
@@ -163,6 +163,24 @@ public class CanvasConfigScreen extends BaseScreen {
 				DEFAULTS.terrainSetupOffThread,
 				"config.canvas.help.terrain_setup_off_thread").listItem());
 
+		list.addItem(optionSession.intOption("config.canvas.value.occluder_budget",
+				0,
+				20000,
+				500,
+				() -> editing.occluderBudget,
+				i -> editing.occluderBudget = i,
+				DEFAULTS.occluderBudget,
+				"config.canvas.help.occluder_budget").listItem());
+
+		list.addItem(optionSession.intOption("config.canvas.value.translucent_sort_budget",
+				1024,
+				65536,
+				1024,
+				() -> editing.translucentSortBudget,
+				i -> editing.translucentSortBudget = i,
+				DEFAULTS.translucentSortBudget,
+				"config.canvas.help.translucent_sort_budget").listItem());
+
 		list.addItem(optionSession.booleanOption("config.canvas.value.safe_native_allocation",
 				() -> editing.safeNativeMemoryAllocation,
 				b -> {
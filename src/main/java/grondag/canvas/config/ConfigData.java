@@ -64,6 +64,10 @@ class ConfigData {
 	boolean advancedTerrainCulling = true;
 	@Comment("Terrain setup done off the main render thread. Increases FPS when moving. May see occasional flashes of blank chunks")
 	boolean terrainSetupOffThread = true;
+	@Comment("Most occluder boxes drawn for terrain culling each time visibility is computed, largest on screen first. Values 0 to 20000. Zero disables.")
+	int occluderBudget = 0;
+	@Comment("Most translucent quads resorted per frame as the camera moves, nearest and most out of date first. Values 1024 to 65536.")
+	int translucentSortBudget = 16384;
 	@Comment("Use more efficient entity culling. Improves framerate in most scenes.")
 	boolean cullEntityRender = true;
 	@Comment("When true, render thread does not yield to other threads every frame. Vanilla behavior is false (yields).")
@@ -72,7 +72,8 @@ public class ConfigManager {
 	}
 
 	public static void initPipelineOptions(OptionConfig[] options) {
-		if (options == null || options.length == 0) {
+		// pipeline file is absent when configs are loaded offline - options keep default values
+		if (options == null || options.length == 0 || pipelineFile == null) {
 			return;
 		}
 
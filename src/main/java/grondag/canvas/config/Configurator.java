@@ -45,6 +45,8 @@ public class Configurator {
 	public static boolean fixLuminousBlockShading = DEFAULTS.fixLuminousBlockShading;
 	public static boolean advancedTerrainCulling = DEFAULTS.advancedTerrainCulling;
 	public static boolean terrainSetupOffThread = DEFAULTS.terrainSetupOffThread;
+	public static int occluderBudget = DEFAULTS.occluderBudget;
+	public static int translucentSortBudget = DEFAULTS.translucentSortBudget;
 	public static boolean cullEntityRender = DEFAULTS.cullEntityRender;
 	public static boolean greedyRenderThread = DEFAULTS.greedyRenderThread;
 	public static boolean forceJmxModelLoading = DEFAULTS.forceJmxModelLoading;
@@ -129,6 +131,8 @@ public class Configurator {
 		fixLuminousBlockShading = config.fixLuminousBlockShading;
 		advancedTerrainCulling = config.advancedTerrainCulling;
 		terrainSetupOffThread = config.terrainSetupOffThread;
+		occluderBudget = Mth.clamp(config.occluderBudget, 0, 20000);
+		translucentSortBudget = Mth.clamp(config.translucentSortBudget, 1024, 65536);
 		safeNativeMemoryAllocation = config.safeNativeMemoryAllocation;
 		cullEntityRender = config.cullEntityRender;
 		greedyRenderThread = config.greedyRenderThread;
@@ -192,6 +196,8 @@ public class Configurator {
 		config.advancedTerrainCulling = advancedTerrainCulling;
 		config.fixLuminousBlockShading = fixLuminousBlockShading;
 		config.terrainSetupOffThread = terrainSetupOffThread;
+		config.occluderBudget = occluderBudget;
+		config.translucentSortBudget = translucentSortBudget;
 		config.safeNativeMemoryAllocation = safeNativeMemoryAllocation;
 		config.cullEntityRender = cullEntityRender;
 		config.greedyRenderThread = greedyRenderThread;
@@ -33,8 +33,9 @@ public class LightSmoother {
 	public static final int OPAQUE = -1;
 	private static final int BLUR_RADIUS = 2;
 	private static final int MARGIN = BLUR_RADIUS + 2;
-	private static final int POS_DIAMETER = 16 + MARGIN * 2;
-	private static final int POS_COUNT = POS_DIAMETER * POS_DIAMETER * POS_DIAMETER;
+	/** Edge length of the padded light field cube used for smoothing. */
+	public static final int POS_DIAMETER = 16 + MARGIN * 2;
+	public static final int POS_COUNT = POS_DIAMETER * POS_DIAMETER * POS_DIAMETER;
 	private static final int Y_INC = POS_DIAMETER;
 	private static final int Z_INC = POS_DIAMETER * POS_DIAMETER;
 	private static final ThreadLocal<Helper> helpers = ThreadLocal.withInitial(Helper::new);
@@ -82,20 +83,7 @@ public class LightSmoother {
 			}
 		}
 
-		final int[] work = help.c;
-		smooth(BLUR_RADIUS + 1, block, work);
-		smooth(BLUR_RADIUS, work, block);
-		//        smooth(1, block, work);
-		//        float[] swap = block;
-		//        block = work;
-		//        work = swap;
-
-		smooth(BLUR_RADIUS + 1, sky, work);
-		smooth(BLUR_RADIUS, work, sky);
-		//        smooth(1, sky, work);
-		//        swap = sky;
-		//        sky = work;
-		//        work = swap;
+		smoothLightField(block, sky, help.c);
 
 		final int limit = 16 + MARGIN + 1;
 
@@ -111,10 +99,35 @@ public class LightSmoother {
 		}
 	}
 
-	private static int index(int x, int y, int z) {
+	/**
+	 * Index of a position in light field arrays. Coordinates are relative
+	 * to the region origin offset by the smoothing margin, 0 to {@link #POS_DIAMETER} - 1.
+	 */
+	public static int index(int x, int y, int z) {
 		return x + y * Y_INC + z * Z_INC;
 	}
 
+	/**
+	 * Blurs block and sky light fields in place. Positions holding {@link #OPAQUE}
+	 * do not contribute or receive light. All arrays must be {@link #POS_COUNT} long.
+	 * Separate from world capture so the kernel can be exercised without a world.
+	 */
+	public static void smoothLightField(int[] block, int[] sky, int[] work) {
+		smooth(BLUR_RADIUS + 1, block, work);
+		smooth(BLUR_RADIUS, work, block);
+		//        smooth(1, block, work);
+		//        float[] swap = block;
+		//        block = work;
+		//        work = swap;
+
+		smooth(BLUR_RADIUS + 1, sky, work);
+		smooth(BLUR_RADIUS, work, sky);
+		//        smooth(1, sky, work);
+		//        swap = sky;
+		//        sky = work;
+		//        work = swap;
+	}
+
 	private static void smooth(int margin, int[] src, int[] dest) {
 		final int xBase = MARGIN - margin;
 		final int xLimit = POS_DIAMETER - MARGIN + margin;
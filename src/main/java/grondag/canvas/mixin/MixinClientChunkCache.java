@@ -38,6 +38,7 @@ public class MixinClientChunkCache {
 
 		if (chunk != null) {
 			((LevelChunkExt) chunk).canvas_clearColorCache();
+			((LevelChunkExt) chunk).canvas_clearSectionSnapshots();
 		}
 	}
 }
@@ -23,12 +23,18 @@ package grondag.canvas.mixin;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunk;
 
 import grondag.canvas.mixinterface.LevelChunkExt;
+import grondag.canvas.terrain.region.input.SectionSnapshots;
 import grondag.canvas.terrain.util.ChunkColorCache;
 
 @Mixin(LevelChunk.class)
@@ -36,6 +42,7 @@ public class MixinLevelChunk implements LevelChunkExt {
 	@Shadow private Level level;
 
 	private @Nullable ChunkColorCache colorCache;
+	private @Nullable SectionSnapshots sectionSnapshots;
 
 	@Override
 	public ChunkColorCache canvas_colorCache() {
@@ -53,4 +60,29 @@ public class MixinLevelChunk implements LevelChunkExt {
 	public void canvas_clearColorCache() {
 		colorCache = null;
 	}
+
+	@Override
+	public SectionSnapshots canvas_sectionSnapshots() {
+		SectionSnapshots result = sectionSnapshots;
+
+		if (result == null) {
+			result = new SectionSnapshots((LevelChunk) (Object) this);
+			sectionSnapshots = result;
+		}
+
+		return result;
+	}
+
+	@Override
+	public void canvas_clearSectionSnapshots() {
+		sectionSnapshots = null;
+	}
+
+	@Inject(method = "setBlockState", at = @At("RETURN"))
+	private void onSetBlockState(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> ci) {
+		// Null return means nothing changed. Snapshots only exist for chunks seen by the renderer.
+		if (sectionSnapshots != null && ci.getReturnValue() != null) {
+			sectionSnapshots.onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+		}
+	}
 }
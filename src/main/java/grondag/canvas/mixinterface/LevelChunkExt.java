@@ -20,10 +20,15 @@
 
 package grondag.canvas.mixinterface;
 
+import grondag.canvas.terrain.region.input.SectionSnapshots;
 import grondag.canvas.terrain.util.ChunkColorCache;
 
 public interface LevelChunkExt {
 	ChunkColorCache canvas_colorCache();
 
 	void canvas_clearColorCache();
+
+	SectionSnapshots canvas_sectionSnapshots();
+
+	void canvas_clearSectionSnapshots();
 }
@@ -20,6 +20,8 @@
 
 package grondag.canvas.perf;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import io.vram.sc.concurrency.ConcurrentPerformanceCounter;
 
 import grondag.canvas.CanvasMod;
@@ -33,6 +35,15 @@ public abstract class ChunkRebuildCounters {
 	private static final ThreadLocal<Long> chunkStart = ThreadLocal.withInitial(() -> 0L);
 	private static final ThreadLocal<Long> copyStart = ThreadLocal.withInitial(() -> 0L);
 	private static final ThreadLocal<Long> uploadStart = ThreadLocal.withInitial(() -> 0L);
+	private static final AtomicInteger occlusionLookups = new AtomicInteger();
+	private static final AtomicInteger occlusionHits = new AtomicInteger();
+	private static final AtomicInteger snapshotLookups = new AtomicInteger();
+	private static final AtomicInteger snapshotReuses = new AtomicInteger();
+	private static final AtomicInteger snapshotPatches = new AtomicInteger();
+	private static final AtomicInteger snapshotCopies = new AtomicInteger();
+	private static final AtomicInteger captures = new AtomicInteger();
+	private static final AtomicInteger emptyCaptures = new AtomicInteger();
+	private static final AtomicInteger buriedCaptures = new AtomicInteger();
 
 	private ChunkRebuildCounters() {
 	}
@@ -41,6 +52,15 @@ public abstract class ChunkRebuildCounters {
 		buildCounter.clearStats();
 		copyCounter.clearStats();
 		uploadCounter.clearStats();
+		occlusionLookups.set(0);
+		occlusionHits.set(0);
+		snapshotLookups.set(0);
+		snapshotReuses.set(0);
+		snapshotPatches.set(0);
+		snapshotCopies.set(0);
+		captures.set(0);
+		emptyCaptures.set(0);
+		buriedCaptures.set(0);
 	}
 
 	public static void startChunk() {
@@ -59,6 +79,23 @@ public abstract class ChunkRebuildCounters {
 
 			final int uploadCount = uploadCounter.runCount();
 			CanvasMod.LOG.info(String.format("Upload time per region for last %d regions = %,dns  total time: %fs", uploadCount, uploadCount == 0 ? 0 : uploadCounter.runTime() / uploadCount, uploadCounter.runTime() / 1000000000d));
+
+			final int occlusionLookupCount = occlusionLookups.get();
+			final int occlusionHitCount = occlusionHits.get();
+			CanvasMod.LOG.info(String.format("Occlusion cache hits for last %d lookups = %d (%.1f%%)", occlusionLookupCount, occlusionHitCount, occlusionLookupCount == 0 ? 0f : occlusionHitCount * 100f / occlusionLookupCount));
+
+			final int snapshotLookupCount = snapshotLookups.get();
+			final int snapshotReuseCount = snapshotReuses.get();
+			CanvasMod.LOG.info(String.format("Section snapshots reused for last %d lookups = %d (%.1f%%)  block changes patched: %d  copied: %d",
+					snapshotLookupCount, snapshotReuseCount, snapshotLookupCount == 0 ? 0f : snapshotReuseCount * 100f / snapshotLookupCount, snapshotPatches.get(), snapshotCopies.get()));
+
+			// Saved time is estimated from the average time of regions that were built
+			final int captureCount = captures.get();
+			final int emptyCount = emptyCaptures.get();
+			final int buriedCount = buriedCaptures.get();
+			final int skipCount = emptyCount + buriedCount;
+			CanvasMod.LOG.info(String.format("Builds skipped at capture for last %d regions = %d (%.1f%%)  empty: %d  buried: %d  est. worker time saved: %fs",
+					captureCount, skipCount, captureCount == 0 ? 0f : skipCount * 100f / captureCount, emptyCount, buriedCount, skipCount * (buildCounter.runTime() / 2000) / 1000000000d));
 			reset();
 
 			CanvasMod.LOG.info("");
@@ -74,6 +111,42 @@ public abstract class ChunkRebuildCounters {
 		copyCounter.addCount(1);
 	}
 
+	public static void recordOcclusionLookup(boolean isHit) {
+		occlusionLookups.incrementAndGet();
+
+		if (isHit) {
+			occlusionHits.incrementAndGet();
+		}
+	}
+
+	/** Lookups for sections with only air aren't counted because they need no snapshot. */
+	public static void recordSnapshotLookup(boolean isReuse) {
+		snapshotLookups.incrementAndGet();
+
+		if (isReuse) {
+			snapshotReuses.incrementAndGet();
+		}
+	}
+
+	/** Regions classified as empty or buried at capture are never scheduled and have no build time. */
+	public static void recordCapture(boolean isEmpty, boolean isBuried) {
+		captures.incrementAndGet();
+
+		if (isEmpty) {
+			emptyCaptures.incrementAndGet();
+		} else if (isBuried) {
+			buriedCaptures.incrementAndGet();
+		}
+	}
+
+	public static void recordSnapshotChange(boolean isPatch) {
+		if (isPatch) {
+			snapshotPatches.incrementAndGet();
+		} else {
+			snapshotCopies.incrementAndGet();
+		}
+	}
+
 	public static void startUpload() {
 		uploadStart.set(System.nanoTime());
 	}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Timing for incremental vertex cluster compaction. Steps run on the render thread
+ * within the frame's cluster task budget, so the per-step maximum is the number
+ * that matters for hitches.
+ */
+public abstract class ClusterCompactionCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final int REPORT_INTERVAL = 500;
+
+	private static int stepCount;
+	private static long stepTime;
+	private static long maxStepTime;
+	private static int regionCount;
+	private static long byteCount;
+	private static int compactionCount;
+	private static long stepStart;
+
+	private ClusterCompactionCounters() {
+	}
+
+	public static void reset() {
+		stepCount = 0;
+		stepTime = 0;
+		maxStepTime = 0;
+		regionCount = 0;
+		byteCount = 0;
+		compactionCount = 0;
+	}
+
+	public static void startStep() {
+		stepStart = System.nanoTime();
+	}
+
+	/**
+	 * @param regions number of region allocations moved during the step
+	 * @param bytes vertex bytes copied during the step
+	 * @param isComplete true if the step finished a compaction
+	 */
+	public static void completeStep(int regions, int bytes, boolean isComplete) {
+		final long t = System.nanoTime() - stepStart;
+		stepTime += t;
+
+		if (t > maxStepTime) {
+			maxStepTime = t;
+		}
+
+		regionCount += regions;
+		byteCount += bytes;
+
+		if (isComplete) {
+			++compactionCount;
+		}
+
+		if (++stepCount == REPORT_INTERVAL) {
+			CanvasMod.LOG.info(String.format("Cluster compaction time per step for last %d steps = %,dns  max: %,dns  total time: %fs",
+					stepCount, stepTime / stepCount, maxStepTime, stepTime / 1000000000d));
+			CanvasMod.LOG.info(String.format("Cluster compaction moved %,d regions (%,d KB) and completed %d compactions, %d steps per compaction",
+					regionCount, byteCount / 1024, compactionCount, compactionCount == 0 ? 0 : stepCount / compactionCount));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
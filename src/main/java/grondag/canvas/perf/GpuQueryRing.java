@@ -0,0 +1,239 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import java.util.Arrays;
+
+import grondag.canvas.varia.GFX;
+
+/**
+ * Ring of GPU timer query sets, one set per frame in flight. Queries issued in a frame are
+ * read back in a later frame once the GPU reports them available, so the CPU never waits on
+ * the GPU. Results are published whole and in issue order, each tagged with the frame that
+ * issued them.
+ *
+ * <p>If every set is still waiting on the GPU when a frame starts, that frame is not timed
+ * rather than reusing queries with pending results.
+ */
+class GpuQueryRing {
+	/** Query operations used by the ring. Separate from GL so the ring can be tested without a context. */
+	interface Backend {
+		void generate(int[] ids);
+
+		void delete(int[] ids);
+
+		void begin(int id);
+
+		void end();
+
+		boolean isAvailable(int id);
+
+		long result(int id);
+	}
+
+	static final Backend GL_BACKEND = new Backend() {
+		private final int[] available = new int[1];
+		private final long[] elapsed = new long[1];
+
+		@Override
+		public void generate(int[] ids) {
+			GFX.glGenQueries(ids);
+			assert GFX.logError("Generating GPU Time Query Objects");
+		}
+
+		@Override
+		public void delete(int[] ids) {
+			GFX.glDeleteQueries(ids);
+			assert GFX.logError("Deleting GPU Time Query Objects");
+		}
+
+		@Override
+		public void begin(int id) {
+			GFX.glBeginQuery(GFX.GL_TIME_ELAPSED, id);
+			assert GFX.logError("Beginning GPU Time Query");
+		}
+
+		@Override
+		public void end() {
+			GFX.glEndQuery(GFX.GL_TIME_ELAPSED);
+			assert GFX.logError("Ending GPU Time Query");
+		}
+
+		@Override
+		public boolean isAvailable(int id) {
+			GFX.glGetQueryObjectiv(id, GFX.GL_QUERY_RESULT_AVAILABLE, available);
+			return available[0] != 0;
+		}
+
+		@Override
+		public long result(int id) {
+			GFX.glGetQueryObjecti64v(id, GFX.GL_QUERY_RESULT, elapsed);
+			return elapsed[0];
+		}
+	};
+
+	/** Enough for drivers that queue up to three frames ahead. */
+	static final int DEFAULT_FRAMES_IN_FLIGHT = 4;
+
+	private final Backend backend;
+	private final int stepCount;
+	private final int slotCount;
+	private final int[] ids;
+	private final boolean[] issued;
+	private final long[] slotFrame;
+	private final long[] results;
+
+	/** Oldest slot awaiting results. */
+	private int head = 0;
+	/** Slots issued and not yet read back, including the recording slot. */
+	private int pendingCount = 0;
+	/** Slot receiving queries for the current frame, or -1 if the current frame is not timed. */
+	private int recordingSlot = -1;
+	private int activeStep = -1;
+	private long frame = -1;
+	private long resultFrame = -1;
+	private int skippedFrames = 0;
+	private boolean isClosed = false;
+
+	GpuQueryRing(Backend backend, int stepCount, int framesInFlight) {
+		assert framesInFlight > 1;
+		this.backend = backend;
+		this.stepCount = stepCount;
+		slotCount = framesInFlight;
+		ids = new int[stepCount * framesInFlight];
+		issued = new boolean[stepCount * framesInFlight];
+		slotFrame = new long[framesInFlight];
+		results = new long[stepCount];
+
+		if (ids.length > 0) {
+			backend.generate(ids);
+		}
+	}
+
+	GpuQueryRing(Backend backend, int stepCount) {
+		this(backend, stepCount, DEFAULT_FRAMES_IN_FLIGHT);
+	}
+
+	/**
+	 * Ends recording of the previous frame, collects any results now available
+	 * and claims a query set for the new frame if one is free.
+	 */
+	void startFrame() {
+		assert !isClosed;
+		end();
+		recordingSlot = -1;
+		poll();
+		++frame;
+
+		if (pendingCount == slotCount) {
+			++skippedFrames;
+			return;
+		}
+
+		final int slot = (head + pendingCount) % slotCount;
+		Arrays.fill(issued, slot * stepCount, (slot + 1) * stepCount, false);
+		slotFrame[slot] = frame;
+		recordingSlot = slot;
+		++pendingCount;
+	}
+
+	/** Ends the active query, if any, and starts timing the given step. Negative step index only ends. */
+	void begin(int step) {
+		end();
+
+		if (recordingSlot >= 0 && step >= 0) {
+			assert step < stepCount;
+			final int index = recordingSlot * stepCount + step;
+			backend.begin(ids[index]);
+			issued[index] = true;
+			activeStep = step;
+		}
+	}
+
+	void end() {
+		if (activeStep >= 0) {
+			backend.end();
+			activeStep = -1;
+		}
+	}
+
+	/**
+	 * Reads back completed query sets, oldest first, without blocking. Stops at
+	 * the first set with any result still outstanding so results are never
+	 * published out of order. The frame being recorded is never polled.
+	 *
+	 * @return true if new results were published
+	 */
+	boolean poll() {
+		boolean result = false;
+
+		while (pendingCount > 0 && head != recordingSlot) {
+			final int base = head * stepCount;
+
+			for (int i = 0; i < stepCount; ++i) {
+				if (issued[base + i] && !backend.isAvailable(ids[base + i])) {
+					return result;
+				}
+			}
+
+			for (int i = 0; i < stepCount; ++i) {
+				results[i] = issued[base + i] ? backend.result(ids[base + i]) : 0;
+			}
+
+			resultFrame = slotFrame[head];
+			head = (head + 1) % slotCount;
+			--pendingCount;
+			result = true;
+		}
+
+		return result;
+	}
+
+	/** Elapsed nanoseconds for the step in the most recent published frame. Zero if the step did not run in that frame. */
+	long elapsed(int step) {
+		return results[step];
+	}
+
+	/** Frame that issued the current results, counted from the first {@link #startFrame()}, or -1 if none yet. */
+	long resultFrame() {
+		return resultFrame;
+	}
+
+	long frame() {
+		return frame;
+	}
+
+	/** Frames that were not timed because every query set was still waiting on the GPU. */
+	int skippedFrames() {
+		return skippedFrames;
+	}
+
+	void close() {
+		if (!isClosed) {
+			isClosed = true;
+			end();
+
+			if (ids.length > 0) {
+				backend.delete(ids);
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Occluder boxes drawn and skipped by the camera occluder budget, skipped boxes still
+ * visible in the finished raster, and regions found hidden, which together show what
+ * a given budget costs in culling effectiveness.
+ */
+public abstract class OccluderBudgetCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final int REPORT_INTERVAL = 200;
+
+	private static int iterationCount;
+	private static int resetCount;
+	private static long offeredCount;
+	private static long drawnCount;
+	private static long usefulSkippedCount;
+	private static long hiddenCount;
+
+	private OccluderBudgetCounters() {
+	}
+
+	public static void reset() {
+		iterationCount = 0;
+		resetCount = 0;
+		offeredCount = 0;
+		drawnCount = 0;
+		usefulSkippedCount = 0;
+		hiddenCount = 0;
+	}
+
+	/**
+	 * @param offered boxes in the region occlusion data
+	 * @param drawn boxes selected for drawing
+	 */
+	public static void addRegion(int offered, int drawn) {
+		offeredCount += offered;
+		drawnCount += drawn;
+	}
+
+	/**
+	 * @param count skipped boxes that were still visible once iteration finished,
+	 * and so would have covered raster area if drawn
+	 */
+	public static void addUsefulSkipped(int count) {
+		usefulSkippedCount += count;
+	}
+
+	public static void addHiddenRegion() {
+		++hiddenCount;
+	}
+
+	/**
+	 * @param isReset true if iteration started over with an empty raster
+	 */
+	public static void completeIteration(boolean isReset) {
+		if (isReset) {
+			++resetCount;
+		}
+
+		if (++iterationCount == REPORT_INTERVAL) {
+			final int divisor = Math.max(1, resetCount);
+
+			CanvasMod.LOG.info(String.format("Occluder budget %d for last %d passes (%d resets)  per reset: %,d boxes drawn, %,d skipped (%,d later proven useful), %,d regions hidden",
+					Configurator.occluderBudget, iterationCount, resetCount, drawnCount / divisor, (offeredCount - drawnCount) / divisor, usefulSkippedCount / divisor, hiddenCount / divisor));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Region position and visibility update passes, which run before each terrain iteration.
+ * Full sweeps only happen when the camera region changes, so saved time is estimated as
+ * average sweep time for every pass that did less than a sweep, less the time those passes took.
+ */
+public abstract class RegionUpdateCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final int REPORT_INTERVAL = 500;
+
+	private static int passCount;
+	private static int sweepCount;
+	private static int shadowPassCount;
+	private static long sweepTime;
+	private static long partialTime;
+	private static long regionCount;
+	private static long passStart;
+
+	private RegionUpdateCounters() {
+	}
+
+	public static void reset() {
+		passCount = 0;
+		sweepCount = 0;
+		shadowPassCount = 0;
+		sweepTime = 0;
+		partialTime = 0;
+		regionCount = 0;
+	}
+
+	public static void startPass() {
+		passStart = System.nanoTime();
+	}
+
+	/**
+	 * @param regions number of regions updated during the pass
+	 * @param isSweep true if every loaded region was visited
+	 * @param isShadowPass true if only regions inside render distance were visited to update shadow values
+	 */
+	public static void completePass(int regions, boolean isSweep, boolean isShadowPass) {
+		final long t = System.nanoTime() - passStart;
+
+		if (isSweep) {
+			sweepTime += t;
+			++sweepCount;
+		} else {
+			partialTime += t;
+
+			if (isShadowPass) {
+				++shadowPassCount;
+			}
+		}
+
+		regionCount += regions;
+
+		if (++passCount == REPORT_INTERVAL) {
+			final long averageSweepTime = sweepCount == 0 ? 0 : sweepTime / sweepCount;
+			final long savedTime = averageSweepTime * (passCount - sweepCount) - partialTime;
+
+			CanvasMod.LOG.info(String.format("Region updates for last %d passes: %d sweeps, %d shadow passes, %d skipped  regions touched per pass: %,d",
+					passCount, sweepCount, shadowPassCount, passCount - sweepCount - shadowPassCount, regionCount / passCount));
+			CanvasMod.LOG.info(String.format("Region update time per sweep = %,dns  other passes total: %fs  estimated sweep time saved: %fs",
+					averageSweepTime, partialTime / 1000000000d, savedTime / 1000000000d));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
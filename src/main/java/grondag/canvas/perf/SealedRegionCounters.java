@@ -0,0 +1,77 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Camera culling of sealed regions - those with no open interior - by the bounds of their
+ * exposed surfaces. These regions would be drawn whenever any part of them was visible if
+ * their renderable bounds were the full region, so the culled count is culling gained over
+ * that. Expect high rates underground and near zero in open terrain.
+ */
+public abstract class SealedRegionCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final int REPORT_INTERVAL = 200;
+
+	private static int iterationCount;
+	private static int resetCount;
+	private static long culledCount;
+	private static long visibleCount;
+
+	private SealedRegionCounters() {
+	}
+
+	public static void reset() {
+		iterationCount = 0;
+		resetCount = 0;
+		culledCount = 0;
+		visibleCount = 0;
+	}
+
+	public static void addCulledRegion() {
+		++culledCount;
+	}
+
+	/**
+	 * @param isReset true if iteration started over with an empty raster
+	 * @param visibleRegions regions in the camera visible list after iteration
+	 */
+	public static void completeIteration(boolean isReset, int visibleRegions) {
+		visibleCount += visibleRegions;
+
+		if (isReset) {
+			++resetCount;
+		}
+
+		if (++iterationCount == REPORT_INTERVAL) {
+			final long culledPerReset = culledCount / Math.max(1, resetCount);
+			final long visiblePerIteration = visibleCount / iterationCount;
+
+			CanvasMod.LOG.info(String.format("Sealed regions culled by surface bounds for last %d passes (%d resets): %,d per reset, %,d regions visible, %.1f%% additional culled",
+					iterationCount, resetCount, culledPerReset, visiblePerIteration, 100.0 * culledPerReset / Math.max(1, culledPerReset + visiblePerIteration)));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Shadow iteration frequency and cost. Every camera reset is also a shadow reset,
+ * so looking around shows how often shadow iteration starts over.
+ */
+public abstract class ShadowIterationCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final long REPORT_INTERVAL_NANOS = 10_000_000_000L;
+
+	private static int iterationCount;
+	private static int resetCount;
+	private static long iterationTime;
+	private static long iterationStart;
+	private static long intervalStart = System.nanoTime();
+
+	private ShadowIterationCounters() {
+	}
+
+	public static void reset() {
+		iterationCount = 0;
+		resetCount = 0;
+		iterationTime = 0;
+		intervalStart = System.nanoTime();
+	}
+
+	public static void startIteration() {
+		iterationStart = System.nanoTime();
+	}
+
+	/**
+	 * @param isReset true if shadow iteration started over with an empty raster
+	 */
+	public static void completeIteration(boolean isReset) {
+		final long now = System.nanoTime();
+		iterationTime += now - iterationStart;
+		++iterationCount;
+
+		if (isReset) {
+			++resetCount;
+		}
+
+		final long elapsed = now - intervalStart;
+
+		if (elapsed >= REPORT_INTERVAL_NANOS) {
+			final double seconds = elapsed / 1000000000d;
+
+			CanvasMod.LOG.info(String.format("Shadow iterations per second: %.1f (%.1f resets)  average time: %,dns",
+					iterationCount / seconds, resetCount / seconds, iterationCount == 0 ? 0 : iterationTime / iterationCount));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
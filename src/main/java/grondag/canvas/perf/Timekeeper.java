@@ -31,7 +31,6 @@ import net.minecraft.client.gui.GuiComponent;
 
 import grondag.canvas.CanvasMod;
 import grondag.canvas.config.Configurator;
-import grondag.canvas.varia.GFX;
 
 public abstract class Timekeeper {
 	private static int maxTextWidth = -1;
@@ -84,13 +83,12 @@ public abstract class Timekeeper {
 		private Object2LongOpenHashMap<String> cpuElapsed;
 		private Object2LongOpenHashMap<String> gpuElapsed;
 		private Group[] groups;
-		private int[] gpuQueryId;
+		private GpuQueryRing gpuQueries;
 		private boolean gpuEnabled = false;
 
 		private long startCpu;
 		private String cpuStep;
 		private int frameSinceReload;
-		private boolean gpuQuerying;
 
 		private void reload(boolean enableGpu) {
 			maxTextWidth = -1;
@@ -130,6 +128,10 @@ public abstract class Timekeeper {
 					break;
 			}
 
+			if (frameSinceReload >= GPU_SETUP_FRAME && gpuEnabled) {
+				gpuQueries.startFrame();
+			}
+
 			swap(group, token);
 		}
 
@@ -153,21 +155,8 @@ public abstract class Timekeeper {
 			}
 
 			if (frameSinceReload >= GPU_SETUP_FRAME && gpuEnabled) {
-				if (gpuQuerying) {
-					// End querying previous step
-					gpuQuerying = false;
-					GFX.glEndQuery(GFX.GL_TIME_ELAPSED);
-					assert GFX.logError("Ending GPU Time Query");
-				}
-
-				final int idIndex = getIdIndex(group, token);
-
-				if (idIndex > -1) {
-					// Begin querying current step
-					gpuQuerying = true;
-					GFX.glBeginQuery(GFX.GL_TIME_ELAPSED, gpuQueryId[idIndex]);
-					assert GFX.logError("Beginning GPU Time Query");
-				}
+				// Ends querying previous step and begins current step, if any
+				gpuQueries.begin(getIdIndex(group, token));
 			}
 		}
 
@@ -176,39 +165,28 @@ public abstract class Timekeeper {
 			swap(null, null);
 		}
 
+		/**
+		 * Publishes the most recent frame with all GPU results available. Never waits on the GPU,
+		 * so displayed times lag the current frame by however many frames the driver queues.
+		 */
 		public boolean populateResult() {
 			if (frameSinceReload < GPU_SETUP_FRAME || !gpuEnabled) {
 				return false;
 			}
 
-			int ready = 0;
-			final int[] temp = new int[1];
-
-			final int numQueries = gpuQueryId.length;
-
-			// Wait until all query result is ready (shouldn't cause infinite loop, but..?)
-			while (ready < numQueries) {
-				ready = 0;
-
-				for (int i = 0; i < numQueries; i++) {
-					GFX.glGetQueryObjectiv(gpuQueryId[i], GFX.GL_QUERY_RESULT_AVAILABLE, temp);
-					ready += temp[0];
-				}
+			if (!gpuQueries.poll()) {
+				return false;
 			}
 
-			final long[] elapsed = new long[1];
 			int i = 0;
 
 			for (int j = 0; j < groups.length; j++) {
 				for (final String token:groups[j].steps) {
-					GFX.glGetQueryObjecti64v(gpuQueryId[i], GFX.GL_QUERY_RESULT, elapsed);
-					gpuElapsed.put(token, elapsed[0]);
+					gpuElapsed.put(token, gpuQueries.elapsed(i));
 					i++;
 				}
 			}
 
-			assert GFX.logError("Populating GPU Time Query Results");
-
 			return true;
 		}
 
@@ -217,18 +195,16 @@ public abstract class Timekeeper {
 		 * Make sure that this is called on reload frame and on config or pipeline reload.
 		 */
 		public void deleteQueries() {
-			if (gpuQueryId == null) {
+			if (gpuQueries == null) {
 				return;
 			}
 
-			GFX.glDeleteQueries(gpuQueryId);
-			assert GFX.logError("Deleting GPU Time Query Objects");
-
-			gpuQueryId = null;
+			gpuQueries.close();
+			gpuQueries = null;
 		}
 
 		private void generateQueries() {
-			if (gpuQueryId != null) {
+			if (gpuQueries != null) {
 				deleteQueries();
 			}
 
@@ -240,11 +216,8 @@ public abstract class Timekeeper {
 
 			final int numSteps = count;
 
-			gpuQueryId = new int[numSteps];
+			gpuQueries = new GpuQueryRing(GpuQueryRing.GL_BACKEND, numSteps);
 			gpuElapsed = new Object2LongOpenHashMap<>(numSteps);
-
-			GFX.glGenQueries(gpuQueryId);
-			assert GFX.logError("Generating GPU Time Query Objects");
 		}
 
 		private int getIdIndex(ProfilerGroup group, String token) {
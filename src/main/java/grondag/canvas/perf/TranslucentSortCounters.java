@@ -0,0 +1,124 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import grondag.canvas.CanvasMod;
+import grondag.canvas.config.Configurator;
+
+/**
+ * Translucency resort activity by distance tier and how out of date sorts are.
+ * Staleness is the angle in degrees the camera has moved through, as seen from each
+ * translucent region, since that region was last sorted.
+ */
+public abstract class TranslucentSortCounters {
+	public static final boolean ENABLED = Configurator.enablePerformanceTrace;
+	private static final long REPORT_INTERVAL_NANOS = 10_000_000_000L;
+	private static final int TIER_COUNT = 4;
+
+	private static int frameCount;
+	private static int skippedFrameCount;
+	private static long regionCount;
+	private static long candidateCount;
+	private static double angleSum;
+	private static float maxAngle;
+	private static int maxWaitFrames;
+	private static final int[] resortCount = new int[TIER_COUNT];
+	private static final long[] quadCount = new long[TIER_COUNT];
+	private static long intervalStart = System.nanoTime();
+
+	private TranslucentSortCounters() {
+	}
+
+	public static void reset() {
+		frameCount = 0;
+		skippedFrameCount = 0;
+		regionCount = 0;
+		candidateCount = 0;
+		angleSum = 0;
+		maxAngle = 0;
+		maxWaitFrames = 0;
+
+		for (int i = 0; i < TIER_COUNT; ++i) {
+			resortCount[i] = 0;
+			quadCount[i] = 0;
+		}
+
+		intervalStart = System.nanoTime();
+	}
+
+	/**
+	 * @param angle radians camera has moved through as seen from a translucent region since its last sort
+	 */
+	public static void addRegion(float angle) {
+		++regionCount;
+		angleSum += angle;
+
+		if (angle > maxAngle) {
+			maxAngle = angle;
+		}
+	}
+
+	public static void addResort(int tier, int quads) {
+		++resortCount[tier];
+		quadCount[tier] += quads;
+	}
+
+	/**
+	 * @param candidates regions that needed a resort this frame
+	 * @param waitFrames longest wait of any region passed over this frame
+	 */
+	public static void completeFrame(int candidates, int waitFrames) {
+		++frameCount;
+		candidateCount += candidates;
+
+		if (waitFrames > maxWaitFrames) {
+			maxWaitFrames = waitFrames;
+		}
+
+		reportIfDue();
+	}
+
+	/** Counts a frame where the camera hadn't moved enough to check regions for resort. */
+	public static void skipFrame() {
+		++skippedFrameCount;
+		reportIfDue();
+	}
+
+	private static void reportIfDue() {
+		final long elapsed = System.nanoTime() - intervalStart;
+
+		if (elapsed >= REPORT_INTERVAL_NANOS) {
+			final double seconds = elapsed / 1000000000d;
+
+			CanvasMod.LOG.info(String.format("Translucent resorts per second by tier: %.1f / %.1f / %.1f / %.1f  quads per second: %,d  budget: %,d quads",
+					resortCount[0] / seconds, resortCount[1] / seconds, resortCount[2] / seconds, resortCount[3] / seconds,
+					(long) ((quadCount[0] + quadCount[1] + quadCount[2] + quadCount[3]) / seconds), Configurator.translucentSortBudget));
+			CanvasMod.LOG.info(String.format("Sort staleness average: %.2f deg  max: %.2f deg  candidates per frame: %.1f  longest wait: %d frames",
+					regionCount == 0 ? 0 : Math.toDegrees(angleSum / regionCount), Math.toDegrees(maxAngle),
+					frameCount == 0 ? 0 : (double) candidateCount / frameCount, maxWaitFrames));
+			CanvasMod.LOG.info(String.format("Resort checks per second: %.1f  skipped: %.1f",
+					frameCount / seconds, skippedFrameCount / seconds));
+			reset();
+
+			CanvasMod.LOG.info("");
+		}
+	}
+}
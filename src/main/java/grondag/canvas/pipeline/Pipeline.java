@@ -31,11 +31,13 @@ import grondag.canvas.CanvasMod;
 import grondag.canvas.config.Configurator;
 import grondag.canvas.pipeline.config.FabulousConfig;
 import grondag.canvas.pipeline.config.FramebufferConfig;
+import grondag.canvas.pipeline.config.ImageAliasPlan;
 import grondag.canvas.pipeline.config.ImageConfig;
 import grondag.canvas.pipeline.config.PassConfig;
 import grondag.canvas.pipeline.config.PipelineConfig;
 import grondag.canvas.pipeline.config.PipelineConfigBuilder;
 import grondag.canvas.pipeline.config.ProgramConfig;
+import grondag.canvas.pipeline.config.RenderGraph;
 import grondag.canvas.pipeline.config.SkyShadowConfig;
 import grondag.canvas.pipeline.pass.Pass;
 import grondag.canvas.render.PrimaryFrameBuffer;
@@ -92,6 +94,7 @@ public class Pipeline {
 	private static final Object2ObjectOpenHashMap<String, PipelineFramebuffer> FRAMEBUFFERS = new Object2ObjectOpenHashMap<>();
 
 	private static PipelineConfig config;
+	private static ImageAliasPlan imageAliases;
 
 	private static boolean advancedTerrainCulling;
 
@@ -107,6 +110,10 @@ public class Pipeline {
 		return config;
 	}
 
+	public static ImageAliasPlan imageAliases() {
+		return imageAliases;
+	}
+
 	public static Image getImage(String name) {
 		return IMAGES.get(name);
 	}
@@ -159,6 +166,7 @@ public class Pipeline {
 		}
 
 		if (!IMAGES.isEmpty()) {
+			// images with shared storage appear more than once, but closing is idempotent
 			IMAGES.values().forEach(img -> img.close());
 			IMAGES.clear();
 		}
@@ -185,13 +193,37 @@ public class Pipeline {
 		final PipelineConfig config = PipelineConfigBuilder.build(new ResourceLocation(Configurator.pipelineId));
 		Pipeline.config = config;
 
+		final RenderGraph graph = RenderGraph.compile(config);
+
+		for (final PassConfig pass : graph.culled) {
+			CanvasMod.LOG.info(String.format("Pipeline pass %s was skipped because its output is never used.", pass.name));
+		}
+
+		final ImageAliasPlan aliases = ImageAliasPlan.plan(config, graph);
+		imageAliases = aliases;
+
 		for (final ImageConfig img : config.images) {
 			if (IMAGES.containsKey(img.name)) {
 				CanvasMod.LOG.warn(String.format("Duplicate pipeline image definition encountered with name %s. Duplicate was skipped.", img.name));
 				continue;
 			}
 
-			IMAGES.put(img.name, new Image(img, img.width > 0 ? img.width : width, img.height > 0 ? img.height : height));
+			if (aliases.owner(img) == img) {
+				IMAGES.put(img.name, new Image(img, img.width > 0 ? img.width : width, img.height > 0 ? img.height : height));
+			}
+		}
+
+		if (aliases.sharedCount() > 0) {
+			for (final ImageConfig img : config.images) {
+				final ImageConfig owner = aliases.owner(img);
+
+				if (owner != img) {
+					IMAGES.put(img.name, IMAGES.get(owner.name));
+				}
+			}
+
+			CanvasMod.LOG.info(String.format("Pipeline images sharing storage with other images: %d, saving %d KB of texture memory.",
+					aliases.sharedCount(), aliases.bytesSaved(width, height) / 1024));
 		}
 
 		for (final ProgramConfig program : config.programs) {
@@ -282,11 +314,7 @@ public class Pipeline {
 			fabTranslucentColor = getImage(b.config.colorAttachments[0].image.name).glId();
 			fabTranslucentDepth = getImage(b.config.depthAttachment.image.name).glId();
 
-			fabulous = new Pass[config.fabulous.length];
-
-			for (int i = 0; i < config.fabulous.length; ++i) {
-				fabulous[i] = Pass.create(config.fabulous[i]);
-			}
+			fabulous = buildPasses(config, graph.fabulous);
 		} else {
 			fabEntityFbo = 0;
 			fabEntityColor = 0;
@@ -313,8 +341,8 @@ public class Pipeline {
 
 		BufferDebug.init(config);
 
-		onWorldRenderStart = buildPasses(config, config.onWorldStart);
-		afterRenderHand = buildPasses(config, config.afterRenderHand);
+		onWorldRenderStart = buildPasses(config, graph.onWorldStart);
+		afterRenderHand = buildPasses(config, graph.afterRenderHand);
 	}
 
 	private static Pass[] buildPasses(PipelineConfig cfg, PassConfig[] configs) {
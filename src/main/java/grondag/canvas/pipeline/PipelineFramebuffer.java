@@ -166,6 +166,22 @@ public class PipelineFramebuffer {
 		}
 	}
 
+	/** Clears the color attachments flagged in attachmentFlags to zero. Framebuffer must be bound. */
+	public void clearColorAttachments(int attachmentFlags) {
+		GFX.colorMask(true, true, true, true);
+		GFX.clearColor(0, 0, 0, 0);
+		final int count = attachmentPoints.length;
+
+		for (int i = 0; i < count; ++i) {
+			if ((attachmentFlags & (1 << i)) != 0) {
+				GFX.glDrawBuffer(GFX.GL_COLOR_ATTACHMENT0 + i);
+				GFX.clear(GFX.GL_COLOR_BUFFER_BIT, Minecraft.ON_OSX);
+			}
+		}
+
+		GFX.glDrawBuffers(attachmentPoints);
+	}
+
 	public void bind() {
 		GFX.glBindFramebuffer(GFX.GL_FRAMEBUFFER, fboGlId);
 	}
@@ -89,6 +89,7 @@ public class PipelineManager {
 		beginFullFrameRender();
 
 		drawBuffer.bind();
+		Pass.resetBinding();
 
 		for (final Pass pass : Pipeline.onWorldRenderStart) {
 			if (pass.isEnabled()) {
@@ -148,6 +149,7 @@ public class PipelineManager {
 		beginFullFrameRender();
 
 		drawBuffer.bind();
+		Pass.resetBinding();
 
 		for (final Pass pass : Pipeline.afterRenderHand) {
 			if (pass.isEnabled()) {
@@ -165,6 +167,7 @@ public class PipelineManager {
 		beginFullFrameRender();
 
 		drawBuffer.bind();
+		Pass.resetBinding();
 
 		for (final Pass pass : Pipeline.fabulous) {
 			if (pass.isEnabled()) {
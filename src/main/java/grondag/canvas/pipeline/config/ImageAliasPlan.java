@@ -0,0 +1,293 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.pipeline.config;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import grondag.canvas.pipeline.config.util.NamedDependency;
+import grondag.canvas.varia.GFX;
+
+/**
+ * Assigns pipeline images with non-overlapping lifetimes within a frame to shared textures.
+ *
+ * <p>Lifetimes are measured over the pass order of a compiled {@link RenderGraph}. An image
+ * can share storage only if its first use in the frame completely overwrites it - a clear, or
+ * a full-size program pass - so nothing is carried over from the prior frame. Images used by
+ * world rendering or otherwise visible outside pipeline passes, images with mip levels or layers,
+ * images never used by any pass and images configured with {@code shareStorage: false} always
+ * get their own texture. Images that share a texture must match in every format, size and
+ * texture parameter.
+ *
+ * <p>Pipeline passes run with blending disabled, but a program can still discard fragments.
+ * A program pass that first writes a shared image clears it beforehand, so pixels it leaves
+ * unwritten read as zero - as in a new texture - rather than as another image's data.
+ */
+public class ImageAliasPlan {
+	/** Maps each image that borrows storage to the image whose texture it uses. */
+	private final Object2ObjectOpenHashMap<String, ImageConfig> owners;
+	/** Color attachment bits to clear before each program pass that first writes a shared image. */
+	private final Reference2IntOpenHashMap<PassConfig> clearFlags;
+
+	private ImageAliasPlan(Object2ObjectOpenHashMap<String, ImageConfig> owners, Reference2IntOpenHashMap<PassConfig> clearFlags) {
+		this.owners = owners;
+		this.clearFlags = clearFlags;
+	}
+
+	/** The image whose texture should back the given image - the image itself if not shared. */
+	public ImageConfig owner(ImageConfig image) {
+		return owners.getOrDefault(image.name, image);
+	}
+
+	/** Bit i set if color attachment i must be cleared before the pass runs. */
+	public int clearFlags(PassConfig pass) {
+		return clearFlags.getInt(pass);
+	}
+
+	/** Number of images that borrow storage from another image. */
+	public int sharedCount() {
+		return owners.size();
+	}
+
+	/** Texture memory not allocated because of sharing, for the given window size. */
+	public long bytesSaved(int windowWidth, int windowHeight) {
+		long result = 0;
+
+		for (final ImageConfig img : owners.values()) {
+			result += estimateBytes(img, windowWidth, windowHeight);
+		}
+
+		return result;
+	}
+
+	public static ImageAliasPlan plan(PipelineConfig config, RenderGraph graph) {
+		final Object2ObjectOpenHashMap<String, Lifetime> lifetimes = new Object2ObjectOpenHashMap<>();
+
+		for (final ImageConfig img : config.images) {
+			// duplicates are skipped at activation so only the first definition counts
+			lifetimes.putIfAbsent(img.name, new Lifetime(img));
+		}
+
+		for (final String name : RenderGraph.externalImages(config)) {
+			final Lifetime life = lifetimes.get(name);
+
+			if (life != null) {
+				life.pinned = true;
+			}
+		}
+
+		int step = scan(graph.onWorldStart, 0, lifetimes);
+		// world rendering happens here, but only touches pinned images
+		step = scan(graph.fabulous, step + 1, lifetimes);
+		scan(graph.afterRenderHand, step, lifetimes);
+
+		final ObjectArrayList<Lifetime> candidates = new ObjectArrayList<>();
+
+		for (final ImageConfig img : config.images) {
+			final Lifetime life = lifetimes.get(img.name);
+
+			if (life.image == img && !life.pinned && life.firstWrite != -1) {
+				candidates.add(life);
+			}
+		}
+
+		// stable, so ties keep declaration order
+		candidates.sort((a, b) -> Integer.compare(a.firstWrite, b.firstWrite));
+
+		final ObjectArrayList<Lifetime> slots = new ObjectArrayList<>();
+		final Object2ObjectOpenHashMap<String, ImageConfig> owners = new Object2ObjectOpenHashMap<>();
+
+		final ObjectArrayList<Lifetime> shared = new ObjectArrayList<>();
+
+		for (final Lifetime life : candidates) {
+			Lifetime slot = null;
+
+			for (final Lifetime s : slots) {
+				if (s.lastUse < life.firstWrite && isCompatible(s.image, life.image)) {
+					slot = s;
+					break;
+				}
+			}
+
+			if (slot == null) {
+				slots.add(life);
+			} else {
+				owners.put(life.image.name, slot.image);
+
+				if (!slot.isShared) {
+					slot.isShared = true;
+					shared.add(slot);
+				}
+
+				life.isShared = true;
+				shared.add(life);
+				// slot keeps the owner's config but now extends to the end of this image's lifetime
+				slot.lastUse = life.lastUse;
+			}
+		}
+
+		final Reference2IntOpenHashMap<PassConfig> clearFlags = new Reference2IntOpenHashMap<>();
+
+		for (final Lifetime life : shared) {
+			if (life.firstWritePass != null) {
+				clearFlags.put(life.firstWritePass, clearFlags.getInt(life.firstWritePass) | (1 << life.firstWriteAttachment));
+			}
+		}
+
+		return new ImageAliasPlan(owners, clearFlags);
+	}
+
+	private static int scan(PassConfig[] passes, int step, Object2ObjectOpenHashMap<String, Lifetime> lifetimes) {
+		for (final PassConfig pass : passes) {
+			for (final NamedDependency<ImageConfig> dep : pass.samplerImages) {
+				final Lifetime life = lifetimes.get(dep.name);
+
+				if (life != null) {
+					life.use(step, false);
+				}
+			}
+
+			final FramebufferConfig fb = pass.framebuffer.value();
+
+			if (fb != null) {
+				final boolean isClear = pass.program.name.equals(PassConfig.CLEAR_NAME);
+
+				for (int i = 0; i < fb.colorAttachments.length; ++i) {
+					final AttachmentConfig a = fb.colorAttachments[i];
+					final Lifetime life = lifetimes.get(a.image.name);
+
+					if (life != null) {
+						final ImageConfig img = life.image;
+						// program passes draw a full-screen quad without blending
+						final boolean overwrites = isClear ? a.clear
+								: a.lod == 0 && pass.lod == 0 && pass.width == img.width && pass.height == img.height;
+
+						if (overwrites && life.firstWrite == -1 && !isClear) {
+							life.firstWritePass = pass;
+							life.firstWriteAttachment = i;
+						}
+
+						life.use(step, overwrites);
+					}
+				}
+
+				if (fb.depthAttachment != null) {
+					final Lifetime life = lifetimes.get(fb.depthAttachment.image.name);
+
+					// program passes run with depth writes off
+					if (life != null) {
+						life.use(step, isClear && fb.depthAttachment.clear);
+					}
+				}
+			}
+
+			++step;
+		}
+
+		return step;
+	}
+
+	private static boolean isCompatible(ImageConfig a, ImageConfig b) {
+		return a.target == b.target
+				&& a.internalFormat == b.internalFormat
+				&& a.pixelFormat == b.pixelFormat
+				&& a.pixelDataType == b.pixelDataType
+				&& a.lod == b.lod
+				&& a.width == b.width
+				&& a.height == b.height
+				&& a.depth == b.depth
+				&& Arrays.equals(a.texParamPairs, b.texParamPairs);
+	}
+
+	/** Approximate texture memory of an image including mip levels. Images with zero size track the window. */
+	public static long estimateBytes(ImageConfig img, int windowWidth, int windowHeight) {
+		final long width = img.width > 0 ? img.width : windowWidth;
+		final long height = img.height > 0 ? img.height : windowHeight;
+		final boolean is3d = img.target == GFX.GL_TEXTURE_3D;
+		final boolean isArray = img.target == GFX.GL_TEXTURE_2D_ARRAY;
+		final long depth = is3d || isArray ? Math.max(1, img.depth) : 1;
+		long result = 0;
+
+		for (int i = 0; i <= img.lod; ++i) {
+			result += Math.max(1, width >> i) * Math.max(1, height >> i) * (is3d ? Math.max(1, depth >> i) : depth);
+		}
+
+		return result * bytesPerTexel(img.internalFormat);
+	}
+
+	private static int bytesPerTexel(int internalFormat) {
+		switch (internalFormat) {
+			case GFX.GL_R8:
+				return 1;
+			case GFX.GL_RG8:
+			case GFX.GL_R16F:
+			case GFX.GL_DEPTH_COMPONENT16:
+				return 2;
+			case GFX.GL_RGB8:
+				return 3;
+			case GFX.GL_RGB16F:
+				return 6;
+			case GFX.GL_RGBA16F:
+			case GFX.GL_RG32F:
+			case GFX.GL_RGBA16:
+				return 8;
+			case GFX.GL_RGB32F:
+				return 12;
+			case GFX.GL_RGBA32F:
+				return 16;
+			default:
+				// RGBA8, 32-bit depth and packed formats
+				return 4;
+		}
+	}
+
+	private static class Lifetime {
+		final ImageConfig image;
+		boolean pinned;
+		boolean isShared;
+		int firstWrite = -1;
+		int lastUse = -1;
+		/** Program pass that first writes the image, or null if that is a clear pass. */
+		PassConfig firstWritePass;
+		int firstWriteAttachment;
+
+		Lifetime(ImageConfig image) {
+			this.image = image;
+			pinned = image.target != GFX.GL_TEXTURE_2D || image.lod > 0 || !image.shareStorage;
+		}
+
+		/** Any use before a complete overwrite means contents must survive from the prior frame. */
+		void use(int step, boolean overwrites) {
+			if (firstWrite == -1) {
+				if (overwrites) {
+					firstWrite = step;
+				} else {
+					pinned = true;
+				}
+			}
+
+			lastUse = step;
+		}
+	}
+}
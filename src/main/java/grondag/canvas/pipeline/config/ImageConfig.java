@@ -41,6 +41,8 @@ public class ImageConfig extends NamedConfig<ImageConfig> {
 	public final int height;
 	public final int depth;
 	public final int[] texParamPairs;
+	/** False if this image must keep its own texture, for example because no pass writes all of it. */
+	public final boolean shareStorage;
 
 	private ImageConfig(ConfigContext ctx, String name, int internalFormat, int lod, int pixelFormat, int pixelDataType, boolean depth) {
 		super(ctx, name);
@@ -52,6 +54,7 @@ public class ImageConfig extends NamedConfig<ImageConfig> {
 		width = 0;
 		height = 0;
 		this.depth = 1;
+		shareStorage = true;
 
 		if (depth) {
 			texParamPairs = new int[10];
@@ -85,6 +88,7 @@ public class ImageConfig extends NamedConfig<ImageConfig> {
 		final int size = config.getInt("size", 0);
 		width = config.getInt("width", size);
 		height = config.getInt("height", size);
+		shareStorage = config.getBoolean("shareStorage", true);
 
 		if (!config.containsKey("texParams")) {
 			texParamPairs = new int[0];
@@ -109,6 +109,11 @@ public class PassConfig extends NamedConfig<PassConfig> {
 		return valid;
 	}
 
+	/** False when the pass is switched off by its pipeline option. */
+	public boolean isEnabled() {
+		return !toggleConfig.isValid() || toggleConfig.value().value();
+	}
+
 	@Override
 	public NamedDependencyMap<PassConfig> nameMap() {
 		return context.passes;
@@ -179,6 +179,16 @@ public class PipelineConfigBuilder {
 		return valid;
 	}
 
+	/**
+	 * Source of pipeline JSON resources. Abstracted from the resource manager
+	 * so pipeline configs can be loaded and analyzed without a running client.
+	 */
+	@FunctionalInterface
+	public interface ResourceOpener {
+		/** Returns null if no resource exists with the given id. */
+		@Nullable InputStream open(ResourceLocation id) throws IOException;
+	}
+
 	private static @Nullable PipelineConfigBuilder load(ResourceLocation id) {
 		final ResourceManager rm = Minecraft.getInstance().getResourceManager();
 
@@ -186,6 +196,13 @@ public class PipelineConfigBuilder {
 			return null;
 		}
 
+		return load(id, target -> {
+			final var resource = rm.getResource(target);
+			return resource.isPresent() ? resource.get().open() : null;
+		});
+	}
+
+	private static @Nullable PipelineConfigBuilder load(ResourceLocation id, ResourceOpener opener) {
 		final PipelineConfigBuilder result = new PipelineConfigBuilder();
 		final ObjectOpenHashSet<ResourceLocation> included = new ObjectOpenHashSet<>();
 		final ObjectArrayFIFOQueue<ResourceLocation> queue = new ObjectArrayFIFOQueue<>();
@@ -194,26 +211,13 @@ public class PipelineConfigBuilder {
 		included.add(id);
 
 		while (!queue.isEmpty()) {
-			ResourceLocation target = queue.dequeue();
-
-			// Allow flexibility on JSON vs JSON5 extensions
-			if (rm.getResource(target).isEmpty()) {
-				if (target.getPath().endsWith("json5")) {
-					final var candidate = new ResourceLocation(target.getNamespace(), target.getPath().substring(0, target.getPath().length() - 1));
-
-					if (rm.getResource(candidate).isPresent()) {
-						target = candidate;
-					}
-				} else if (target.getPath().endsWith("json")) {
-					final var candidate = new ResourceLocation(target.getNamespace(), target.getPath() + "5");
-
-					if (rm.getResource(candidate).isPresent()) {
-						target = candidate;
-					}
+			final ResourceLocation target = queue.dequeue();
+
+			try (InputStream inputStream = open(opener, target)) {
+				if (inputStream == null) {
+					throw new NoSuchElementException("resource not found");
 				}
-			}
 
-			try (InputStream inputStream = rm.getResource(target).get().open()) {
 				final JsonObject configJson = ConfigManager.JANKSON.load(inputStream);
 				result.load(configJson);
 				getIncludes(configJson, included, queue);
@@ -232,6 +236,23 @@ public class PipelineConfigBuilder {
 		}
 	}
 
+	/** Allow flexibility on JSON vs JSON5 extensions. */
+	private static @Nullable InputStream open(ResourceOpener opener, ResourceLocation target) throws IOException {
+		final InputStream result = opener.open(target);
+
+		if (result != null) {
+			return result;
+		}
+
+		if (target.getPath().endsWith("json5")) {
+			return opener.open(new ResourceLocation(target.getNamespace(), target.getPath().substring(0, target.getPath().length() - 1)));
+		} else if (target.getPath().endsWith("json")) {
+			return opener.open(new ResourceLocation(target.getNamespace(), target.getPath() + "5"));
+		} else {
+			return null;
+		}
+	}
+
 	private static void getIncludes(JsonObject configJson, ObjectOpenHashSet<ResourceLocation> included, ObjectArrayFIFOQueue<ResourceLocation> queue) {
 		if (configJson == null || !configJson.containsKey("include")) {
 			return;
@@ -262,4 +283,13 @@ public class PipelineConfigBuilder {
 
 		return builder == null ? PipelineConfig.minimalConfig() : new PipelineConfig(builder);
 	}
+
+	/**
+	 * Loads a pipeline from the given source without falling back to the default pipeline.
+	 * Returns null if the pipeline is invalid.
+	 */
+	public static @Nullable PipelineConfig build(ResourceLocation identifier, ResourceOpener opener) {
+		final PipelineConfigBuilder builder = load(identifier, opener);
+		return builder == null ? null : new PipelineConfig(builder);
+	}
 }
@@ -0,0 +1,303 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.pipeline.config;
+
+import java.util.function.Predicate;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.Nullable;
+
+import grondag.canvas.pipeline.config.util.NamedDependency;
+
+/**
+ * Compiles the pass lists of a {@link PipelineConfig} into the sequences actually run.
+ *
+ * <p>Each pass writes every image attached to its framebuffer and reads its sampler images.
+ * Images attached to the default framebuffer, draw targets, fabulous targets and the sky shadow
+ * framebuffer are consumed by world rendering or the final composite and are always live.
+ * A pass is kept only if some image it writes is live, and images read by kept passes become
+ * live in turn. Reads are not ordered against writes for liveness because images persist
+ * across frames, so a pass may legitimately read what a later pass wrote in the prior frame.
+ *
+ * <p>Within each sequence, kept passes are then reordered so that consecutive passes share
+ * a framebuffer where possible. Any two passes that touch a common image, other than both
+ * only reading it, keep their original relative order.
+ *
+ * <p>Passes disabled by their toggle option are dropped, so the graph must be recompiled
+ * when option values change. This happens naturally because option changes reload the pipeline.
+ */
+public class RenderGraph {
+	public final PassConfig[] onWorldStart;
+	public final PassConfig[] fabulous;
+	public final PassConfig[] afterRenderHand;
+
+	/** Enabled passes removed because nothing downstream reads their output. */
+	public final PassConfig[] culled;
+
+	private RenderGraph(PassConfig[] onWorldStart, PassConfig[] fabulous, PassConfig[] afterRenderHand, PassConfig[] culled) {
+		this.onWorldStart = onWorldStart;
+		this.fabulous = fabulous;
+		this.afterRenderHand = afterRenderHand;
+		this.culled = culled;
+	}
+
+	public static RenderGraph compile(PipelineConfig config) {
+		return compile(config, PassConfig::isEnabled);
+	}
+
+	/**
+	 * @param isEnabled Decides which passes run. Normally {@link PassConfig#isEnabled()} but
+	 * can be substituted to analyze a pipeline under option values other than the current ones.
+	 */
+	public static RenderGraph compile(PipelineConfig config, Predicate<PassConfig> isEnabled) {
+		final ObjectOpenHashSet<String> liveImages = externalImages(config);
+
+		final Node[] onWorldStart = nodes(config.onWorldStart, isEnabled);
+		// fabulous passes never run unless fabulous targets are configured
+		final Node[] fabulous = nodes(config.fabulosity == null ? new PassConfig[0] : config.fabulous, isEnabled);
+		final Node[] afterRenderHand = nodes(config.afterRenderHand, isEnabled);
+
+		boolean changed = true;
+
+		while (changed) {
+			changed = propagate(onWorldStart, liveImages);
+			changed |= propagate(fabulous, liveImages);
+			changed |= propagate(afterRenderHand, liveImages);
+		}
+
+		final ObjectArrayList<PassConfig> culled = new ObjectArrayList<>();
+		collectCulled(onWorldStart, culled);
+		collectCulled(fabulous, culled);
+		collectCulled(afterRenderHand, culled);
+
+		return new RenderGraph(schedule(onWorldStart), schedule(fabulous), schedule(afterRenderHand), culled.toArray(new PassConfig[culled.size()]));
+	}
+
+	/**
+	 * Images used outside of pipeline passes: by world rendering, the material program,
+	 * the final composite, or mods that look up the default and fabulous framebuffers.
+	 */
+	static ObjectOpenHashSet<String> externalImages(PipelineConfig config) {
+		final ObjectOpenHashSet<String> result = new ObjectOpenHashSet<>();
+
+		addFramebufferImages(result, config.defaultFramebuffer);
+
+		if (config.drawTargets != null) {
+			final DrawTargetsConfig targets = config.drawTargets;
+			addFramebufferImages(result, targets.solidTerrain);
+			addFramebufferImages(result, targets.translucentTerrain);
+			addFramebufferImages(result, targets.translucentEntity);
+			addFramebufferImages(result, targets.weather);
+			addFramebufferImages(result, targets.clouds);
+			addFramebufferImages(result, targets.translucentParticles);
+		}
+
+		if (config.fabulosity != null) {
+			final FabulousConfig fab = config.fabulosity;
+			addFramebufferImages(result, fab.entityFramebuffer);
+			addFramebufferImages(result, fab.particleFramebuffer);
+			addFramebufferImages(result, fab.weatherFramebuffer);
+			addFramebufferImages(result, fab.cloudsFramebuffer);
+			addFramebufferImages(result, fab.translucentFramebuffer);
+		}
+
+		if (config.skyShadow != null) {
+			addFramebufferImages(result, config.skyShadow.framebuffer);
+		}
+
+		for (final NamedDependency<ImageConfig> img : config.materialProgram.samplerImages) {
+			result.add(img.name);
+		}
+
+		return result;
+	}
+
+	private static void addFramebufferImages(ObjectOpenHashSet<String> images, @Nullable NamedDependency<FramebufferConfig> framebuffer) {
+		final FramebufferConfig fb = framebuffer == null ? null : framebuffer.value();
+
+		if (fb != null) {
+			for (final AttachmentConfig a : fb.colorAttachments) {
+				images.add(a.image.name);
+			}
+
+			if (fb.depthAttachment != null) {
+				images.add(fb.depthAttachment.image.name);
+			}
+		}
+	}
+
+	private static Node[] nodes(PassConfig[] passes, Predicate<PassConfig> isEnabled) {
+		final ObjectArrayList<Node> result = new ObjectArrayList<>();
+
+		for (final PassConfig pass : passes) {
+			if (isEnabled.test(pass)) {
+				result.add(new Node(pass));
+			}
+		}
+
+		return result.toArray(new Node[result.size()]);
+	}
+
+	private static boolean propagate(Node[] nodes, ObjectOpenHashSet<String> liveImages) {
+		boolean changed = false;
+
+		for (final Node node : nodes) {
+			if (!node.isLive && node.writesAny(liveImages)) {
+				node.isLive = true;
+				changed = true;
+
+				for (final String img : node.reads) {
+					liveImages.add(img);
+				}
+			}
+		}
+
+		return changed;
+	}
+
+	private static void collectCulled(Node[] nodes, ObjectArrayList<PassConfig> culled) {
+		for (final Node node : nodes) {
+			if (!node.isLive) {
+				culled.add(node.pass);
+			}
+		}
+	}
+
+	/**
+	 * Topological order of live nodes that respects image hazards and, among ready passes,
+	 * prefers one targeting the framebuffer already bound. Ties go to the earliest declared pass.
+	 */
+	private static PassConfig[] schedule(Node[] nodes) {
+		final ObjectArrayList<Node> live = new ObjectArrayList<>();
+
+		for (final Node node : nodes) {
+			if (node.isLive) {
+				live.add(node);
+			}
+		}
+
+		final int count = live.size();
+		final int[] pending = new int[count];
+
+		for (int j = 0; j < count; ++j) {
+			for (int i = 0; i < j; ++i) {
+				if (live.get(i).conflicts(live.get(j))) {
+					++pending[j];
+				}
+			}
+		}
+
+		final PassConfig[] result = new PassConfig[count];
+		final boolean[] done = new boolean[count];
+		String boundFramebuffer = null;
+
+		for (int n = 0; n < count; ++n) {
+			int next = -1;
+
+			for (int i = 0; i < count; ++i) {
+				if (!done[i] && pending[i] == 0) {
+					if (next == -1) {
+						next = i;
+					}
+
+					if (live.get(i).pass.framebuffer.name.equals(boundFramebuffer)) {
+						next = i;
+						break;
+					}
+				}
+			}
+
+			assert next != -1 : "Cycle in pipeline pass graph";
+
+			final Node node = live.get(next);
+			done[next] = true;
+			result[n] = node.pass;
+			boundFramebuffer = node.pass.framebuffer.name;
+
+			for (int j = next + 1; j < count; ++j) {
+				if (node.conflicts(live.get(j))) {
+					--pending[j];
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/** Number of framebuffer binds needed to run the passes in the given order, skipping redundant binds. */
+	public static int framebufferBinds(PassConfig[] passes) {
+		int result = 0;
+		String bound = null;
+
+		for (final PassConfig pass : passes) {
+			if (!pass.framebuffer.name.equals(bound)) {
+				++result;
+				bound = pass.framebuffer.name;
+			}
+		}
+
+		return result;
+	}
+
+	private static class Node {
+		final PassConfig pass;
+		final ObjectOpenHashSet<String> writes = new ObjectOpenHashSet<>();
+		final ObjectOpenHashSet<String> reads = new ObjectOpenHashSet<>();
+		boolean isLive;
+
+		Node(PassConfig pass) {
+			this.pass = pass;
+			addFramebufferImages(writes, pass.framebuffer);
+
+			for (final NamedDependency<ImageConfig> img : pass.samplerImages) {
+				reads.add(img.name);
+			}
+		}
+
+		boolean writesAny(ObjectOpenHashSet<String> images) {
+			for (final String img : writes) {
+				if (images.contains(img)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/** True if the passes must not be reordered: read-after-write, write-after-read or write-after-write. */
+		boolean conflicts(Node other) {
+			for (final String img : writes) {
+				if (other.writes.contains(img) || other.reads.contains(img)) {
+					return true;
+				}
+			}
+
+			for (final String img : reads) {
+				if (other.writes.contains(img)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
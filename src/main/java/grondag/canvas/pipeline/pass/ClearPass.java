@@ -31,7 +31,7 @@ public class ClearPass extends Pass {
 	@Override
 	public void run(int width, int height) {
 		if (fbo != null) {
-			fbo.bind();
+			bindFramebuffer();
 			GFX.viewport(0, 0, width, height);
 			fbo.clear();
 		}
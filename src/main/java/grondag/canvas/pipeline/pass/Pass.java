@@ -27,6 +27,9 @@ import grondag.canvas.pipeline.PipelineFramebuffer;
 import grondag.canvas.pipeline.config.PassConfig;
 
 public abstract class Pass {
+	/** Framebuffer last bound by a pass in the running sequence, or null if unknown. */
+	private static PipelineFramebuffer boundFbo;
+
 	final PassConfig config;
 	PipelineFramebuffer fbo;
 
@@ -40,7 +43,23 @@ public abstract class Pass {
 	}
 
 	public final boolean isEnabled() {
-		return !config.toggleConfig.isValid() || config.toggleConfig.value().value();
+		return config.isEnabled();
+	}
+
+	/**
+	 * Binds this pass's framebuffer unless the previous pass in the sequence already did.
+	 * Passes are ordered by {@link grondag.canvas.pipeline.config.RenderGraph} to make this common.
+	 */
+	final void bindFramebuffer() {
+		if (boundFbo != fbo) {
+			fbo.bind();
+			boundFbo = fbo;
+		}
+	}
+
+	/** Call before running a pass sequence, after anything else may have changed the framebuffer binding. */
+	public static void resetBinding() {
+		boundFbo = null;
 	}
 
 	public abstract void run(int width, int height);
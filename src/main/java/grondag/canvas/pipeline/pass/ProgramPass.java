@@ -31,6 +31,8 @@ import grondag.canvas.varia.GFX;
 
 class ProgramPass extends Pass {
 	final ProgramTextureData textures;
+	/** Attachments sharing a texture with another image, cleared before drawing. */
+	final int clearFlags;
 
 	ProcessShader shader;
 
@@ -39,6 +41,7 @@ class ProgramPass extends Pass {
 
 		shader = Pipeline.getShader(config.program.name);
 		textures = new ProgramTextureData(config.samplerImages);
+		clearFlags = Pipeline.imageAliases().clearFlags(config);
 	}
 
 	@Override
@@ -50,7 +53,7 @@ class ProgramPass extends Pass {
 		width = config.width > 0 ? config.width : width;
 		height = config.height > 0 ? config.height : height;
 
-		fbo.bind();
+		bindFramebuffer();
 
 		final int lod = config.lod;
 
@@ -62,6 +65,10 @@ class ProgramPass extends Pass {
 		final Matrix4f orthoMatrix = Matrix4f.orthographic(width, -height, 1000.0F, 3000.0F);
 		GFX.viewport(0, 0, width, height);
 
+		if (clearFlags != 0) {
+			fbo.clearColorAttachments(clearFlags);
+		}
+
 		final int slimit = textures.texIds.length;
 
 		for (int i = 0; i < slimit; ++i) {
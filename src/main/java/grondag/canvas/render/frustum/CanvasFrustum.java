@@ -20,6 +20,8 @@
 
 package grondag.canvas.render.frustum;
 
+import java.util.Arrays;
+
 import com.mojang.math.Matrix4f;
 
 import net.minecraft.client.renderer.culling.Frustum;
@@ -40,6 +42,23 @@ import io.vram.frex.api.math.FastMatrix4f;
  */
 public abstract class CanvasFrustum extends Frustum {
 	protected static final float MIN_GAP = 0.0001f;
+
+	// Plane flags for hierarchical tests
+	public static final int LEFT_PLANE = 1;
+	public static final int RIGHT_PLANE = 2;
+	public static final int NEAR_PLANE = 4;
+	public static final int TOP_PLANE = 8;
+	public static final int BOTTOM_PLANE = 16;
+	public static final int ALL_PLANES = LEFT_PLANE | RIGHT_PLANE | NEAR_PLANE | TOP_PLANE | BOTTOM_PLANE;
+
+	/** Result of {@link #intersectPlanes(float, float, float, float, float, float, int)} for boxes outside the frustum. */
+	public static final int OUTSIDE = -1;
+
+	/**
+	 * Padding for parent boxes in hierarchical tests, much larger than float error, so that a parent
+	 * is never classified as inside or outside a plane unless every child would be classified the same.
+	 */
+	private static final float HIERARCHY_MARGIN = 0.125f;
 	protected final Matrix4f mvpMatrix = new Matrix4f();
 	protected final FastMatrix4f mvpMatrixExt = (FastMatrix4f) (Object) mvpMatrix;
 	protected final Matrix4f projectionMatrix = new Matrix4f();
@@ -113,6 +132,141 @@ public abstract class CanvasFrustum extends Frustum {
 		return !(cx * bottomX + cy * bottomY + cz * bottomZ + bottomW - (hdx * bottomXe + hdy * bottomYe + hdz * bottomZe) > 0);
 	}
 
+	/**
+	 * Classifies a camera-relative box against the planes in the given mask, for hierarchical
+	 * culling where boxes contained in this one only need to test the planes that remain.
+	 *
+	 * @return {@link #OUTSIDE} if the box is outside any tested plane, otherwise the tested planes the box straddles
+	 */
+	public final int intersectPlanes(float cx, float cy, float cz, float hdx, float hdy, float hdz, int planeMask) {
+		if ((planeMask & LEFT_PLANE) != 0) {
+			final float d = cx * leftX + cy * leftY + cz * leftZ + leftW;
+			final float r = hdx * leftXe + hdy * leftYe + hdz * leftZe + HIERARCHY_MARGIN;
+
+			if (d - r > 0) {
+				return OUTSIDE;
+			} else if (d + r <= 0) {
+				planeMask &= ~LEFT_PLANE;
+			}
+		}
+
+		if ((planeMask & RIGHT_PLANE) != 0) {
+			final float d = cx * rightX + cy * rightY + cz * rightZ + rightW;
+			final float r = hdx * rightXe + hdy * rightYe + hdz * rightZe + HIERARCHY_MARGIN;
+
+			if (d - r > 0) {
+				return OUTSIDE;
+			} else if (d + r <= 0) {
+				planeMask &= ~RIGHT_PLANE;
+			}
+		}
+
+		if ((planeMask & NEAR_PLANE) != 0) {
+			final float d = cx * nearX + cy * nearY + cz * nearZ + nearW;
+			final float r = hdx * nearXe + hdy * nearYe + hdz * nearZe + HIERARCHY_MARGIN;
+
+			if (d - r > 0) {
+				return OUTSIDE;
+			} else if (d + r <= 0) {
+				planeMask &= ~NEAR_PLANE;
+			}
+		}
+
+		if ((planeMask & TOP_PLANE) != 0) {
+			final float d = cx * topX + cy * topY + cz * topZ + topW;
+			final float r = hdx * topXe + hdy * topYe + hdz * topZe + HIERARCHY_MARGIN;
+
+			if (d - r > 0) {
+				return OUTSIDE;
+			} else if (d + r <= 0) {
+				planeMask &= ~TOP_PLANE;
+			}
+		}
+
+		if ((planeMask & BOTTOM_PLANE) != 0) {
+			final float d = cx * bottomX + cy * bottomY + cz * bottomZ + bottomW;
+			final float r = hdx * bottomXe + hdy * bottomYe + hdz * bottomZe + HIERARCHY_MARGIN;
+
+			if (d - r > 0) {
+				return OUTSIDE;
+			} else if (d + r <= 0) {
+				planeMask &= ~BOTTOM_PLANE;
+			}
+		}
+
+		return planeMask;
+	}
+
+	/**
+	 * Tests a 16x16x16 region, given its camera-relative center, against the planes in the given mask.
+	 * Planes not in the mask must be known to contain the region, typically by a test of an enclosing box.
+	 *
+	 * <p>Terms are summed in the same order as {@link #testRegionColumn(float, float, float[], int, int, boolean[], int)}
+	 * so both give identical results.
+	 */
+	public final boolean isRegionVisible(float cx, float cy, float cz, int planeMask) {
+		if ((planeMask & LEFT_PLANE) != 0 && cx * leftX + cz * leftZ + leftRegionExtent + cy * leftY > 0) {
+			return false;
+		}
+
+		if ((planeMask & RIGHT_PLANE) != 0 && cx * rightX + cz * rightZ + rightRegionExtent + cy * rightY > 0) {
+			return false;
+		}
+
+		if ((planeMask & NEAR_PLANE) != 0 && cx * nearX + cz * nearZ + nearRegionExtent + cy * nearY > 0) {
+			return false;
+		}
+
+		if ((planeMask & TOP_PLANE) != 0 && cx * topX + cz * topZ + topRegionExtent + cy * topY > 0) {
+			return false;
+		}
+
+		return (planeMask & BOTTOM_PLANE) == 0 || !(cx * bottomX + cz * bottomZ + bottomRegionExtent + cy * bottomY > 0);
+	}
+
+	/**
+	 * Bulk form of {@link #isRegionVisible(float, float, float, int)} for a vertical column of regions
+	 * that share x and z. Plane terms for x and z are computed once per column, leaving a
+	 * branch-free loop over region rows for each plane in the mask.
+	 *
+	 * @param rowCenterY camera-relative center y of each row
+	 * @param planeMask planes that may intersect the column, or {@link #OUTSIDE}
+	 * @param result receives the visibility of each row, starting at resultIndex
+	 */
+	public final void testRegionColumn(float cx, float cz, float[] rowCenterY, int rowCount, int planeMask, boolean[] result, int resultIndex) {
+		Arrays.fill(result, resultIndex, resultIndex + rowCount, planeMask != OUTSIDE);
+
+		if (planeMask == OUTSIDE || planeMask == 0) {
+			return;
+		}
+
+		if ((planeMask & LEFT_PLANE) != 0) {
+			testRegionRows(cx * leftX + cz * leftZ + leftRegionExtent, leftY, rowCenterY, rowCount, result, resultIndex);
+		}
+
+		if ((planeMask & RIGHT_PLANE) != 0) {
+			testRegionRows(cx * rightX + cz * rightZ + rightRegionExtent, rightY, rowCenterY, rowCount, result, resultIndex);
+		}
+
+		if ((planeMask & NEAR_PLANE) != 0) {
+			testRegionRows(cx * nearX + cz * nearZ + nearRegionExtent, nearY, rowCenterY, rowCount, result, resultIndex);
+		}
+
+		if ((planeMask & TOP_PLANE) != 0) {
+			testRegionRows(cx * topX + cz * topZ + topRegionExtent, topY, rowCenterY, rowCount, result, resultIndex);
+		}
+
+		if ((planeMask & BOTTOM_PLANE) != 0) {
+			testRegionRows(cx * bottomX + cz * bottomZ + bottomRegionExtent, bottomY, rowCenterY, rowCount, result, resultIndex);
+		}
+	}
+
+	private static void testRegionRows(float xzTerm, float planeY, float[] rowCenterY, int rowCount, boolean[] result, int resultIndex) {
+		for (int i = 0; i < rowCount; ++i) {
+			result[resultIndex + i] &= !(xzTerm + rowCenterY[i] * planeY > 0);
+		}
+	}
+
 	protected final void extractPlanes() {
 		final FastMatrix4f matrix = mvpMatrixExt;
 		final float a00 = matrix.f_m00();
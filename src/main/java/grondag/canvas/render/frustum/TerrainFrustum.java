@@ -35,7 +35,6 @@ import io.vram.frex.api.math.FastMatrix4f;
 
 import grondag.canvas.config.Configurator;
 import grondag.canvas.mixinterface.GameRendererExt;
-import grondag.canvas.terrain.region.RegionPosition;
 
 public class TerrainFrustum extends CanvasFrustum {
 	// These are for maintaining a project matrix used by occluder.
@@ -293,32 +292,4 @@ public class TerrainFrustum extends CanvasFrustum {
 		// PERF: WHY 4X ON FAR CLIPPING PLANE MOJANG?
 		occlusionProjMat.multiply(Matrix4f.perspective(fov + padding, client.getWindow().getWidth() / (float) client.getWindow().getHeight(), 0.05F, gr.getRenderDistance() * 4.0F));
 	}
-
-	public final RegionVisibilityTest visibilityTest = p -> {
-		final float cx = p.cameraRelativeCenterX();
-		final float cy = p.cameraRelativeCenterY();
-		final float cz = p.cameraRelativeCenterZ();
-
-		if (cx * leftX + cy * leftY + cz * leftZ + leftRegionExtent > 0) {
-			return false;
-		}
-
-		if (cx * rightX + cy * rightY + cz * rightZ + rightRegionExtent > 0) {
-			return false;
-		}
-
-		if (cx * nearX + cy * nearY + cz * nearZ + nearRegionExtent > 0) {
-			return false;
-		}
-
-		if (cx * topX + cy * topY + cz * topZ + topRegionExtent > 0) {
-			return false;
-		}
-
-		return !(cx * bottomX + cy * bottomY + cz * bottomZ + bottomRegionExtent > 0);
-	};
-
-	public interface RegionVisibilityTest {
-		boolean isVisible(RegionPosition pos);
-	}
 }
@@ -39,38 +39,41 @@ import grondag.canvas.varia.GFX;
 
 public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 	private final TransferSlab transferSlab = new TransferSlab();
-	private int headVertexIndex = 0;
-	private int usedVertexCount;
-	private final int maxVertexCount;
+	private final SlabSpaceAllocator space;
+	/** Last value reported to {@link SlabAllocator} so the aggregate can be adjusted by difference. */
+	private int strandedVertexCount;
 
 	Slab(int capacityBytes) {
 		// NB: STATIC makes a huge positive difference on AMD at least
 		super(capacityBytes, GFX.GL_ARRAY_BUFFER, GFX.GL_STATIC_DRAW);
 		assert RenderSystem.isOnRenderThread();
-		maxVertexCount = (capacityBytes / BYTES_PER_SLAB_VERTEX) & ~3;
+		space = new SlabSpaceAllocator((capacityBytes / BYTES_PER_SLAB_VERTEX) & ~3);
+	}
+
+	SlabSpaceAllocator space() {
+		return space;
 	}
 
 	TransferBuffer asTransferBuffer() {
 		return transferSlab;
 	}
 
-	/** How much vertex capacity is remaining. */
+	/** Largest vertex count that can currently be allocated, which is less than total free space when holes exist. */
 	int availableVertexCount() {
 		assert RenderSystem.isOnRenderThread();
-		assert headVertexIndex <= maxVertexCount;
-		return maxVertexCount - headVertexIndex;
+		return space.largestFree();
 	}
 
 	int usedVertexCount() {
-		return usedVertexCount;
+		return space.usedCount();
 	}
 
 	/**
-	 * Excludes bytes no longer used by their allocation.
+	 * Excludes bytes in holes left by released allocations.
 	 * Thus, may not match {@link #capacityBytes()} - {@link #availableBytes()}.
 	 */
 	int usedBytes() {
-		return usedVertexCount * BYTES_PER_SLAB_VERTEX;
+		return usedVertexCount() * BYTES_PER_SLAB_VERTEX;
 	}
 
 	int availableBytes() {
@@ -83,20 +86,20 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 
 	boolean isEmpty() {
 		assert RenderSystem.isOnRenderThread();
-		return usedVertexCount == 0;
+		return space.isEmpty();
 	}
 
 	void release() {
 		assert RenderSystem.isOnRenderThread();
-		assert usedVertexCount == 0;
-		headVertexIndex = 0;
+		assert space.isEmpty();
 		BufferSynchronizer.accept(this);
 	}
 
 	private void addToVertexCounts(int vertexCount) {
-		usedVertexCount += vertexCount;
-		assert usedVertexCount >= 0;
 		SlabAllocator.addToVertexCount(vertexCount);
+		final int stranded = space.strandedCount();
+		SlabAllocator.addToStrandedVertexCount(stranded - strandedVertexCount);
+		strandedVertexCount = stranded;
 	}
 
 	@Override
@@ -121,30 +124,34 @@ public class Slab extends AbstractGlBuffer implements SynchronizedBuffer {
 			return null;
 		}
 
-		final int newHeadVertexIndex = headVertexIndex + allocatedVertexCount;
-		final var allocation = factory.create(this, headVertexIndex, allocatedVertexCount);
+		final int baseVertexIndex = space.allocate(allocatedVertexCount);
+		// callers check available space first
+		assert baseVertexIndex != SlabSpaceAllocator.NO_SPACE;
+
+		final var allocation = factory.create(this, baseVertexIndex, allocatedVertexCount);
 		addToVertexCounts(allocatedVertexCount);
 
 		GFX.bindBuffer(bindTarget, glBufferId());
 		buffer.transferToBoundBuffer(bindTarget,
-				headVertexIndex * BYTES_PER_SLAB_VERTEX,
+				baseVertexIndex * BYTES_PER_SLAB_VERTEX,
 				sourceStartVertexIndex * BYTES_PER_SLAB_VERTEX,
 				allocatedVertexCount * BYTES_PER_SLAB_VERTEX);
 
-		headVertexIndex = newHeadVertexIndex;
 		return allocation;
 	}
 
 	void removeAllocation(SlabAllocation allocation) {
 		assert RenderSystem.isOnRenderThread();
 		assert !isClosed;
+		space.free(allocation.baseQuadVertexIndex, allocation.quadVertexCount);
 		addToVertexCounts(-allocation.quadVertexCount);
 	}
 
 	@Override
 	protected void onShutdown() {
 		assert RenderSystem.isOnRenderThread();
-		assert usedVertexCount == 0;
+		assert space.isEmpty();
+		assert strandedVertexCount == 0;
 		SlabAllocator.notifyShutdown(this);
 	}
 
@@ -28,11 +28,17 @@ public class SlabAllocator {
 	private static int slabCount = 0;
 	private static long usedBytes = 0;
 	private static long capacityBytes = 0;
+	private static long strandedBytes = 0;
 
 	static void addToVertexCount(int vertexCount) {
 		usedBytes += vertexCount * BYTES_PER_SLAB_VERTEX;
 	}
 
+	/** Tracks free slab space outside the largest hole of each slab. */
+	static void addToStrandedVertexCount(int vertexCount) {
+		strandedBytes += vertexCount * BYTES_PER_SLAB_VERTEX;
+	}
+
 	static void notifyShutdown(Slab slab) {
 		assert slab.usedVertexCount() == 0;
 		--slabCount;
@@ -57,9 +63,10 @@ public class SlabAllocator {
 	}
 
 	public static String debugSummary() {
-		return String.format("%d slabs %dMb occ:%d",
+		return String.format("%d slabs %dMb occ:%d frag:%d",
 				slabCount,
 				capacityBytes / 0x100000L,
-				capacityBytes > 0 ? usedBytes * 100L / capacityBytes : 0);
+				capacityBytes > 0 ? usedBytes * 100L / capacityBytes : 0,
+				capacityBytes > usedBytes ? strandedBytes * 100L / (capacityBytes - usedBytes) : 0);
 	}
 }
@@ -0,0 +1,207 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.cluster;
+
+import java.util.Arrays;
+
+/**
+ * Tracks free vertex ranges within a slab so space released by closed regions
+ * can be reused without copying the slab. Free ranges are kept in address order
+ * and adjacent ranges are merged on release. Allocation is best fit, with ties
+ * going to the lowest address, which keeps large ranges intact for big regions.
+ *
+ * <p>Has no GL dependencies so that allocation policy can be exercised directly.
+ */
+final class SlabSpaceAllocator {
+	static final int NO_SPACE = -1;
+
+	private final int capacity;
+	private int[] starts = new int[16];
+	private int[] lengths = new int[16];
+	private int blockCount;
+	private int freeCount;
+	private int freeVersion;
+
+	SlabSpaceAllocator(int capacity) {
+		assert capacity >= 0;
+		this.capacity = capacity;
+		freeCount = capacity;
+
+		if (capacity > 0) {
+			starts[0] = 0;
+			lengths[0] = capacity;
+			blockCount = 1;
+		}
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	/** Total free units, contiguous or not. */
+	int freeCount() {
+		return freeCount;
+	}
+
+	int usedCount() {
+		return capacity - freeCount;
+	}
+
+	/** Number of separate free ranges. */
+	int freeBlockCount() {
+		return blockCount;
+	}
+
+	/** Size of the largest allocation that would currently succeed. */
+	int largestFree() {
+		int result = 0;
+
+		for (int i = 0; i < blockCount; ++i) {
+			result = Math.max(result, lengths[i]);
+		}
+
+		return result;
+	}
+
+	/** Free units outside the largest free range - space that can only serve smaller requests. */
+	int strandedCount() {
+		return freeCount - largestFree();
+	}
+
+	/**
+	 * Fraction of free space not usable by a single allocation, from 0 (all free space
+	 * is contiguous) to nearly 1 (free space is scattered in tiny ranges).
+	 */
+	float fragmentation() {
+		return freeCount == 0 ? 0f : 1f - (float) largestFree() / freeCount;
+	}
+
+	boolean isEmpty() {
+		return freeCount == capacity;
+	}
+
+	/** Changes whenever a range is freed. Ranges seen under an older version may since have been reused. */
+	int freeVersion() {
+		return freeVersion;
+	}
+
+	/** Returns the start of the allocated range, or {@link #NO_SPACE} if no free range is large enough. */
+	int allocate(int size) {
+		assert size > 0;
+
+		int best = -1;
+		int bestLength = Integer.MAX_VALUE;
+
+		for (int i = 0; i < blockCount; ++i) {
+			final int len = lengths[i];
+
+			if (len >= size && len < bestLength) {
+				best = i;
+				bestLength = len;
+
+				if (len == size) {
+					break;
+				}
+			}
+		}
+
+		if (best == -1) {
+			return NO_SPACE;
+		}
+
+		final int result = starts[best];
+
+		if (bestLength == size) {
+			removeBlock(best);
+		} else {
+			starts[best] += size;
+			lengths[best] -= size;
+		}
+
+		freeCount -= size;
+		return result;
+	}
+
+	/** Releases a range previously returned by {@link #allocate(int)} with the same size. */
+	void free(int start, int size) {
+		assert size > 0;
+		assert start >= 0 && start + size <= capacity;
+
+		// index of first free range after the released one
+		int lo = 0;
+		int hi = blockCount;
+
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+
+			if (starts[mid] < start) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		final int next = lo;
+		final int end = start + size;
+		assert next == 0 || starts[next - 1] + lengths[next - 1] <= start : "Released range overlaps free space";
+		assert next == blockCount || end <= starts[next] : "Released range overlaps free space";
+
+		final boolean joinPrior = next > 0 && starts[next - 1] + lengths[next - 1] == start;
+		final boolean joinNext = next < blockCount && end == starts[next];
+
+		if (joinPrior && joinNext) {
+			lengths[next - 1] += size + lengths[next];
+			removeBlock(next);
+		} else if (joinPrior) {
+			lengths[next - 1] += size;
+		} else if (joinNext) {
+			starts[next] = start;
+			lengths[next] += size;
+		} else {
+			insertBlock(next, start, size);
+		}
+
+		freeCount += size;
+		++freeVersion;
+	}
+
+	private void removeBlock(int index) {
+		final int tail = blockCount - index - 1;
+		System.arraycopy(starts, index + 1, starts, index, tail);
+		System.arraycopy(lengths, index + 1, lengths, index, tail);
+		--blockCount;
+	}
+
+	private void insertBlock(int index, int start, int length) {
+		if (blockCount == starts.length) {
+			final int newSize = blockCount * 2;
+			starts = Arrays.copyOf(starts, newSize);
+			lengths = Arrays.copyOf(lengths, newSize);
+		}
+
+		final int tail = blockCount - index;
+		System.arraycopy(starts, index, starts, index + 1, tail);
+		System.arraycopy(lengths, index, lengths, index + 1, tail);
+		starts[index] = start;
+		lengths[index] = length;
+		++blockCount;
+	}
+}
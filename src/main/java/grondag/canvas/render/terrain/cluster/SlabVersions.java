@@ -0,0 +1,59 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.cluster;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+/**
+ * Remembers the slabs a draw list was built from and the space version of each.
+ * Slab space freed by a closed or moved region can be reused by another region,
+ * and a released slab is eventually deleted. Either way, draw specs built earlier
+ * would point at the wrong vertices, so the list must be rebuilt before drawing.
+ *
+ * <p>Has no GL dependencies so that it can be exercised directly.
+ */
+public final class SlabVersions {
+	private final ObjectArrayList<SlabSpaceAllocator> spaces = new ObjectArrayList<>();
+	private final IntArrayList versions = new IntArrayList();
+
+	public void add(Slab slab) {
+		add(slab.space());
+	}
+
+	void add(SlabSpaceAllocator space) {
+		spaces.add(space);
+		versions.add(space.freeVersion());
+	}
+
+	/** True if space was freed in any recorded slab since it was added. */
+	public boolean isStale() {
+		final int limit = spaces.size();
+
+		for (int i = 0; i < limit; ++i) {
+			if (spaces.get(i).freeVersion() != versions.getInt(i)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -23,19 +23,24 @@ package grondag.canvas.render.terrain.cluster;
 import java.util.IdentityHashMap;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import org.jetbrains.annotations.Nullable;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 
+import grondag.canvas.perf.ClusterCompactionCounters;
 import grondag.canvas.render.terrain.cluster.ClusterTaskManager.ClusterTask;
 import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation.SlabAllocation;
-import grondag.canvas.render.terrain.drawlist.ClusterDrawList;
 import grondag.canvas.render.terrain.drawlist.SlabIndex;
 import grondag.canvas.render.terrain.drawlist.TerrainVAO;
 
 public class VertexCluster implements ClusterTask {
-	private final ReferenceOpenHashSet<ClusterDrawList> holdingLists = new ReferenceOpenHashSet<>();
+	/**
+	 * Upper bound on region allocations moved by a single compaction step. Keeps the
+	 * copy work done between deadline checks small enough that a dense cluster can't
+	 * blow through the frame budget. Unfinished compaction resumes on a later step.
+	 */
+	private static final int MAX_REGIONS_PER_COMPACTION_STEP = 8;
+
 	public final VertexClusterRealm realm;
 	private final IdentityHashMap<ClusteredDrawableStorage, RegionAllocation> allocatedRegions = new IdentityHashMap<>();
 
@@ -47,6 +52,8 @@ public class VertexCluster implements ClusterTask {
 	private @Nullable Slab hungrySlab = null;
 	private boolean isScheduled = false;
 	private boolean itMe = false;
+	/** Slab receiving all allocations while compaction is in progress. Null when not compacting. */
+	private @Nullable Slab compactionTarget = null;
 
 	public VertexCluster(VertexClusterRealm owner, long clusterPos) {
 		realm = owner;
@@ -72,6 +79,7 @@ public class VertexCluster implements ClusterTask {
 
 		if (!isClosed) {
 			isClosed = true;
+			compactionTarget = null;
 
 			activeBytes = 0;
 
@@ -131,62 +139,126 @@ public class VertexCluster implements ClusterTask {
 
 	@Override
 	public boolean run(long deadlineNanos) {
-		if (isScheduled) {
+		if (!isScheduled) {
+			return true;
+		}
+
+		if (isClosed) {
+			isScheduled = false;
+			return true;
+		}
+
+		final boolean isComplete = compactStep(deadlineNanos);
+
+		if (isComplete) {
 			isScheduled = false;
-			compact();
 		}
 
-		return true;
+		return isComplete;
 	}
 
-	private void compact() {
+	/**
+	 * Moves up to {@link #MAX_REGIONS_PER_COMPACTION_STEP} region allocations into the
+	 * compaction target, stopping early once the deadline passes. At least one region
+	 * is moved per step so compaction always makes progress.
+	 *
+	 * <p>Regions may be added or closed between steps. Releasing a moved allocation frees
+	 * its slab space, so draw lists that used it rebuild from whichever slab each region
+	 * currently occupies. See {@link SlabVersions}.
+	 *
+	 * @return true when compaction is finished or not needed
+	 */
+	private boolean compactStep(long deadlineNanos) {
 		if (slabs.size() < 2) {
 			// nothing to do
-			return;
+			compactionTarget = null;
+			return true;
 		}
 
-		// NB: hungry slab can't be null here because we have at least two slabs. But
-		// it may not be big enough. Ensure hungry slab can hold everything, including own contents
-		assert hungrySlab.usedBytes() >= 0;
-		assert hungrySlab.usedBytes() <= hungrySlab.capacityBytes();
-
-		if (hungrySlab.availableBytes() < activeBytes - hungrySlab.usedBytes()) {
-			hungrySlab = SlabAllocator.claim(activeBytes);
-			slabs.add(hungrySlab);
+		if (ClusterCompactionCounters.ENABLED) {
+			ClusterCompactionCounters.startStep();
 		}
 
-		final Slab hungrySlab = this.hungrySlab;
+		final Slab target = prepareCompactionTarget();
+		int movedRegions = 0;
+		int movedBytes = 0;
+		boolean isComplete = true;
 
 		for (final var region : allocatedRegions.values()) {
 			final var oldAllocation = region.getAllocation();
 
-			if (oldAllocation.slab != hungrySlab) {
-				final var newAllocation = hungrySlab.transferFromSlabAllocation(region.factory, oldAllocation);
-				region.setAllocation(newAllocation);
-				oldAllocation.release();
+			if (oldAllocation == null || oldAllocation.slab == target) {
+				continue;
 			}
-		}
 
-		assert slabs.size() == 1;
-		assert slabs.get(0) == hungrySlab;
+			if (movedRegions == MAX_REGIONS_PER_COMPACTION_STEP || (movedRegions > 0 && System.nanoTime() >= deadlineNanos)) {
+				isComplete = false;
+				break;
+			}
 
-		if (!holdingLists.isEmpty()) {
-			for (final var list : holdingLists) {
-				list.invalidate();
+			if (target.availableVertexCount() < oldAllocation.quadVertexCount) {
+				// Target filled up or fragmented with regions added since compaction started.
+				// Pick a new target on the next step.
+				compactionTarget = null;
+				isComplete = false;
+				break;
 			}
+
+			final var newAllocation = target.transferFromSlabAllocation(region.factory, oldAllocation);
+			region.setAllocation(newAllocation);
+			oldAllocation.release();
+			++movedRegions;
+			movedBytes += region.region.byteCount;
+		}
+
+		if (isComplete) {
+			releaseEmptySlabs();
+			compactionTarget = null;
+			assert slabs.size() == 1;
+			assert slabs.get(0) == target;
 		}
+
+		if (ClusterCompactionCounters.ENABLED) {
+			ClusterCompactionCounters.completeStep(movedRegions, movedBytes, isComplete);
+		}
+
+		return isComplete;
 	}
 
-	void addListListener(ClusterDrawList listener) {
-		assert !holdingLists.contains(listener);
-		assert !isClosed;
-		holdingLists.add(listener);
+	/**
+	 * Returns the slab that will receive every allocation, claiming a new one if
+	 * needed. The target remains the hungry slab so regions uploaded during compaction
+	 * land there and don't need to be moved again.
+	 */
+	private Slab prepareCompactionTarget() {
+		if (compactionTarget != null && compactionTarget == hungrySlab) {
+			return compactionTarget;
+		}
+
+		// NB: hungry slab can't be null here because we have at least two slabs. But
+		// it may not be big enough. Ensure hungry slab can hold everything, including own contents
+		assert hungrySlab.usedBytes() >= 0;
+		assert hungrySlab.usedBytes() <= hungrySlab.capacityBytes();
+
+		if (hungrySlab.availableBytes() < activeBytes - hungrySlab.usedBytes()) {
+			hungrySlab = SlabAllocator.claim(activeBytes);
+			slabs.add(hungrySlab);
+		}
+
+		compactionTarget = hungrySlab;
+		return hungrySlab;
 	}
 
-	void removeListListener(ClusterDrawList listener) {
-		assert holdingLists.contains(listener);
-		assert !isClosed;
-		holdingLists.remove(listener);
+	/** Catches a slab that was already empty when it stopped being the hungry slab. */
+	private void releaseEmptySlabs() {
+		for (int i = slabs.size() - 1; i >= 0; --i) {
+			final var slab = slabs.get(i);
+
+			if (slab != hungrySlab && slab.isEmpty()) {
+				slabs.remove(i);
+				slab.release();
+			}
+		}
 	}
 
 	public class RegionAllocation {
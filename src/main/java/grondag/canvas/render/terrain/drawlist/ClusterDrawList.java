@@ -27,6 +27,7 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import grondag.canvas.config.Configurator;
 import grondag.canvas.render.terrain.cluster.ClusteredDrawableStorage;
 import grondag.canvas.render.terrain.cluster.Slab;
+import grondag.canvas.render.terrain.cluster.SlabVersions;
 import grondag.canvas.render.terrain.cluster.VertexCluster;
 import grondag.canvas.render.terrain.cluster.VertexCluster.RegionAllocation.SlabAllocation;
 import grondag.canvas.varia.GFX;
@@ -36,6 +37,7 @@ public class ClusterDrawList {
 	final VertexCluster cluster;
 	final RealmDrawList owner;
 	private final ObjectArrayList<DrawSpec> drawSpecs = new ObjectArrayList<>();
+	private final SlabVersions slabVersions = new SlabVersions();
 	private int quadCount;
 
 	ClusterDrawList(VertexCluster cluster, RealmDrawList owner) {
@@ -71,6 +73,7 @@ public class ClusterDrawList {
 				// and also clears the list when done.
 				quadCount += DrawSpecBuilder.build(specAllocations, drawSpecs, false, false);
 				lastSlab = alloc.slab;
+				slabVersions.add(lastSlab);
 			}
 
 			specAllocations.add(alloc);
@@ -93,6 +96,7 @@ public class ClusterDrawList {
 			if (list == null) {
 				list = new ObjectArrayList<>();
 				map.put(alloc.slab, list);
+				slabVersions.add(alloc.slab);
 			}
 
 			list.add(alloc);
@@ -122,8 +126,9 @@ public class ClusterDrawList {
 		regions.add(region);
 	}
 
-	public void invalidate() {
-		owner.invalidate();
+	/** True if slab space used by this list may have been freed and reused since it was built. */
+	public boolean isStale() {
+		return slabVersions.isStale();
 	}
 
 	public void release() {
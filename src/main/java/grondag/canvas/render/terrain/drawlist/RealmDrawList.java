@@ -37,8 +37,6 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 	final boolean isShadowMap;
 	private int quadCount;
 
-	boolean isInvalid = false;
-
 	private RealmDrawList(final ObjectArrayList<DrawableRegion> regions, RenderState renderState, boolean isShadowMap) {
 		super(regions, renderState);
 		this.isShadowMap = isShadowMap;
@@ -57,6 +55,11 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 		for (int regionIndex = 0; regionIndex < limit; ++regionIndex) {
 			final ClusteredDrawableStorage storage = ((ClusteredDrawableRegion) regions.get(regionIndex)).storage();
 
+			// Closed since the list was created and has no vertices left to draw
+			if (storage.isClosed()) {
+				continue;
+			}
+
 			ClusterDrawList clusterList = map.get(storage.clusterPos);
 
 			if (clusterList == null) {
@@ -76,14 +79,17 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 		});
 	}
 
-	private void rebuildIfInvalid() {
-		if (isInvalid) {
-			// Rarely happens because slab reallocation typically happen
-			// in response to player movement, which will naturally force
-			// a new draw list to be created.
-			isInvalid = false;
-			closeInner();
-			build();
+	private void rebuildIfStale() {
+		final int limit = clusterLists.size();
+
+		for (int i = 0; i < limit; ++i) {
+			if (clusterLists.get(i).isStale()) {
+				// Only lists drawn again after a region in them closes or moves get here.
+				// Visibility changes usually replace the list first.
+				closeInner();
+				build();
+				return;
+			}
 		}
 	}
 
@@ -93,7 +99,7 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 
 	@Override
 	public void draw(WorldRenderState worldRenderState) {
-		rebuildIfInvalid();
+		rebuildIfStale();
 		final var sectorManager = worldRenderState.sectorManager;
 		renderState.enable(sectorManager.originBlockX(), 0, sectorManager.originBlockZ());
 		final int limit = clusterLists.size();
@@ -113,8 +119,4 @@ public class RealmDrawList extends AbstractDrawableRegionList {
 		clusterLists.forEach(ClusterDrawList::release);
 		clusterLists.clear();
 	}
-
-	void invalidate() {
-		isInvalid = true;
-	}
 }
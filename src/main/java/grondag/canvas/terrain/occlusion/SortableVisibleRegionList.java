@@ -21,89 +21,146 @@
 package grondag.canvas.terrain.occlusion;
 
 import net.minecraft.client.Minecraft;
-import net.minecraft.core.BlockPos;
 import net.minecraft.world.phys.Vec3;
 
+import grondag.canvas.config.Configurator;
+import grondag.canvas.perf.TranslucentSortCounters;
+import grondag.canvas.terrain.region.RegionBuildState;
+import grondag.canvas.terrain.region.RegionPosition;
+import grondag.canvas.terrain.region.RenderRegion;
+
 public final class SortableVisibleRegionList extends VisibleRegionList {
-	private int sortPositionVersion;
-	private int lastSortPositionVersion;
-	private long lastCameraBlockPos = Long.MAX_VALUE;
-	private Vec3 lastSortPos = new Vec3(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+	/** Limits buffer uploads per frame. Resorts are fast and happen off thread. */
+	private static final int MAX_RESORTS_PER_FRAME = 16;
+
+	/**
+	 * Camera movement in blocks since the last check that forces another check. At the
+	 * minimum sort distance this is half the resort angle, so regions that were current
+	 * at the last check can't go far past the resort angle before they are checked again.
+	 */
+	private static final double RECHECK_DISTANCE = TranslucentSortScheduler.MIN_SORT_ANGLE * TranslucentSortScheduler.MIN_SORT_DISTANCE * 0.5;
+	private static final double RECHECK_DISTANCE_SQ = RECHECK_DISTANCE * RECHECK_DISTANCE;
+
+	private final TranslucentSortScheduler scheduler = new TranslucentSortScheduler();
+
+	private double lastCheckX, lastCheckY, lastCheckZ;
+
+	/** True if regions changed or some were passed over since the last check. */
+	private boolean needsCheck = true;
 
 	@Override
 	public void clear() {
 		super.clear();
-		lastSortPos = new Vec3(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
-		lastCameraBlockPos = Long.MAX_VALUE;
+		needsCheck = true;
 	}
 
-	/**
-	 * Incremented when player moves enough to trigger translucency resort.
-	 */
-	public int sortPositionVersion() {
-		return sortPositionVersion;
-	}
-
-	public Vec3 lastSortPos() {
-		return lastSortPos;
+	@Override
+	public void copyFrom(VisibleRegionList source) {
+		super.copyFrom(source);
+		needsCheck = true;
 	}
 
 	/**
-	 * Checks build regions for translucent resort need and schedules
-	 * up to 16 of them per pass. Nearer regions are checked first and
-	 * the sort position version isn't updated until all regions are handled.
+	 * Checks visible regions for translucent resort need and schedules the most
+	 * valuable resorts that fit within {@link Configurator#translucentSortBudget}.
+	 * See {@link TranslucentSortScheduler} for how regions are ranked.
+	 *
+	 * <p>Regions that are non-translucent or already scheduled aren't considered.
+	 * Regions that need a resort but are passed over are considered again next frame
+	 * with a higher priority.
 	 *
-	 * <p>Regions that are non-translucent, already scheduled or already current
-	 * won't count against the limit.  Resorts are fast and happen off thread -
-	 * checking incrementally avoids overloading the GPU with buffer uploads.
+	 * <p>Regions aren't checked at all when none were passed over, the list hasn't
+	 * changed and the camera has moved less than {@link #RECHECK_DISTANCE} since the
+	 * last check.
 	 */
 	public void scheduleResort(Vec3 cameraPos) {
 		final double x = cameraPos.x;
 		final double y = cameraPos.y;
 		final double z = cameraPos.z;
 
-		final long cameraBlockPos = BlockPos.asLong((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
-		boolean movedEnoughToInvalidateSort = false;
-
-		if (cameraBlockPos != lastCameraBlockPos) {
-			lastCameraBlockPos = cameraBlockPos;
-			movedEnoughToInvalidateSort = true;
-		} else {
-			// can move 1.0 or more diagonally within same block pos
-			final double sdx = x - lastSortPos.x;
-			final double sdy = y - lastSortPos.y;
-			final double sdz = z - lastSortPos.z;
-			movedEnoughToInvalidateSort = sdx * sdx + sdy * sdy + sdz * sdz >= 1.0D;
+		if (!needsCheck) {
+			final double dx = x - lastCheckX;
+			final double dy = y - lastCheckY;
+			final double dz = z - lastCheckZ;
+
+			if (dx * dx + dy * dy + dz * dz < RECHECK_DISTANCE_SQ) {
+				if (TranslucentSortCounters.ENABLED) {
+					TranslucentSortCounters.skipFrame();
+				}
+
+				return;
+			}
 		}
 
-		if (movedEnoughToInvalidateSort) {
-			++sortPositionVersion;
-			lastSortPos = cameraPos;
+		final Minecraft mc = Minecraft.getInstance();
+		mc.getProfiler().push("translucent_sort");
+
+		lastCheckX = x;
+		lastCheckY = y;
+		lastCheckZ = z;
+		final TranslucentSortScheduler scheduler = this.scheduler;
+		final RenderRegion[] visibleRegions = this.visibleRegions;
+		final int limit = visibleRegionCount;
+		scheduler.clear();
+
+		for (int i = 0; i < limit; i++) {
+			final RenderRegion region = visibleRegions[i];
+
+			if (!region.canScheduleSort()) {
+				continue;
+			}
+
+			final RegionBuildState buildState = region.getBuildState();
+			final RegionPosition origin = region.origin;
+			float angle = TranslucentSortScheduler.sortAngle(
+					(float) (origin.getX() + 8 - x), (float) (origin.getY() + 8 - y), (float) (origin.getZ() + 8 - z),
+					(float) (x - buildState.sortX()), (float) (y - buildState.sortY()), (float) (z - buildState.sortZ()));
+
+			// Never sorted with a known position
+			if (Float.isNaN(angle)) {
+				angle = Float.MAX_VALUE;
+			}
+
+			if (TranslucentSortCounters.ENABLED) {
+				TranslucentSortCounters.addRegion(angle == Float.MAX_VALUE ? 0 : angle);
+			}
+
+			if (angle < TranslucentSortScheduler.MIN_SORT_ANGLE) {
+				origin.setSortWaitFrames(0);
+			} else {
+				scheduler.add(i, angle, TranslucentSortScheduler.distanceTier(origin.squaredCameraChunkDistance()), buildState.translucentQuadCount(), origin.sortWaitFrames());
+			}
 		}
 
-		final int positionVersion = sortPositionVersion;
+		final int candidateCount = scheduler.candidateCount();
+		int maxWaitFrames = 0;
+
+		if (candidateCount > 0) {
+			scheduler.select(Configurator.translucentSortBudget, MAX_RESORTS_PER_FRAME);
 
-		if (positionVersion != lastSortPositionVersion) {
-			final Minecraft mc = Minecraft.getInstance();
-			mc.getProfiler().push("translucent_sort");
-			final int limit = visibleRegionCount;
-			int count = 0;
-			int i;
+			for (int c = 0; c < candidateCount; ++c) {
+				final RenderRegion region = visibleRegions[scheduler.regionIndex(c)];
 
-			// PERF: probably a way to sort more distant regions less frequently
-			for (i = 0; i < limit; i++) {
-				if (visibleRegions[i].scheduleSort(positionVersion)) {
-					if (++count > 16) {
-						break;
+				if (scheduler.isSelected(c)) {
+					region.origin.setSortWaitFrames(0);
+
+					if (region.scheduleSort() && TranslucentSortCounters.ENABLED) {
+						TranslucentSortCounters.addResort(scheduler.tier(c), scheduler.quadCount(c));
 					}
+				} else {
+					final int waitFrames = region.origin.sortWaitFrames() + 1;
+					region.origin.setSortWaitFrames(waitFrames);
+					maxWaitFrames = Math.max(maxWaitFrames, waitFrames);
 				}
 			}
+		}
 
-			if (i == limit) {
-				lastSortPositionVersion = positionVersion;
-			}
+		needsCheck = maxWaitFrames > 0;
 
-			mc.getProfiler().pop();
+		if (TranslucentSortCounters.ENABLED) {
+			TranslucentSortCounters.completeFrame(candidateCount, maxWaitFrames);
 		}
+
+		mc.getProfiler().pop();
 	}
 }
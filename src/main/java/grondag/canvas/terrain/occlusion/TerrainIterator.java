@@ -38,10 +38,14 @@ import grondag.bitraster.PackedBox;
 import grondag.canvas.CanvasMod;
 import grondag.canvas.apiimpl.rendercontext.CanvasTerrainRenderContext;
 import grondag.canvas.config.Configurator;
+import grondag.canvas.perf.OccluderBudgetCounters;
+import grondag.canvas.perf.SealedRegionCounters;
+import grondag.canvas.perf.ShadowIterationCounters;
 import grondag.canvas.pipeline.Pipeline;
 import grondag.canvas.render.frustum.TerrainFrustum;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.shader.data.ShadowMatrixData;
+import grondag.canvas.terrain.occlusion.base.AbstractVisbility;
 import grondag.canvas.terrain.occlusion.camera.CameraRegionVisibility;
 import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
 import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
@@ -160,8 +164,12 @@ public class TerrainIterator implements TerrainExecutorTask {
 					final RegionBuildState buildState = r.getBuildState();
 
 					if (buildState.canOcclude()) {
-						shadowVisibility.targetOccluder.prepareRegion(r.origin);
-						shadowVisibility.targetOccluder.occludeBox(buildState.getOcclusionResult().occlusionData()[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX]);
+						final int bounds = buildState.getOcclusionResult().occlusionData()[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX];
+
+						if (bounds != PackedBox.EMPTY_BOX) {
+							shadowVisibility.targetOccluder.prepareRegion(r.origin);
+							shadowVisibility.targetOccluder.occludeBox(bounds);
+						}
 					}
 				}
 			}
@@ -216,8 +224,9 @@ public class TerrainIterator implements TerrainExecutorTask {
 		state.set(RUNNING);
 
 		try {
-			worldRenderState.renderRegionStorage.updateRegionPositionAndVisibility();
+			// Region face flags depend on culling helper state
 			worldRenderState.drawListCullingHlper.update();
+			worldRenderState.renderRegionStorage.updateRegionPositionAndVisibility();
 
 			if (resetCameraOccluder) {
 				visibleRegions.clear();
@@ -232,13 +241,30 @@ public class TerrainIterator implements TerrainExecutorTask {
 				iterateTerrainSimply();
 			}
 
+			if (OccluderBudgetCounters.ENABLED) {
+				cameraVisibility.completeSkippedBoxes();
+				OccluderBudgetCounters.completeIteration(resetCameraOccluder);
+			}
+
+			if (SealedRegionCounters.ENABLED) {
+				SealedRegionCounters.completeIteration(resetCameraOccluder, visibleRegions.size());
+			}
+
 			if (worldRenderState.shadowsEnabled()) {
 				if (resetShadowOccluder) {
 					clearShadowRegions();
 					shadowPrimer.primeShadowRegions();
 				}
 
+				if (ShadowIterationCounters.ENABLED) {
+					ShadowIterationCounters.startIteration();
+				}
+
 				iterateShadows();
+
+				if (ShadowIterationCounters.ENABLED) {
+					ShadowIterationCounters.completeIteration(resetShadowOccluder);
+				}
 			}
 
 			if (cancelled) {
@@ -297,6 +323,13 @@ public class TerrainIterator implements TerrainExecutorTask {
 		}
 	}
 
+	/**
+	 * Runs on one thread by design. Each occlusion test depends on the boxes already drawn
+	 * for nearer regions, so tests can't be split across threads without changing results.
+	 * The per-region inputs that don't depend on order - build state, rebuild need and prior
+	 * status - are a few field reads, and frustum tests already happen when region positions
+	 * are updated, so classifying them concurrently would cost more in hand-off than it saves.
+	 */
 	private void iterateTerrain() {
 		final boolean chunkCullingEnabled = this.chunkCullingEnabled;
 		final boolean flawless = FlawlessFrames.isActive();
@@ -378,7 +411,7 @@ public class TerrainIterator implements TerrainExecutorTask {
 				cameraVisibility.prepareRegion(region.origin);
 				final int[] occlusionData = buildState.getOcclusionResult().occlusionData();
 
-				if (cameraVisibility.isBoxVisible(occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX], region.origin.fuzz())) {
+				if (isRenderableVisible(cameraVisibility, occlusionData, region.origin.fuzz())) {
 					// Renderable portion is visible
 					// Continue search, mark visible, add to render list and draw to occluder
 					region.neighbors.enqueueUnvistedCameraNeighbors();
@@ -388,12 +421,20 @@ public class TerrainIterator implements TerrainExecutorTask {
 				} else {
 					if (cameraVisibility.isBoxVisible(PackedBox.FULL_BOX, region.origin.fuzz())) {
 						// need to progress through the region if part of it is visible
-						// Like renderable, but we don't need to draw or add to render list
+						// Like renderable, but we don't need to add to render list
 						region.neighbors.enqueueUnvistedCameraNeighbors();
 						state.setOcclusionStatus(OcclusionStatus.ENTITIES_VISIBLE);
+
+						if (occludeIfSealed(cameraVisibility, occlusionData) && SealedRegionCounters.ENABLED) {
+							SealedRegionCounters.addCulledRegion();
+						}
 					} else {
 						// no portion is visible
 						state.setOcclusionStatus(OcclusionStatus.REGION_NOT_VISIBLE);
+
+						if (OccluderBudgetCounters.ENABLED) {
+							OccluderBudgetCounters.addHiddenRegion();
+						}
 					}
 				}
 			}
@@ -648,7 +689,7 @@ public class TerrainIterator implements TerrainExecutorTask {
 			shadowVisibility.prepareRegion(region.origin);
 			final int[] occlusionData = buildState.getOcclusionResult().occlusionData();
 
-			if (shadowVisibility.isBoxVisible(occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX], 0)) {
+			if (isRenderableVisible(shadowVisibility, occlusionData, 0)) {
 				region.neighbors.enqueueUnvistedShadowNeighbors();
 				addShadowRegion(region);
 				state.setOcclusionStatus(OcclusionStatus.REGION_VISIBLE);
@@ -657,6 +698,7 @@ public class TerrainIterator implements TerrainExecutorTask {
 				if (shadowVisibility.isBoxVisible(PackedBox.FULL_BOX, 0)) {
 					region.neighbors.enqueueUnvistedShadowNeighbors();
 					state.setOcclusionStatus(OcclusionStatus.ENTITIES_VISIBLE);
+					occludeIfSealed(shadowVisibility, occlusionData);
 				} else {
 					state.setOcclusionStatus(OcclusionStatus.REGION_NOT_VISIBLE);
 				}
@@ -664,6 +706,29 @@ public class TerrainIterator implements TerrainExecutorTask {
 		}
 	}
 
+	/**
+	 * Tests renderable bounds, which are empty for sealed regions with every surface covered.
+	 */
+	private static boolean isRenderableVisible(AbstractVisbility<?, ?, ?, ?> visibility, int[] occlusionData, int fuzz) {
+		final int bounds = occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX];
+		return bounds != PackedBox.EMPTY_BOX && visibility.isBoxVisible(bounds, fuzz);
+	}
+
+	/**
+	 * Sealed regions fill their full volume, so they are drawn to the occluder when any part of them
+	 * is visible even if their renderable surfaces are not. Regions behind them stay hidden.
+	 *
+	 * @return true if the region was sealed and drawn
+	 */
+	private static boolean occludeIfSealed(AbstractVisbility<?, ?, ?, ?> visibility, int[] occlusionData) {
+		if (RegionOcclusionCalculator.isSealed(occlusionData)) {
+			visibility.occlude(occlusionData);
+			return true;
+		} else {
+			return false;
+		}
+	}
+
 	private void clearShadowRegions() {
 		shadowVisibleRegions[0].clear();
 		shadowVisibleRegions[1].clear();
@@ -0,0 +1,182 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Picks which translucent regions to resort each frame.
+ *
+ * <p>Quad order in a region goes stale as the camera moves. The error is roughly the angle
+ * the camera has moved through as seen from the region, so distant regions need resorts
+ * much less often than near ones. Candidates are ranked by that angle, weighted toward near
+ * distance tiers and divided by quad count, then taken greedily until the quad budget for
+ * the frame is spent. Candidates passed over accumulate wait frames that raise their score,
+ * and any that wait {@link #MAX_WAIT_FRAMES} are taken ahead of everything else.
+ */
+final class TranslucentSortScheduler {
+	/** Camera movement as seen from a region, in radians, below which no resort is needed. */
+	static final float MIN_SORT_ANGLE = 0.05f;
+
+	/**
+	 * Regions nearer than this are treated as this far away when computing the sort angle.
+	 * The camera can be inside a region, and the old fixed threshold was one block of movement.
+	 */
+	static final float MIN_SORT_DISTANCE = 16f;
+
+	static final int TIER_COUNT = 4;
+	static final int MAX_WAIT_FRAMES = 40;
+
+	/** Floor for quad cost so near-empty regions don't crowd out everything else. */
+	private static final int MIN_QUAD_COST = 64;
+	private static final float[] TIER_WEIGHT = {8f, 4f, 2f, 1f};
+
+	private int[] regionIndex = new int[256];
+	private int[] tier = new int[256];
+	private int[] quadCount = new int[256];
+	private float[] score = new float[256];
+	private boolean[] isSelected = new boolean[256];
+	private int[] order = new int[256];
+	private int candidateCount;
+
+	void clear() {
+		candidateCount = 0;
+	}
+
+	/**
+	 * @param regionIndex index of the region in the caller's list
+	 * @param angle sort angle from {@link #sortAngle(float, float, float, float, float, float)}
+	 * @param tier distance tier from {@link #distanceTier(int)}
+	 * @param quadCount translucent quads the resort would process
+	 * @param waitFrames frames this region has been a candidate without being selected
+	 */
+	void add(int regionIndex, float angle, int tier, int quadCount, int waitFrames) {
+		final int i = candidateCount++;
+
+		if (i == this.regionIndex.length) {
+			final int size = i * 2;
+			this.regionIndex = IntArrays.ensureCapacity(this.regionIndex, size, i);
+			this.tier = IntArrays.ensureCapacity(this.tier, size, i);
+			this.quadCount = IntArrays.ensureCapacity(this.quadCount, size, i);
+			score = Arrays.copyOf(score, size);
+			isSelected = new boolean[size];
+			order = new int[size];
+		}
+
+		this.regionIndex[i] = regionIndex;
+		this.tier[i] = tier;
+		this.quadCount[i] = quadCount;
+		score[i] = score(angle, tier, quadCount, waitFrames);
+	}
+
+	/**
+	 * Selects candidates in descending score order while they fit the quad budget.
+	 * At least one candidate is always selected if any exist, and starved candidates
+	 * are selected even if they exceed the budget.
+	 *
+	 * @return number of candidates selected
+	 */
+	int select(int quadBudget, int maxCount) {
+		final int count = candidateCount;
+		final int[] order = this.order;
+		final float[] score = this.score;
+
+		for (int i = 0; i < count; ++i) {
+			order[i] = i;
+			isSelected[i] = false;
+		}
+
+		IntArrays.quickSort(order, 0, count, (a, b) -> Float.compare(score[b], score[a]));
+
+		int remaining = quadBudget;
+		int selected = 0;
+
+		for (int i = 0; i < count && selected < maxCount; ++i) {
+			final int c = order[i];
+			final int quads = quadCount[c];
+
+			if (quads <= remaining || selected == 0 || score[c] == Float.POSITIVE_INFINITY) {
+				isSelected[c] = true;
+				remaining -= quads;
+				++selected;
+			}
+		}
+
+		return selected;
+	}
+
+	int candidateCount() {
+		return candidateCount;
+	}
+
+	int regionIndex(int candidate) {
+		return regionIndex[candidate];
+	}
+
+	int tier(int candidate) {
+		return tier[candidate];
+	}
+
+	int quadCount(int candidate) {
+		return quadCount[candidate];
+	}
+
+	boolean isSelected(int candidate) {
+		return isSelected[candidate];
+	}
+
+	/**
+	 * Approximate angle in radians the camera has moved through as seen from a region since
+	 * its last sort. Inputs are the region center relative to the current camera position
+	 * and camera movement since the last sort.
+	 */
+	static float sortAngle(float centerX, float centerY, float centerZ, float movedX, float movedY, float movedZ) {
+		final float distance = (float) Math.sqrt(centerX * centerX + centerY * centerY + centerZ * centerZ);
+		final float moved = (float) Math.sqrt(movedX * movedX + movedY * movedY + movedZ * movedZ);
+		return moved / Math.max(distance, MIN_SORT_DISTANCE);
+	}
+
+	/**
+	 * @param squaredChunkDistance squared distance from the camera in regions
+	 * @return 0 within two regions, 1 within four, 2 within eight and 3 beyond
+	 */
+	static int distanceTier(int squaredChunkDistance) {
+		if (squaredChunkDistance <= 4) {
+			return 0;
+		} else if (squaredChunkDistance <= 16) {
+			return 1;
+		} else if (squaredChunkDistance <= 64) {
+			return 2;
+		} else {
+			return 3;
+		}
+	}
+
+	static float score(float angle, int tier, int quadCount, int waitFrames) {
+		if (waitFrames >= MAX_WAIT_FRAMES) {
+			return Float.POSITIVE_INFINITY;
+		}
+
+		return angle * TIER_WEIGHT[tier] * (1 + waitFrames * 0.125f) / Math.max(quadCount, MIN_QUAD_COST);
+	}
+}
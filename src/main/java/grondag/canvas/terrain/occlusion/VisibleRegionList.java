@@ -47,7 +47,7 @@ public class VisibleRegionList {
 		visibleRegions[index] = builtRegion;
 	}
 
-	public final void copyFrom(VisibleRegionList source) {
+	public void copyFrom(VisibleRegionList source) {
 		final int count = source.visibleRegionCount;
 		visibleRegionCount = count;
 
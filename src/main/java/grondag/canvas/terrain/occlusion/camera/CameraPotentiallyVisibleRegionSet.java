@@ -35,6 +35,10 @@ import grondag.canvas.terrain.region.RenderRegionIndexer;
  * direct addressing. Exploits the fact chunks will always
  * be at a finite number of distances from the origin chunk
  * and slots them into buckets using simple and fast array access.
+ *
+ * <p>Rings are filled contiguously from their start, but most slots at the end of
+ * each ring are usually empty, and in sparse worlds whole rings are. An occupancy
+ * bitmap lets iteration jump straight to the next present region.
  */
 public class CameraPotentiallyVisibleRegionSet implements PotentiallyVisibleRegionSet<CameraPotentiallyVisibleRegionSet, CameraRegionVisibility> {
 	/**
@@ -116,6 +120,7 @@ public class CameraPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 	 */
 	private final int[] ringMap = new int[RING_MAP_LENGTH];
 	private final CameraRegionVisibility[] states = new CameraRegionVisibility[REGION_LOOKUP_LENGTH];
+	private final OccupancyBitmap occupied = new OccupancyBitmap(REGION_LOOKUP_LENGTH);
 
 	private int iterationIndex = 0;
 	private int maxIndex = 0;
@@ -127,7 +132,15 @@ public class CameraPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 	@Override
 	public void clear() {
 		System.arraycopy(SQ_DIST_TO_RING_MAP, 0, ringMap, 0, RING_MAP_LENGTH);
-		Arrays.fill(states, null);
+
+		final CameraRegionVisibility[] states = this.states;
+		final OccupancyBitmap occupied = this.occupied;
+
+		for (int i = occupied.nextSetBit(0, REGION_LOOKUP_LENGTH); i >= 0; i = occupied.nextSetBit(i + 1, REGION_LOOKUP_LENGTH)) {
+			states[i] = null;
+		}
+
+		occupied.clear();
 		maxIndex = -1;
 		++version;
 		returnToStart();
@@ -156,6 +169,7 @@ public class CameraPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 				}
 			} else {
 				states[index] = state;
+				occupied.set(index);
 				ringMap[dist] = index + 1;
 
 				if (index > maxIndex) {
@@ -185,16 +199,27 @@ public class CameraPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 
 	@Override
 	@Nullable public CameraRegionVisibility next() {
-		final int maxIndex = this.maxIndex;
+		int index = iterationIndex;
 
-		while (iterationIndex <= maxIndex) {
-			final CameraRegionVisibility state = states[iterationIndex++];
+		if (index > maxIndex) {
+			return null;
+		}
+
+		CameraRegionVisibility state = states[index];
 
-			if (state != null) {
-				return state;
+		// Rings are filled contiguously, so the bitmap is only needed to skip empty slots
+		if (state == null) {
+			index = occupied.nextSetBit(index + 1, maxIndex + 1);
+
+			if (index < 0) {
+				iterationIndex = maxIndex + 1;
+				return null;
 			}
+
+			state = states[index];
 		}
 
-		return null;
+		iterationIndex = index + 1;
+		return state;
 	}
 }
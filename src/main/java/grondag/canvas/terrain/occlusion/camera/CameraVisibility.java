@@ -20,11 +20,16 @@
 
 package grondag.canvas.terrain.occlusion.camera;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
 import net.minecraft.world.phys.Vec3;
 
 import io.vram.frex.api.config.FlawlessFrames;
 
+import grondag.bitraster.PackedBox;
 import grondag.canvas.config.Configurator;
+import grondag.canvas.perf.OccluderBudgetCounters;
 import grondag.canvas.render.frustum.TerrainFrustum;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.terrain.occlusion.base.AbstractVisbility;
@@ -39,6 +44,12 @@ public class CameraVisibility extends AbstractVisbility<CameraVisibility, Camera
 	/** Stashed during prepare in case we need it to draw to target occluder. */
 	private RegionPosition lastOrigin;
 
+	private final OccluderBudget occluderBudget = new OccluderBudget();
+
+	/** Boxes skipped by the occluder budget and their regions, kept only for performance trace. */
+	private final IntArrayList skippedBoxes = new IntArrayList();
+	private final ObjectArrayList<RegionPosition> skippedOrigins = new ObjectArrayList<>();
+
 	public CameraVisibility(WorldRenderState worldRenderState, ShadowOccluder targetOccluder) {
 		super(worldRenderState, new CameraPotentiallyVisibleRegionSet(), new CameraOccluder());
 		this.targetOccluder = targetOccluder;
@@ -57,6 +68,17 @@ public class CameraVisibility extends AbstractVisbility<CameraVisibility, Camera
 		return occluder.frustumPositionVersion();
 	}
 
+	@Override
+	protected boolean prepareOccluder() {
+		final boolean result = super.prepareOccluder();
+
+		if (result) {
+			occluderBudget.reset(Configurator.occluderBudget);
+		}
+
+		return result;
+	}
+
 	@Override
 	protected void invalidateOccluder() {
 		super.invalidateOccluder();
@@ -104,11 +126,68 @@ public class CameraVisibility extends AbstractVisbility<CameraVisibility, Camera
 	@Override
 	public void occlude(int[] occlusionData) {
 		// Note some occluders may not be drawn if near occluders are disabled.
-		occluder.occlude(occlusionData);
+		if (occluderBudget.isEnabled()) {
+			final int[] selected = occluderBudget.select(occlusionData, lastOrigin.cameraRelativeCenterX(), lastOrigin.cameraRelativeCenterY(), lastOrigin.cameraRelativeCenterZ());
+
+			if (selected != null) {
+				occluder.occlude(selected);
+			}
+
+			if (OccluderBudgetCounters.ENABLED && selected != occlusionData) {
+				addSkippedBoxes(occlusionData, selected);
+			}
+		} else {
+			occluder.occlude(occlusionData);
+		}
+
+		final int bounds = occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX];
 
-		if (worldRenderState.shadowsEnabled()) {
+		// Sealed regions drawn as occluders may have nothing renderable
+		if (bounds != PackedBox.EMPTY_BOX && worldRenderState.shadowsEnabled()) {
 			targetOccluder.prepareRegion(lastOrigin);
-			targetOccluder.occludeBox(occlusionData[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX]);
+			targetOccluder.occludeBox(bounds);
+		}
+	}
+
+	/** Selected boxes keep their original order, so skipped boxes are the ones not matched in sequence. */
+	private void addSkippedBoxes(int[] occlusionData, int[] selected) {
+		final int limit = occlusionData.length;
+		final int selectedLimit = selected == null ? 0 : selected.length;
+		int j = RegionOcclusionCalculator.OCCLUSION_RESULT_FIRST_BOX_INDEX;
+
+		for (int i = RegionOcclusionCalculator.OCCLUSION_RESULT_FIRST_BOX_INDEX; i < limit; ++i) {
+			final int box = occlusionData[i];
+
+			if (j < selectedLimit && selected[j] == box) {
+				++j;
+			} else {
+				skippedBoxes.add(box);
+				skippedOrigins.add(lastOrigin);
+			}
 		}
 	}
+
+	/**
+	 * Tests boxes skipped by the occluder budget during the last iteration against the finished
+	 * raster and reports those still visible. Those boxes cover raster area that no drawn occluder
+	 * covered, so drawing them would have helped cull whatever was tested behind them.
+	 * Only for performance trace.
+	 */
+	public void completeSkippedBoxes() {
+		final int size = skippedBoxes.size();
+		int useful = 0;
+
+		for (int i = 0; i < size; ++i) {
+			// Bypass our own prepareRegion so the test doesn't look like backtracking
+			occluder.prepareRegion(skippedOrigins.get(i));
+
+			if (occluder.isBoxVisible(skippedBoxes.getInt(i), 0)) {
+				++useful;
+			}
+		}
+
+		skippedBoxes.clear();
+		skippedOrigins.clear();
+		OccluderBudgetCounters.addUsefulSkipped(useful);
+	}
 }
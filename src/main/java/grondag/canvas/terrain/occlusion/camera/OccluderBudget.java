@@ -0,0 +1,181 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.camera;
+
+import java.util.Arrays;
+
+import grondag.bitraster.PackedBox;
+import grondag.canvas.perf.OccluderBudgetCounters;
+import grondag.canvas.terrain.occlusion.geometry.RegionOcclusionCalculator;
+
+/**
+ * Limits how many occluder boxes are drawn to the camera raster in each iteration.
+ *
+ * <p>Each box is valued by the solid angle it covers from the camera, estimated from
+ * its face areas and camera-relative center. Regions are drawn near to far so boxes
+ * can't be deferred and sorted. Instead, a histogram of values from the prior iteration
+ * gives a threshold that about {@code budget} boxes would have met. Boxes under the
+ * threshold are skipped, and drawing stops once the budget is spent.
+ *
+ * <p>Skipping an occluder only makes the raster less complete, so culling remains
+ * conservative at any budget.
+ *
+ * <p>Not thread-safe.
+ */
+final class OccluderBudget {
+	/** Values are bucketed by binary exponent, so each bucket spans a factor of two. */
+	static final int VALUE_BUCKET_COUNT = 64;
+	private static final int VALUE_EXPONENT_OFFSET = 48;
+
+	private final int[] valueHistogram = new int[VALUE_BUCKET_COUNT];
+	private int budget;
+	private int remaining;
+	private int thresholdBucket;
+
+	/** Reusable outputs for {@link #select(int[], float, float, float)}, indexed by length. */
+	private int[][] selections = new int[64][];
+
+	boolean isEnabled() {
+		return budget > 0;
+	}
+
+	/**
+	 * Call when iteration starts over with an empty raster.
+	 * Zero or less disables the budget and all boxes are drawn.
+	 */
+	void reset(int budget) {
+		this.budget = budget;
+		remaining = budget;
+
+		final int[] valueHistogram = this.valueHistogram;
+		int count = 0;
+		int bucket = VALUE_BUCKET_COUNT;
+
+		while (bucket > 0 && count + valueHistogram[bucket - 1] <= budget) {
+			count += valueHistogram[--bucket];
+		}
+
+		thresholdBucket = bucket;
+		Arrays.fill(valueHistogram, 0);
+	}
+
+	int thresholdBucket() {
+		return thresholdBucket;
+	}
+
+	/**
+	 * Returns occlusion data with only the boxes that should be drawn, in their original order,
+	 * or null if none should be drawn.  The input is returned when every box is selected.
+	 * Output arrays are reused and are only valid until the next call.
+	 *
+	 * @param centerX camera-relative X coordinate of the region center, and so on for Y and Z
+	 */
+	int[] select(int[] occlusionData, float centerX, float centerY, float centerZ) {
+		final int limit = occlusionData.length;
+		final int first = RegionOcclusionCalculator.OCCLUSION_RESULT_FIRST_BOX_INDEX;
+
+		if (limit <= first) {
+			return null;
+		}
+
+		final int[] valueHistogram = this.valueHistogram;
+		final int thresholdBucket = this.thresholdBucket;
+		int[] result = null;
+		int n = first;
+
+		for (int i = first; i < limit; ++i) {
+			final int box = occlusionData[i];
+			final int bucket = valueBucket(box, centerX, centerY, centerZ);
+			++valueHistogram[bucket];
+
+			if (bucket >= thresholdBucket && remaining > 0) {
+				--remaining;
+
+				if (result != null) {
+					result[n++] = box;
+				} else {
+					++n;
+				}
+			} else if (result == null) {
+				// First skipped box, so copy what was selected before it
+				result = selection(limit);
+				System.arraycopy(occlusionData, 0, result, 0, n);
+			}
+		}
+
+		if (OccluderBudgetCounters.ENABLED) {
+			OccluderBudgetCounters.addRegion(limit - first, n - first);
+		}
+
+		if (result == null) {
+			return occlusionData;
+		} else if (n == first) {
+			return null;
+		} else {
+			final int[] output = selection(n);
+			System.arraycopy(result, 0, output, 0, n);
+			return output;
+		}
+	}
+
+	private int[] selection(int length) {
+		if (length >= selections.length) {
+			selections = Arrays.copyOf(selections, Math.max(length + 1, selections.length * 2));
+		}
+
+		int[] result = selections[length];
+
+		if (result == null) {
+			result = new int[length];
+			selections[length] = result;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Approximates the solid angle of the box as the sum of the face areas it shows
+	 * to the camera, each scaled by the cosine to the view ray and divided by the squared
+	 * distance. Exact enough to rank boxes, which is all it is used for.
+	 */
+	static int valueBucket(int packedBox, float centerX, float centerY, float centerZ) {
+		final int x0 = PackedBox.x0(packedBox);
+		final int y0 = PackedBox.y0(packedBox);
+		final int z0 = PackedBox.z0(packedBox);
+		final int dx = PackedBox.x1(packedBox) - x0;
+		final int dy = PackedBox.y1(packedBox) - y0;
+		final int dz = PackedBox.z1(packedBox) - z0;
+
+		// region center is at 8, 8, 8 in region coordinates
+		final float x = centerX + (x0 + x0 + dx) * 0.5f - 8f;
+		final float y = centerY + (y0 + y0 + dy) * 0.5f - 8f;
+		final float z = centerZ + (z0 + z0 + dz) * 0.5f - 8f;
+
+		final float squaredDistance = x * x + y * y + z * z;
+
+		if (squaredDistance < 1f) {
+			return VALUE_BUCKET_COUNT - 1;
+		}
+
+		final float value = (dy * dz * Math.abs(x) + dx * dz * Math.abs(y) + dx * dy * Math.abs(z)) / (squaredDistance * (float) Math.sqrt(squaredDistance));
+		return value <= 0 ? 0 : Math.max(0, Math.min(VALUE_BUCKET_COUNT - 1, Math.getExponent(value) + VALUE_EXPONENT_OFFSET));
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.camera;
+
+/**
+ * Two-level occupancy index over a fixed range of slots. Finds the next occupied
+ * slot with a few word reads no matter how many empty slots precede it, which keeps
+ * iteration cost proportional to occupied slots when most of the range is empty.
+ *
+ * <p>Not thread-safe.
+ */
+final class OccupancyBitmap {
+	/** One bit per slot. */
+	private final long[] words;
+
+	/** One bit per element of {@link #words}, set when that word is non-zero. */
+	private final long[] summary;
+
+	OccupancyBitmap(int capacity) {
+		words = new long[(capacity + 63) >>> 6];
+		summary = new long[(words.length + 63) >>> 6];
+	}
+
+	void set(int index) {
+		final int w = index >>> 6;
+		words[w] |= 1L << index;
+		summary[w >>> 6] |= 1L << w;
+	}
+
+	/**
+	 * @return index of the first occupied slot at or after from and before limit, or -1 if none
+	 */
+	int nextSetBit(int from, int limit) {
+		if (from >= limit) {
+			return -1;
+		}
+
+		final long[] words = this.words;
+		int w = from >>> 6;
+		final long bits = words[w] & (-1L << from);
+
+		if (bits != 0) {
+			final int result = (w << 6) | Long.numberOfTrailingZeros(bits);
+			return result < limit ? result : -1;
+		}
+
+		// Find the next non-empty word from the summary
+		if (++w >= words.length) {
+			return -1;
+		}
+
+		final long[] summary = this.summary;
+		int s = w >>> 6;
+		long summaryBits = summary[s] & (-1L << w);
+
+		while (summaryBits == 0) {
+			if (++s >= summary.length || (s << 12) >= limit) {
+				return -1;
+			}
+
+			summaryBits = summary[s];
+		}
+
+		w = (s << 6) | Long.numberOfTrailingZeros(summaryBits);
+		final int result = (w << 6) | Long.numberOfTrailingZeros(words[w]);
+		return result < limit ? result : -1;
+	}
+
+	/** Cost is proportional to the number of non-empty words. */
+	void clear() {
+		final long[] words = this.words;
+		final long[] summary = this.summary;
+
+		for (int s = 0; s < summary.length; ++s) {
+			long summaryBits = summary[s];
+
+			while (summaryBits != 0) {
+				words[(s << 6) | Long.numberOfTrailingZeros(summaryBits)] = 0;
+				summaryBits &= summaryBits - 1;
+			}
+
+			summary[s] = 0;
+		}
+	}
+}
@@ -20,17 +20,13 @@
 
 package grondag.canvas.terrain.occlusion.geometry;
 
-import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 
 public class Area {
 	public static final int AREA_COUNT;
-	public static final int SECTION_COUNT;
 	private static final int[] AREA_KEY_TO_INDEX = new int[0x10000];
 	private static final int[] AREA_INDEX_TO_KEY;
-	private static final int[] SECTION_KEYS;
-	private static final int[] SECTION_INDEX;
 	private static final long[] AREA_BITS;
 
 	static {
@@ -74,24 +70,6 @@ public class Area {
 			AREA_KEY_TO_INDEX[AREA_INDEX_TO_KEY[j]] = j;
 		}
 
-		final IntArrayList sections = new IntArrayList();
-
-		for (int j = 0; j < AREA_COUNT; ++j) {
-			final int a = AREA_INDEX_TO_KEY[j];
-
-			if ((Area.x0(a) == 0 && Area.x1(a) == 15) || (Area.y0(a) == 0 && Area.y1(a) == 15)) {
-				sections.add(indexToKey(j));
-			}
-		}
-
-		SECTION_COUNT = sections.size();
-		SECTION_KEYS = sections.toArray(new int[SECTION_COUNT]);
-		SECTION_INDEX = new int[SECTION_COUNT];
-
-		for (int k = 0; k < SECTION_COUNT; ++k) {
-			SECTION_INDEX[k] = keyToIndex(SECTION_KEYS[k]);
-		}
-
 		final long[] xMasks = new long[256];
 		final int[] yBits = new int[256];
 		final long[] yMasks = new long[16];
@@ -140,10 +118,6 @@ public class Area {
 		return AREA_INDEX_TO_KEY[index];
 	}
 
-	public static int sectionToAreaIndex(int sectionIndex) {
-		return SECTION_INDEX[sectionIndex];
-	}
-
 	public static boolean isIncludedBySample(long[] sample, int sampleStart, int areaIndex) {
 		areaIndex <<= 2;
 
@@ -29,10 +29,16 @@ public class AreaFinder {
 		return bits == 0 ? 0 : Long.bitCount(bits);
 	}
 
-	// based on approach described here:
-	// 	https://stackoverflow.com/a/7497967
-	// 	https://stackoverflow.com/a/7773870
-	//  https://www.drdobbs.com/database/the-maximal-rectangle-problem/184410529
+	/**
+	 * Finds the largest rectangle of set bits in a 16x16 slice.
+	 *
+	 * <p>For each bottom row, rows are ANDed upward so each 16-bit result holds the columns
+	 * set in every row of that span, and each run of set bits is a candidate rectangle.
+	 * Every largest rectangle is maximal and so appears as one of these runs.
+	 *
+	 * <p>Ties go to the lowest top row, then the lowest right column, then the tallest.
+	 * This matches the histogram stack search used previously, so results are identical.
+	 */
 	public static int findLargest(long[] bitsIn) {
 		int bestX0 = 0;
 		int bestY0 = 0;
@@ -40,135 +46,45 @@ public class AreaFinder {
 		int bestY1 = -1;
 		int bestArea = 0;
 
-		// height of prior rows
-		// four bits per position, values 0-15
-		long heights = 0;
-
-		for (int y = 0; y < 16; ++y) {
-			final int rowBits = (int) ((bitsIn[y >> 2] >> ((y & 3) << 4)) & 0xFFFF);
-
-			if (rowBits == 0) {
-				heights = 0;
+		for (int y1 = 0; y1 < 16; ++y1) {
+			// A rectangle ending on this row can't do better than all rows up to it
+			if ((y1 + 1) << 4 <= bestArea) {
 				continue;
 			}
 
-			//	OcclusionBitPrinter.printSpaced(Strings.padStart(Integer.toBinaryString(rowBits), 16, '0'));
+			int run = 0xFFFF;
 
-			// track start of runs up to current height
-			long stackX15 = 0; // 0-15
-			long stackH16 = 0; // 1-16
-			int stackSize = 0;
+			for (int y0 = y1; y0 >= 0; --y0) {
+				run &= (int) (bitsIn[y0 >> 2] >>> ((y0 & 3) << 4));
 
-			// height of first column is zero if closed, otherwise 1 + previous row first column height
-			int runHeight = (rowBits & 1) == 0 ? 0 : (1 + getVal15(heights, 0));
-			int runStart = 0;
+				if (run == 0 || Integer.bitCount(run) * (y1 + 1) < bestArea) {
+					break;
+				}
 
-			// save height for use by next row, unless at top row
-			if (y != 15) heights = setVal15(heights, 0, runHeight);
+				final int height = y1 - y0 + 1;
+				int remaining = run;
 
-			// NB: inclusive of 16. The height @ 16 will always be zero, closing off last column
-			for (int x = 1; x <= 16; ++x) {
-				// height here is 0 if closed, otherwise 1 + height of row below
-				final int h = (rowBits & (1 << x)) == 0 ? 0 : (1 + getVal15(heights, x));
+				while (remaining != 0) {
+					final int x0 = Integer.numberOfTrailingZeros(remaining);
+					final int x1 = x0 + Integer.numberOfTrailingZeros(~(remaining >>> x0)) - 1;
+					final int area = (x1 - x0 + 1) * height;
 
-				// if higher than last start new run
-				if (h > runHeight) {
-					// push current run onto stack
-					if (runHeight != 0) {
-						stackX15 = setVal15(stackX15, stackSize, runStart);
-						stackH16 = setVal16(stackH16, stackSize, runHeight);
-						++stackSize;
+					if (area > bestArea || (area == bestArea && y1 == bestY1 && (x1 < bestX1 || (x1 == bestX1 && y0 < bestY0)))) {
+						bestArea = area;
+						bestX0 = x0;
+						bestX1 = x1;
+						bestY0 = y0;
+						bestY1 = y1;
 					}
 
-					// new run starts here
-					runStart = x;
-					runHeight = h;
-				} else {
-					// if reduction in height, close out current run and
-					// also runs on stack until revert to a sustainable run
-					// or the stack is empty
-
-					while (h < runHeight) {
-						// check for largest area on current run
-						final int a = (x - runStart) * runHeight;
-
-						if (a > bestArea) {
-							bestArea = a;
-							bestX0 = runStart;
-							bestX1 = x - 1;
-							bestY0 = y - runHeight + 1;
-							bestY1 = y;
-						}
-
-						if (stackSize == 0) {
-							// if we have an empty stack but non-zero height,
-							// then run at current height effectively starts
-							// where the just-closed prior run  started
-							runHeight = h;
-							// NB: no change to run start - continue from prior
-						} else { // stackSize > 0
-							--stackSize;
-							final int stackStart = getVal15(stackX15, stackSize);
-							final int stackHeight = getVal16(stackH16, stackSize);
-
-							if (stackHeight == h) {
-								// if stack run height is same as current, resume run, leave stack popped
-								runHeight = h;
-								runStart = stackStart;
-							} else if (stackHeight < h) {
-								// if stack run height is less new height, leave on the stack
-								++stackSize;
-								// and new run starts from current position
-								runHeight = h;
-								// NB: no change to run start - continue from prior
-							} else {
-								// stack area is higher than new height
-								// leave stack popped and loop to close out area on the stack
-								runHeight = stackHeight;
-								runStart = stackStart;
-							}
-						}
-					}
+					remaining &= -(2 << x1);
 				}
-
-				// track height of this column but don't overflow on last row/column
-				if (y != 15 && x < 16) heights = setVal15(heights, x, h);
 			}
 		}
 
 		return Area.areaKey(bestX0, bestY0, bestX1, bestY1);
 	}
 
-	/**
-	 * 1-16 values.
-	 */
-	private static int getVal16(long packed, int x) {
-		return 1 + getVal15(packed, x);
-	}
-
-	/**
-	 * 1-16 values.
-	 */
-	private static long setVal16(long packed, int x, int val) {
-		return setVal15(packed, x, val - 1);
-	}
-
-	/**
-	 * 0-15 values.
-	 */
-	private static int getVal15(long packed, int x) {
-		return (int) ((packed >>> (x << 2)) & 0xF);
-	}
-
-	/**
-	 * 0-15 values.
-	 */
-	private static long setVal15(long packed, int x, int val) {
-		final int shift = x << 2;
-		final long mask = 0xFL << shift;
-		return (packed & ~mask) | (((long) val) << shift);
-	}
-
 	public long[] bitsFromIndex(int areaIndex) {
 		final long[] result = bits;
 
@@ -194,23 +110,4 @@ public class AreaFinder {
 			bitCount -= Area.size(key);
 		}
 	}
-
-	public void findSections(long[] bitsIn, int sourceIndex, IntConsumer areaIndexConsumer) {
-		final long[] bits = this.bits;
-		System.arraycopy(bitsIn, sourceIndex, bits, 0, 4);
-
-		final int bitCount = Long.bitCount(bits[0]) + Long.bitCount(bits[1]) + Long.bitCount(bits[2]) + Long.bitCount(bits[3]);
-
-		if (bitCount == 0) {
-			return;
-		}
-
-		for (int i = 0; i < Area.SECTION_COUNT; ++i) {
-			final int areaIndex = Area.sectionToAreaIndex(i);
-
-			if (Area.isIncludedBySample(bits, 0, areaIndex)) {
-				areaIndexConsumer.accept(areaIndex);
-			}
-		}
-	}
 }
@@ -26,6 +26,7 @@ import static grondag.canvas.terrain.util.RenderRegionStateIndexer.SLICE_WORD_CO
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntConsumer;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 
 import grondag.bitraster.PackedBox;
 
@@ -38,10 +39,13 @@ public class BoxFinder {
 	 * Bits 0-15 indicate which slices contain the area with the same index of the value.
 	 */
 	final int[] areaSlices = new int[Area.AREA_COUNT];
+	/** Indices with non-zero values in {@link #areaSlices}, so they can be visited and cleared without a full scan. */
+	private final IntArrayList markedAreas = new IntArrayList();
+	/** Areas found in the most recently searched slice, reused for identical slices that follow. */
+	private final IntArrayList sliceAreas = new IntArrayList();
+	/** Sorted ascending, so iterated from the end to visit largest volume first. */
 	private final LongArrayList sortedBoxes = new LongArrayList();
-	private final int[] EMPTY_AREA_SLICES = new int[Area.AREA_COUNT];
-	int mask;
-	private final IntConsumer markSliceConsumer = areaIndex -> areaSlices[areaIndex] |= mask;
+	private final IntConsumer sliceAreaConsumer = sliceAreas::add;
 	private int voxelCount;
 
 	public BoxFinder(AreaFinder areaFinder) {
@@ -53,7 +57,6 @@ public class BoxFinder {
 		System.arraycopy(sourceBits, sourceIndex, source, 0, INTERIOR_CACHE_WORDS);
 		boxes.clear();
 
-		markSectionSlices();
 		buildSortedSections();
 		findSections();
 
@@ -74,81 +77,140 @@ public class BoxFinder {
 		}
 	}
 
+	/**
+	 * Sections are areas that span the full width or height of a slice. Only sections present
+	 * in every slice are used, and those are exactly the sections of the AND of all slices.
+	 * The full plane is the exception and is used for any run of full slices.
+	 */
 	private void buildSortedSections() {
 		final LongArrayList sortedBoxes = this.sortedBoxes;
 		sortedBoxes.clear();
 
-		final int[] areaSlices = this.areaSlices;
+		final long[] source = this.source;
+		long all0 = -1L;
+		long all1 = -1L;
+		long all2 = -1L;
+		long all3 = -1L;
+		int fullSlices = 0;
+		int index = 0;
+
+		for (int z = 0; z < 16; ++z) {
+			final long w0 = source[index++];
+			final long w1 = source[index++];
+			final long w2 = source[index++];
+			final long w3 = source[index++];
+
+			if ((w0 & w1 & w2 & w3) == -1L) {
+				fullSlices |= 1 << z;
+			}
 
-		if (areaSlices[0] != 0) {
+			all0 &= w0;
+			all1 &= w1;
+			all2 &= w2;
+			all3 &= w3;
+		}
+
+		if (fullSlices != 0) {
 			// handle special case of full Z-plane
-			addBoxesFromSlice(Area.indexToKey(0), areaSlices[0]);
+			addBoxesFromSlice(Area.indexToKey(0), fullSlices);
 		}
 
-		for (int i = 1; i < Area.SECTION_COUNT; ++i) {
-			final int areaIndex = Area.sectionToAreaIndex(i);
-			final int slice = areaSlices[areaIndex];
+		if ((all0 | all1 | all2 | all3) != 0) {
+			int fullRows = 0;
+			int fullColumns = 0xFFFF;
 
-			if (slice == 0xFFFF) {
-				final int areaKey = Area.indexToKey(areaIndex);
-				final int dy = (Area.y1(areaKey) - Area.y0(areaKey) + 1);
-				final int dx = (Area.x1(areaKey) - Area.x0(areaKey) + 1);
-				final long vol = (dx * dy * 16);
-				sortedBoxes.add((vol << 34) | (areaIndex << 10) | (16 << 5) | 0);
+			for (int y = 0; y < 16; ++y) {
+				final long word = (y >> 2) == 0 ? all0 : (y >> 2) == 1 ? all1 : (y >> 2) == 2 ? all2 : all3;
+				final int row = (int) (word >>> ((y & 3) << 4)) & 0xFFFF;
+				fullColumns &= row;
+
+				if (row == 0xFFFF) {
+					fullRows |= 1 << y;
+				}
 			}
+
+			addSectionsFromRuns(fullRows, true);
+			addSectionsFromRuns(fullColumns, false);
 		}
 
-		sortedBoxes.sort((a, b) -> Long.compare(b, a));
+		LongArrays.radixSort(sortedBoxes.elements(), 0, sortedBoxes.size());
+	}
+
+	/**
+	 * Adds full-depth boxes for every section spanning a run of set bits.
+	 *
+	 * @param bits rows or columns that are full in every slice
+	 * @param isRows true if bits are rows, giving sections that span the full width
+	 */
+	private void addSectionsFromRuns(int bits, boolean isRows) {
+		final LongArrayList sortedBoxes = this.sortedBoxes;
+
+		for (int lo = 0; lo < 16; ++lo) {
+			if ((bits & (1 << lo)) == 0) {
+				continue;
+			}
+
+			for (int hi = lo; hi < 16 && (bits & (1 << hi)) != 0; ++hi) {
+				final int areaIndex = Area.keyToIndex(isRows ? Area.areaKey(0, lo, 15, hi) : Area.areaKey(lo, 0, hi, 15));
+
+				// full plane is handled separately
+				if (areaIndex != 0) {
+					final long vol = (hi - lo + 1) * 256;
+					sortedBoxes.add((vol << 34) | (areaIndex << 10) | (16 << 5) | 0);
+				}
+			}
+		}
 	}
 
 	private void markBoxNeighborSlices() {
 		final int[] areaSlices = this.areaSlices;
+		final int[] markedAreas = this.markedAreas.elements();
+		final int markedCount = this.markedAreas.size();
 
-		for (int areaIndex = 0; areaIndex < Area.AREA_COUNT; ++areaIndex) {
+		for (int i = 0; i < markedCount; ++i) {
+			final int areaIndex = markedAreas[i];
 			int slice = areaSlices[areaIndex];
 
-			if (slice != 0) {
-				if ((slice & 1) == 1 && (slice & 2) == 0) {
-					// special case first slice - can only transfer up
-					if (Area.isIncludedBySample(source, SLICE_WORD_COUNT, areaIndex)) {
-						slice |= 2;
-					}
+			if ((slice & 1) == 1 && (slice & 2) == 0) {
+				// special case first slice - can only transfer up
+				if (Area.isIncludedBySample(source, SLICE_WORD_COUNT, areaIndex)) {
+					slice |= 2;
 				}
+			}
 
-				int mask = 2;
+			int mask = 2;
 
-				for (int z = 1; z < 15; z++) {
-					if ((slice & mask) != 0) {
-						// transfer to lower slice if not already present
-						final int lowMask = (mask >> 1);
+			for (int z = 1; z < 15; z++) {
+				if ((slice & mask) != 0) {
+					// transfer to lower slice if not already present
+					final int lowMask = (mask >> 1);
 
-						if ((slice & lowMask) == 0) {
-							if (Area.isIncludedBySample(source, (z - 1) * SLICE_WORD_COUNT, areaIndex)) {
-								slice |= lowMask;
-							}
+					if ((slice & lowMask) == 0) {
+						if (Area.isIncludedBySample(source, (z - 1) * SLICE_WORD_COUNT, areaIndex)) {
+							slice |= lowMask;
 						}
+					}
 
-						// transfer to upper slice if not already present
-						final int highMask = (mask << 1);
+					// transfer to upper slice if not already present
+					final int highMask = (mask << 1);
 
-						if ((slice & highMask) == 0) {
-							if (Area.isIncludedBySample(source, (z + 1) * SLICE_WORD_COUNT, areaIndex)) {
-								slice |= highMask;
-							}
+					if ((slice & highMask) == 0) {
+						if (Area.isIncludedBySample(source, (z + 1) * SLICE_WORD_COUNT, areaIndex)) {
+							slice |= highMask;
 						}
 					}
-
-					mask <<= 1;
 				}
 
-				if ((slice & 0b1000000000000000) == 0b1000000000000000 && (slice & 0b0100000000000000) == 0) {
-					if (Area.isIncludedBySample(source, SLICE_WORD_COUNT * 14, areaIndex)) {
-						slice |= 0b0100000000000000;
-					}
-				}
+				mask <<= 1;
+			}
 
-				areaSlices[areaIndex] = slice;
+			if ((slice & 0b1000000000000000) == 0b1000000000000000 && (slice & 0b0100000000000000) == 0) {
+				if (Area.isIncludedBySample(source, SLICE_WORD_COUNT * 14, areaIndex)) {
+					slice |= 0b0100000000000000;
+				}
 			}
+
+			areaSlices[areaIndex] = slice;
 		}
 	}
 
@@ -157,16 +219,15 @@ public class BoxFinder {
 		sortedBoxes.clear();
 
 		final int[] areaSlices = this.areaSlices;
+		final int[] markedAreas = this.markedAreas.elements();
+		final int markedCount = this.markedAreas.size();
 
-		for (int areaIndex = 0; areaIndex < Area.AREA_COUNT; ++areaIndex) {
-			final int slice = areaSlices[areaIndex];
-
-			if (slice != 0) {
-				addBoxesFromSlice(Area.indexToKey(areaIndex), slice);
-			}
+		for (int i = 0; i < markedCount; ++i) {
+			final int areaIndex = markedAreas[i];
+			addBoxesFromSlice(Area.indexToKey(areaIndex), areaSlices[areaIndex]);
 		}
 
-		sortedBoxes.sort((a, b) -> Long.compare(b, a));
+		LongArrays.radixSort(sortedBoxes.elements(), 0, sortedBoxes.size());
 	}
 
 	private void addBoxesFromSlice(int areaKey, int slice) {
@@ -210,43 +271,61 @@ public class BoxFinder {
 		}
 	}
 
-	// PERF: still slow on relative basis to rest of chunk baking
+	/**
+	 * Marks the slices where each area found by {@link AreaFinder} occurs.
+	 * Areas from a slice are reused for following slices with identical bits,
+	 * which is common in solid and layered terrain.
+	 */
 	private void markBoxSlices() {
 		final long[] sourceBits = source;
 		final AreaFinder areaFinder = this.areaFinder;
 		final int[] areaSlices = this.areaSlices;
-		System.arraycopy(EMPTY_AREA_SLICES, 0, areaSlices, 0, Area.AREA_COUNT);
-		mask = 1;
-		int sourceIndex = 0;
+		final IntArrayList markedAreas = this.markedAreas;
+		final IntArrayList sliceAreas = this.sliceAreas;
 
-		for (int i = 0; i < 16; ++i) {
-			areaFinder.find(sourceBits, sourceIndex, markSliceConsumer);
-			sourceIndex += SLICE_WORD_COUNT;
-			mask <<= 1;
+		// leave only zero values before marking
+		for (int i = markedAreas.size() - 1; i >= 0; --i) {
+			areaSlices[markedAreas.getInt(i)] = 0;
 		}
-	}
 
-	private void markSectionSlices() {
-		final long[] sourceBits = source;
-		final AreaFinder areaFinder = this.areaFinder;
-		final int[] areaSlices = this.areaSlices;
-		System.arraycopy(EMPTY_AREA_SLICES, 0, areaSlices, 0, Area.AREA_COUNT);
-		mask = 1;
+		markedAreas.clear();
+		sliceAreas.clear();
 		int sourceIndex = 0;
 
-		for (int i = 0; i < 16; ++i) {
-			areaFinder.findSections(sourceBits, sourceIndex, markSliceConsumer);
+		for (int z = 0; z < 16; ++z) {
+			if (z == 0 || sourceBits[sourceIndex] != sourceBits[sourceIndex - SLICE_WORD_COUNT]
+					|| sourceBits[sourceIndex + 1] != sourceBits[sourceIndex + 1 - SLICE_WORD_COUNT]
+					|| sourceBits[sourceIndex + 2] != sourceBits[sourceIndex + 2 - SLICE_WORD_COUNT]
+					|| sourceBits[sourceIndex + 3] != sourceBits[sourceIndex + 3 - SLICE_WORD_COUNT]) {
+				sliceAreas.clear();
+				areaFinder.find(sourceBits, sourceIndex, sliceAreaConsumer);
+			}
+
+			final int mask = 1 << z;
+			final int[] areas = sliceAreas.elements();
+			final int areaCount = sliceAreas.size();
+
+			for (int i = 0; i < areaCount; ++i) {
+				final int areaIndex = areas[i];
+				final int slice = areaSlices[areaIndex];
+
+				if (slice == 0) {
+					markedAreas.add(areaIndex);
+				}
+
+				areaSlices[areaIndex] = slice | mask;
+			}
+
 			sourceIndex += SLICE_WORD_COUNT;
-			mask <<= 1;
 		}
 	}
 
 	private void findSections() {
 		final LongArrayList sortedBoxes = this.sortedBoxes;
-		final int limit = sortedBoxes.size();
 		final IntArrayList boxes = this.boxes;
 
-		for (int i = 0; i < limit; i++) {
+		// largest volume first
+		for (int i = sortedBoxes.size() - 1; i >= 0; --i) {
 			final long box = sortedBoxes.getLong(i);
 			final int areaIndex = (int) (box >> 10) & 0xFFFFFF;
 
@@ -263,10 +342,10 @@ public class BoxFinder {
 
 	private void findDisjointBoxes() {
 		final LongArrayList sortedBoxes = this.sortedBoxes;
-		final int limit = sortedBoxes.size();
 		final IntArrayList boxes = this.boxes;
 
-		for (int i = 0; i < limit; i++) {
+		// largest volume first
+		for (int i = sortedBoxes.size() - 1; i >= 0; --i) {
 			final long box = sortedBoxes.getLong(i);
 			final int areaIndex = (int) (box >> 10) & 0xFFFFFF;
 			final int z0 = (int) box & 31;
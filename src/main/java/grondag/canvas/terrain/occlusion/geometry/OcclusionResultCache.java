@@ -0,0 +1,95 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.INTERIOR_CACHE_WORDS;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shares occlusion results between regions whose closed and renderable bits are identical.
+ * Results are immutable once cached. Entries hold the input bits so hash collisions
+ * are detected, and the output bits so a hit leaves the calculator in the same state
+ * as a computed result.
+ *
+ * <p>Unbounded growth is prevented by dropping all entries when the limit is reached.
+ * Commonly repeated inputs are re-cached almost immediately.
+ */
+final class OcclusionResultCache {
+	/**
+	 * Words of calculator bits that determine output: closed positions, including padding,
+	 * followed by renderable interior positions. Exterior positions are never renderable.
+	 */
+	static final int KEY_WORD_COUNT = RegionOcclusionCalculator.RENDERABLE_OFFSET + INTERIOR_CACHE_WORDS;
+
+	static final int FLAG_ADVANCED_CULLING = 1;
+	static final int FLAG_NEAR = 2;
+
+	private static final int MAX_ENTRIES = 1024;
+
+	private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+	private record Entry(long[] input, int flags, long[] output, OcclusionResult result) { }
+
+	static long hash(long[] bits, int flags) {
+		long h = flags;
+
+		for (int i = 0; i < KEY_WORD_COUNT; ++i) {
+			h = (h ^ bits[i]) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 29;
+		}
+
+		return h;
+	}
+
+	/**
+	 * Copies cached output into bits and returns the cached result if input matches, or null otherwise.
+	 */
+	@Nullable OcclusionResult get(long hash, int flags, long[] bits) {
+		final Entry entry = entries.get(hash);
+
+		if (entry == null || entry.flags != flags || !Arrays.equals(entry.input, 0, KEY_WORD_COUNT, bits, 0, KEY_WORD_COUNT)) {
+			return null;
+		}
+
+		System.arraycopy(entry.output, 0, bits, 0, KEY_WORD_COUNT);
+		return entry.result;
+	}
+
+	/**
+	 * @param input copy of calculator bits before the result was computed; retained by the cache
+	 * @param bits calculator bits after the result was computed; copied
+	 */
+	void put(long hash, int flags, long[] input, long[] bits, OcclusionResult result) {
+		if (entries.size() >= MAX_ENTRIES) {
+			entries.clear();
+		}
+
+		entries.put(hash, new Entry(input, flags, Arrays.copyOf(bits, KEY_WORD_COUNT), result));
+	}
+
+	int size() {
+		return entries.size();
+	}
+}
@@ -26,8 +26,11 @@ import static grondag.canvas.terrain.util.RenderRegionStateIndexer.TOTAL_CACHE_W
 import static grondag.canvas.terrain.util.RenderRegionStateIndexer.interiorIndex;
 import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndex;
 
+import java.util.Arrays;
+
 import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.RenderShape;
@@ -37,6 +40,7 @@ import io.vram.frex.api.model.util.FaceUtil;
 
 import grondag.bitraster.PackedBox;
 import grondag.canvas.config.Configurator;
+import grondag.canvas.perf.ChunkRebuildCounters;
 import grondag.canvas.pipeline.Pipeline;
 
 public abstract class RegionOcclusionCalculator {
@@ -45,7 +49,19 @@ public abstract class RegionOcclusionCalculator {
 	public static final int[] EMPTY_OCCLUSION_DATA = {PackedBox.EMPTY_BOX};
 	public static final OcclusionResult EMPTY_OCCLUSION_RESULT = new OcclusionResult(EMPTY_OCCLUSION_DATA, -1L);
 
-	private static final int RENDERABLE_OFFSET = TOTAL_CACHE_WORDS;
+	/**
+	 * Result for regions with no open interior positions and exposed surfaces reaching every side.
+	 * Entire region acts as an occluder.
+	 */
+	private static final OcclusionResult FULL_OCCLUSION_RESULT = new OcclusionResult(new int[] {PackedBox.FULL_BOX, PackedBox.FULL_BOX}, 0L);
+
+	/**
+	 * Result for regions with no open interior positions and every surface covered by adjacent regions.
+	 * Nothing is renderable and the entire region acts as an occluder.
+	 */
+	public static final OcclusionResult BURIED_OCCLUSION_RESULT = new OcclusionResult(new int[] {PackedBox.EMPTY_BOX, PackedBox.FULL_BOX}, 0L);
+
+	static final int RENDERABLE_OFFSET = TOTAL_CACHE_WORDS;
 	private static final int EXTERIOR_VISIBLE_OFFSET = RENDERABLE_OFFSET + TOTAL_CACHE_WORDS;
 	private static final int WORD_COUNT = EXTERIOR_VISIBLE_OFFSET + TOTAL_CACHE_WORDS;
 	static final long[] EMPTY_BITS = new long[WORD_COUNT];
@@ -63,7 +79,10 @@ public abstract class RegionOcclusionCalculator {
 		}
 	}
 
+	private static final OcclusionResultCache SHARED_RESULT_CACHE = new OcclusionResultCache();
+
 	public final BoxFinder boxFinder = new BoxFinder(new AreaFinder());
+	private final @Nullable OcclusionResultCache resultCache;
 	private final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
 	private final long[] bits = new long[WORD_COUNT];
 	private int openCount;
@@ -80,13 +99,30 @@ public abstract class RegionOcclusionCalculator {
 	 */
 	private int visitedFacesMask;
 
+	/** Culling mode for the current build, captured once so it can't change mid-build. */
+	private boolean advancedCulling;
+
+	public RegionOcclusionCalculator() {
+		this(SHARED_RESULT_CACHE);
+	}
+
+	/** Null cache always computes occlusion. Exposed for testing. */
+	RegionOcclusionCalculator(@Nullable OcclusionResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
 	public void prepare() {
-		System.arraycopy(EMPTY_BITS, 0, bits, 0, WORD_COUNT);
+		clear();
 		captureExterior();
-		openCount = INTERIOR_STATE_COUNT;
 		captureInterior();
 	}
 
+	/** Marks all positions open and not renderable. */
+	void clear() {
+		System.arraycopy(EMPTY_BITS, 0, bits, 0, WORD_COUNT);
+		openCount = INTERIOR_STATE_COUNT;
+	}
+
 	protected abstract BlockState blockStateAtIndex(int regionIndex);
 
 	protected abstract boolean closedAtRelativePos(BlockState blockState, int regionIndex);
@@ -104,7 +140,10 @@ public abstract class RegionOcclusionCalculator {
 		final int baseIndex = index >> 6;
 
 		if (isClosed) {
-			--openCount;
+			if (index < INTERIOR_STATE_COUNT) {
+				--openCount;
+			}
+
 			bits[baseIndex] |= mask;
 		}
 
@@ -277,7 +316,7 @@ public abstract class RegionOcclusionCalculator {
 
 			// return opacity result
 			if ((bits[wordIndex] & mask) == 0) {
-				if (!Pipeline.advancedTerrainCulling()) {
+				if (!advancedCulling) {
 					trackVistedFaces(index);
 				}
 
@@ -464,22 +503,19 @@ public abstract class RegionOcclusionCalculator {
 	}
 
 	/**
-	 * Removes renderable flag and marks closed if position has no open neighbors and is not visible from exterior.
+	 * Removes renderable flag and marks closed if position is not reachable or visible from exterior.
+	 * This fills enclosed air pockets and sealed interiors, including pockets on the region surface
+	 * that are covered by closed positions in neighboring regions, so box finding sees solid volumes
+	 * and emits fewer, larger boxes. Connectivity between open faces is unchanged because every
+	 * position on a path between them was visited.
 	 * Should not be called if camera may be inside the chunk!
 	 */
-	private void hideInteriorClosedPositions() {
-		for (int i = 0; i < INTERIOR_STATE_COUNT; i++) {
-			final long mask = (1L << (i & 63));
-			final int wordIndex = (i >> 6);
-			final int x = i & 0xF;
-			final int y = (i >> 4) & 0xF;
-			final int z = (i >> 8) & 0xF;
-
-			if ((bits[wordIndex + EXTERIOR_VISIBLE_OFFSET] & mask) == 0 && x != 0 && y != 0 && z != 0 && x != 15 && y != 15 && z != 15) {
-				bits[wordIndex + RENDERABLE_OFFSET] &= ~mask;
-				// mark it opaque
-				bits[wordIndex] |= mask;
-			}
+	private void hideUnreachablePositions() {
+		for (int i = 0; i < INTERIOR_CACHE_WORDS; i++) {
+			final long visible = bits[i + EXTERIOR_VISIBLE_OFFSET];
+			bits[i + RENDERABLE_OFFSET] &= visible;
+			// mark it opaque
+			bits[i] |= ~visible;
 		}
 	}
 
@@ -553,6 +589,48 @@ public abstract class RegionOcclusionCalculator {
 		maxRenderableZ = maxZ < minZ ? minZ : maxZ;
 	}
 
+	/**
+	 * Bounds found by {@link #computeRenderableBounds()} as a packed box,
+	 * or {@link PackedBox#EMPTY_BOX} if no positions are renderable.
+	 */
+	private int renderableBounds() {
+		// X and Y bounds come from bit scans that give out-of-range values when empty, but Z is explicit
+		if (minRenderableZ == Integer.MAX_VALUE) {
+			return PackedBox.EMPTY_BOX;
+		} else if ((minRenderableX | minRenderableY | minRenderableZ) == 0 && (maxRenderableX & maxRenderableY & maxRenderableZ) == 15) {
+			return PackedBox.FULL_BOX;
+		} else {
+			return PackedBox.pack(minRenderableX, minRenderableY, minRenderableZ,
+					maxRenderableX + 1, maxRenderableY + 1, maxRenderableZ + 1, PackedBox.RANGE_EXTREME);
+		}
+	}
+
+	/**
+	 * Regions with no open interior positions occlude their full volume, but only surface positions
+	 * not covered by adjacent regions are renderable. That is often a small part of the region,
+	 * or none of it when deep underground, so bounds are computed to allow culling.
+	 */
+	private OcclusionResult computeSealedOcclusion() {
+		adjustSurfaceVisibility();
+		computeRenderableBounds();
+		final int bounds = renderableBounds();
+
+		if (bounds == PackedBox.FULL_BOX) {
+			return FULL_OCCLUSION_RESULT;
+		} else if (bounds == PackedBox.EMPTY_BOX) {
+			return BURIED_OCCLUSION_RESULT;
+		} else {
+			return new OcclusionResult(new int[] {bounds, PackedBox.FULL_BOX}, 0L);
+		}
+	}
+
+	/**
+	 * True for results of regions that occlude their full volume, regardless of renderable bounds.
+	 */
+	public static boolean isSealed(int[] occlusionData) {
+		return occlusionData != null && occlusionData.length == 2 && occlusionData[OCCLUSION_RESULT_FIRST_BOX_INDEX] == PackedBox.FULL_BOX;
+	}
+
 	private void visitSurfaceIfPossible(int index) {
 		if (setVisited(index)) {
 			fill(index);
@@ -564,7 +642,7 @@ public abstract class RegionOcclusionCalculator {
 		// that aren't occluded by neighboring regions and doing a fill from there.
 		long mutualFaceMask = 0;
 
-		if (Pipeline.advancedTerrainCulling()) {
+		if (advancedCulling) {
 			for (int i = 0; i < COVERING_INDEX_COUNT; ++i) {
 				if (!isClosed(COVERING_INDEXES[i])) {
 					visitSurfaceIfPossible(COVERED_INDEXES[i]);
@@ -593,10 +671,10 @@ public abstract class RegionOcclusionCalculator {
 			}
 		}
 
-		if (Pipeline.advancedTerrainCulling()) {
+		if (advancedCulling) {
 			// don't hide inside position if we may be inside the chunk!
 			if (!isNear) {
-				hideInteriorClosedPositions();
+				hideUnreachablePositions();
 			}
 
 			computeRenderableBounds();
@@ -618,16 +696,7 @@ public abstract class RegionOcclusionCalculator {
 				}
 			}
 
-			if (minRenderableX == Integer.MAX_VALUE) {
-				result[OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] = PackedBox.EMPTY_BOX;
-			} else {
-				if ((minRenderableX | minRenderableY | minRenderableZ) == 0 && (maxRenderableX & maxRenderableY & maxRenderableZ) == 15) {
-					result[OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] = PackedBox.FULL_BOX;
-				} else {
-					result[OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] = PackedBox.pack(minRenderableX, minRenderableY, minRenderableZ,
-							maxRenderableX + 1, maxRenderableY + 1, maxRenderableZ + 1, PackedBox.RANGE_EXTREME);
-				}
-			}
+			result[OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] = renderableBounds();
 
 			return new OcclusionResult(result, 0L);
 		} else {
@@ -635,26 +704,53 @@ public abstract class RegionOcclusionCalculator {
 		}
 	}
 
+	/**
+	 * Result arrays may be shared with other regions and must not be modified.
+	 */
 	public OcclusionResult build(boolean isNear) {
+		return build(isNear, Pipeline.advancedTerrainCulling());
+	}
+
+	/** Takes culling mode explicitly so tests and benchmarks don't depend on pipeline state. */
+	public OcclusionResult build(boolean isNear, boolean advancedCulling) {
+		this.advancedCulling = advancedCulling;
+
 		if (openCount == 0) {
 			// If there are no open interior positions then only surface blocks can be visible,
 			// and only if they not covered by positions in adjacent sections.
+			return computeSealedOcclusion();
+		} else if (resultCache == null) {
+			return computeOcclusion(isNear);
+		} else {
+			return computeOcclusionCached(isNear);
+		}
+	}
+
+	/**
+	 * Output depends only on closed and renderable bits and on culling mode, and many regions
+	 * (open air, ocean, flat worlds, uniform underground) share identical bits. On a hit the
+	 * cached output bits are copied back so that {@link #shouldRender(int)} and {@link #isClosed(int)}
+	 * give the same answers as after a computed result.
+	 */
+	private OcclusionResult computeOcclusionCached(boolean isNear) {
+		final int flags = advancedCulling
+				? (isNear ? OcclusionResultCache.FLAG_ADVANCED_CULLING | OcclusionResultCache.FLAG_NEAR : OcclusionResultCache.FLAG_ADVANCED_CULLING)
+				: 0;
 
-			// PERF: should do this after hiding interior closed positions?
-			// PERF: should still compute render box instead of assuming it is full
-			//       because the only visible/renderable area could be quite small because of
-			//       adjacent regions occluding most of this region
-			adjustSurfaceVisibility();
+		final long hash = OcclusionResultCache.hash(bits, flags);
+		OcclusionResult result = resultCache.get(hash, flags, bits);
 
-			final int[] result = new int[2];
-			result[OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] = PackedBox.FULL_BOX;
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.recordOcclusionLookup(result != null);
+		}
 
-			// entire region acts as an occluder
-			result[OCCLUSION_RESULT_FIRST_BOX_INDEX] = PackedBox.FULL_BOX;
-			return new OcclusionResult(result, 0L);
-		} else {
-			return computeOcclusion(isNear);
+		if (result == null) {
+			final long[] input = Arrays.copyOf(bits, OcclusionResultCache.KEY_WORD_COUNT);
+			result = computeOcclusion(isNear);
+			resultCache.put(hash, flags, input, bits, result);
 		}
+
+		return result;
 	}
 
 	private void fill(int xyz4) {
@@ -27,11 +27,11 @@ import static grondag.bitraster.Constants.SOUTH;
 import static grondag.bitraster.Constants.UP;
 import static grondag.bitraster.Constants.WEST;
 
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 import com.mojang.math.Matrix4f;
 import com.mojang.math.Vector3f;
-import com.mojang.math.Vector4f;
 
 import net.minecraft.util.Mth;
 import net.minecraft.world.phys.Vec3;
@@ -48,6 +48,9 @@ import grondag.canvas.terrain.occlusion.base.AbstractOccluder;
 import grondag.canvas.terrain.region.RegionPosition;
 
 public class ShadowOccluder extends AbstractOccluder {
+	/** Cascade centers and radii, shadow view matrix elements, and max region extent. See {@link #cascadeVersion()}. */
+	private static final int CASCADE_INPUT_COUNT = 16 + 12 + 1;
+
 	private final Matrix4f shadowViewMatrix = new Matrix4f();
 	private final FastMatrix4f shadowViewMatrixExt = (FastMatrix4f) (Object) shadowViewMatrix;
 
@@ -56,8 +59,16 @@ public class ShadowOccluder extends AbstractOccluder {
 
 	private final Vector3f lastVersionedLightVector = new Vector3f();
 
+	private final float[] cascadeInputs = new float[CASCADE_INPUT_COUNT];
+	private final float[] lastCascadeInputs = new float[CASCADE_INPUT_COUNT];
+	private int cascadeVersion;
+
 	private float maxRegionExtent;
 	private float r0, x0, y0, z0, r1, x1, y1, z1, r2, x2, y2, z2, r3, x3, y3, z3;
+
+	/** Shadow view matrix elements used to find region centers in light space. */
+	private float m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32;
+
 	private int cameraViewVersion;
 	private int shadowViewVersion;
 	private Vec3 lastCameraPos;
@@ -94,6 +105,21 @@ public class ShadowOccluder extends AbstractOccluder {
 		z3 = cascadeCentersAndRadii[14];
 		r3 = cascadeCentersAndRadii[15];
 
+		m00 = shadowViewMatrixExt.f_m00();
+		m10 = shadowViewMatrixExt.f_m10();
+		m20 = shadowViewMatrixExt.f_m20();
+		m30 = shadowViewMatrixExt.f_m30();
+		m01 = shadowViewMatrixExt.f_m01();
+		m11 = shadowViewMatrixExt.f_m11();
+		m21 = shadowViewMatrixExt.f_m21();
+		m31 = shadowViewMatrixExt.f_m31();
+		m02 = shadowViewMatrixExt.f_m02();
+		m12 = shadowViewMatrixExt.f_m12();
+		m22 = shadowViewMatrixExt.f_m22();
+		m32 = shadowViewMatrixExt.f_m32();
+
+		updateCascadeVersion(cascadeCentersAndRadii);
+
 		boolean cameraStateChanged = cameraViewVersion != cameraFrustum.viewVersion();
 
 		if (cameraStateChanged) {
@@ -112,6 +138,38 @@ public class ShadowOccluder extends AbstractOccluder {
 		lastCameraPos = cameraFrustum.lastCameraPos();
 	}
 
+	private void updateCascadeVersion(float[] cascadeCentersAndRadii) {
+		final float[] inputs = cascadeInputs;
+		System.arraycopy(cascadeCentersAndRadii, 0, inputs, 0, 16);
+		inputs[16] = m00;
+		inputs[17] = m10;
+		inputs[18] = m20;
+		inputs[19] = m30;
+		inputs[20] = m01;
+		inputs[21] = m11;
+		inputs[22] = m21;
+		inputs[23] = m31;
+		inputs[24] = m02;
+		inputs[25] = m12;
+		inputs[26] = m22;
+		inputs[27] = m32;
+		inputs[28] = maxRegionExtent;
+
+		if (!Arrays.equals(inputs, lastCascadeInputs)) {
+			System.arraycopy(inputs, 0, lastCascadeInputs, 0, CASCADE_INPUT_COUNT);
+			++cascadeVersion;
+		}
+	}
+
+	/**
+	 * Changes when the result of {@link #cascade(RegionPosition)} may have changed for a region
+	 * at a fixed camera-relative position. Unlike the shadow view version, this tracks every change
+	 * in the inputs, so cascade assignment never lags the shadow maps.
+	 */
+	public int cascadeVersion() {
+		return cascadeVersion;
+	}
+
 	@Override
 	public void prepareRegion(RegionPosition origin) {
 		super.prepareRegion(origin.getX(), origin.getY(), origin.getZ(), PackedBox.RANGE_MID, origin.shadowDistanceRank());
@@ -135,13 +193,12 @@ public class ShadowOccluder extends AbstractOccluder {
 	 */
 	public int cascade(RegionPosition regionPosition) {
 		// Compute center position in light space
-		final Vector4f lightSpaceRegionCenter = new Vector4f();
-		lightSpaceRegionCenter.set(regionPosition.cameraRelativeCenterX(), regionPosition.cameraRelativeCenterY(), regionPosition.cameraRelativeCenterZ(), 1.0f);
-		lightSpaceRegionCenter.transform(ShadowMatrixData.shadowViewMatrix);
-
-		final float centerX = lightSpaceRegionCenter.x();
-		final float centerY = lightSpaceRegionCenter.y();
-		final float centerZ = lightSpaceRegionCenter.z();
+		final float rx = regionPosition.cameraRelativeCenterX();
+		final float ry = regionPosition.cameraRelativeCenterY();
+		final float rz = regionPosition.cameraRelativeCenterZ();
+		final float centerX = m00 * rx + m10 * ry + m20 * rz + m30;
+		final float centerY = m01 * rx + m11 * ry + m21 * rz + m31;
+		final float centerZ = m02 * rx + m12 * ry + m22 * rz + m32;
 		final float extent = maxRegionExtent;
 
 		// <= extent = at least partially in
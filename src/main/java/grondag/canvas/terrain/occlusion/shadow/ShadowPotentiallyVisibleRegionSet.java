@@ -153,6 +153,9 @@ public class ShadowPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 
 	private DistanceRankFunction distanceRankFunction = RANK_XYZ;
 
+	/** See {@link #rankVersion()}. */
+	private int rankVersion;
+
 	// Lightweight mutable vec3i alternative
 	private final int[] searcher = new int[3];
 
@@ -195,6 +198,10 @@ public class ShadowPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 	 * @param z z-axis component of light vector
 	 */
 	public void setLightVectorAndRestart(float x, float y, float z) {
+		final DistanceRankFunction lastRankFunction = distanceRankFunction;
+		final DirectionFunction lastXDir = xDir;
+		final DirectionFunction lastYDir = yDir;
+		final DirectionFunction lastZDir = zDir;
 		final float ax = Math.abs(x);
 		final float ay = Math.abs(y);
 		final float az = Math.abs(z);
@@ -261,6 +268,10 @@ public class ShadowPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 			}
 		}
 
+		if (distanceRankFunction != lastRankFunction || xDir != lastXDir || yDir != lastYDir || zDir != lastZDir) {
+			++rankVersion;
+		}
+
 		returnToStart();
 	}
 
@@ -279,9 +290,15 @@ public class ShadowPotentiallyVisibleRegionSet implements PotentiallyVisibleRegi
 	public void setCameraChunkOriginAndClear(int x, int z) {
 		xBase = RenderRegionIndexer.MAX_LOADED_CHUNK_RADIUS - (x >> 4);
 		zBase = RenderRegionIndexer.MAX_LOADED_CHUNK_RADIUS - (z >> 4);
+		++rankVersion;
 		clear();
 	}
 
+	/** Changes when the result of {@link #distanceRank(ShadowRegionVisibility)} may have changed for any region. */
+	public int rankVersion() {
+		return rankVersion;
+	}
+
 	@Override
 	public int version() {
 		return version;
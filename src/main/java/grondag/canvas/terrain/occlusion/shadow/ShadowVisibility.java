@@ -34,6 +34,10 @@ import grondag.canvas.terrain.region.RenderRegion;
 public class ShadowVisibility extends AbstractVisbility<ShadowVisibility, ShadowRegionVisibility, ShadowPotentiallyVisibleRegionSet, ShadowOccluder> {
 	public final ShadowOccluder targetOccluder = new ShadowOccluder("canvas_shadow_target_occlusion_raster.png");
 
+	private int regionVersion;
+	private int lastCascadeVersion = -1;
+	private int lastRankVersion = -1;
+
 	public ShadowVisibility(WorldRenderState worldRenderState) {
 		super(worldRenderState, new ShadowPotentiallyVisibleRegionSet(), new ShadowOccluder("canvas_shadow_occlusion_raster.png"));
 	}
@@ -64,9 +68,27 @@ public class ShadowVisibility extends AbstractVisbility<ShadowVisibility, Shadow
 		targetOccluder.copyState(frustum);
 		targetOccluder.setLightVector(ShaderDataManager.skyLightVector);
 
+		final int cascadeVersion = occluder.cascadeVersion();
+		final int rankVersion = pvrs.rankVersion();
+
+		if (lastCascadeVersion != cascadeVersion || lastRankVersion != rankVersion) {
+			lastCascadeVersion = cascadeVersion;
+			lastRankVersion = rankVersion;
+			++regionVersion;
+		}
+
 		super.updateView(frustum, cameraRegionOrigin);
 	}
 
+	/**
+	 * Changes when {@link #cascade(RegionPosition)} or {@link #distanceRank(RenderRegion)} may have
+	 * changed for regions whose camera-relative position has not. Lets region updates skip shadow
+	 * values that can't have changed.
+	 */
+	public int regionVersion() {
+		return regionVersion;
+	}
+
 	public int[] alignPrimerCircle(CircleUtil.Offset circleOffset, int sphereRadius) {
 		return pvrs.alignPrimerCircle(circleOffset, sphereRadius);
 	}
@@ -28,6 +28,7 @@ import org.jetbrains.annotations.Nullable;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.phys.Vec3;
 
+import grondag.canvas.buffer.format.TerrainEncoder;
 import grondag.canvas.buffer.input.DrawableVertexCollector;
 import grondag.canvas.buffer.input.VertexCollectorList;
 import grondag.canvas.material.state.TerrainRenderStates;
@@ -45,6 +46,14 @@ public class RegionBuildState {
 	@Nullable
 	int[] translucentState;
 
+	/**
+	 * Camera position used for the most recent translucency sort. Written off thread
+	 * and only read to schedule resorts, so a stale value just shifts when the next one happens.
+	 */
+	private double sortX = Double.NaN;
+	private double sortY = Double.NaN;
+	private double sortZ = Double.NaN;
+
 	public List<BlockEntity> getBlockEntities() {
 		return blockEntities;
 	}
@@ -59,9 +68,37 @@ public class RegionBuildState {
 		if (buffer != null && !buffer.isEmpty()) {
 			buffer.sortTerrainQuads(sortPos, sector);
 			translucentState = buffer.saveState(translucentState);
+			setSortPos(sortPos);
 		}
 	}
 
+	void setSortPos(Vec3 sortPos) {
+		sortX = sortPos.x;
+		sortY = sortPos.y;
+		sortZ = sortPos.z;
+	}
+
+	public double sortX() {
+		return sortX;
+	}
+
+	public double sortY() {
+		return sortY;
+	}
+
+	public double sortZ() {
+		return sortZ;
+	}
+
+	/**
+	 * Approximate number of quads a translucency resort would process,
+	 * or zero if there is nothing to sort.
+	 */
+	public int translucentQuadCount() {
+		final int[] state = translucentState;
+		return state == null ? 0 : state.length / TerrainEncoder.TERRAIN_MATERIAL.quadStrideInts;
+	}
+
 	public OcclusionResult getOcclusionResult() {
 		return occlusionResult;
 	}
@@ -21,23 +21,23 @@
 package grondag.canvas.terrain.region;
 
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.phys.Vec3;
 
 import grondag.bitraster.PackedBox;
 import grondag.canvas.pipeline.Pipeline;
-import grondag.canvas.render.frustum.TerrainFrustum.RegionVisibilityTest;
 import grondag.canvas.render.terrain.drawlist.DrawListCullingHelper;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.terrain.occlusion.TerrainIterator;
-import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
 
 public class RegionPosition extends BlockPos {
+	/** Never matches a batch view version, including the initial value before any update. */
+	private static final int NO_VIEW_VERSION = Integer.MIN_VALUE;
+
 	/** Region that holds this position as its origin. Provides access to world render state. */
 	private final RenderRegion owner;
 	private final WorldRenderState worldRenderState;
 	private final TerrainIterator terrainIterator;
 	private final DrawListCullingHelper cullingHelper;
-	private final RegionVisibilityTest cameraFrustumTest;
+	private final RegionVisibilityBatch visibilityBatch;
 
 	private final long packed;
 
@@ -47,19 +47,15 @@ public class RegionPosition extends BlockPos {
 	 */
 	private final int chunkY;
 
-	private long cameraRegionOrigin = -1;
+	/** Index of this region's column and row in {@link RegionVisibilityBatch}. */
+	private final int batchColumn;
+	private final int batchRow;
+	private final int batchRegionIndex;
 
-	/** Tracks the version of the camera occluder view transform to know when we must recompute dependent values. */
-	private int cameraFrustumViewVersion = -1;
+	private long cameraRegionOrigin = -1;
 
-	/**
-	 * Tracks the version of the camera occluder position to know when we must recompute dependent values.
-	 * The occlusion position is much more sensitive and changes more frequently than {@link #chunkDistVersion}.
-	 *
-	 * <p>Position cannot change without view also changing, so there is no need to check this unless
-	 * {@link #cameraFrustumViewVersion} has changed.
-	 */
-	private int cameraFrustumPositionVersion = -1;
+	/** Batch view version when {@link #forceCameraPotentialVisibility()} was last called. */
+	private int forcedVisibilityViewVersion = NO_VIEW_VERSION;
 
 	/** See {@link #occlusionRange()}. */
 	private int occlusionRange;
@@ -76,15 +72,8 @@ public class RegionPosition extends BlockPos {
 	/** See {@link #isInsideRenderDistance()}. */
 	private boolean isInsideRenderDistance;
 
-	/** Used by frustum tests. Will be current only if region is within render distance. */
-	private float cameraRelativeCenterX;
-	private float cameraRelativeCenterY;
-	private float cameraRelativeCenterZ;
-
-	private boolean isPotentiallyVisibleFromCamera;
-
-	/** See {@link #checkAndUpdateSortNeeded(int)}. */
-	private int sortPositionVersion = -1;
+	/** See {@link #sortWaitFrames()}. */
+	private int sortWaitFrames;
 
 	/** The smallest cascade on which this region can potentially cast a shadow. */
 	private int shadowCascade;
@@ -99,9 +88,12 @@ public class RegionPosition extends BlockPos {
 		worldRenderState = owner.worldRenderState;
 		terrainIterator = worldRenderState.terrainIterator;
 		cullingHelper = worldRenderState.drawListCullingHlper;
-		cameraFrustumTest = worldRenderState.terrainFrustum.visibilityTest;
+		visibilityBatch = worldRenderState.renderRegionStorage.visibilityBatch;
 
 		chunkY = getY() >> 4;
+		batchColumn = RenderRegionIndexer.chunkIndex(getX(), getZ());
+		batchRow = (getY() + RenderRegionIndexer.Y_BLOCKPOS_OFFSET) >> 4;
+		batchRegionIndex = RegionVisibilityBatch.regionIndex(batchColumn, batchRow);
 		packed = packedPos;
 	}
 
@@ -110,22 +102,15 @@ public class RegionPosition extends BlockPos {
 		return packed;
 	}
 
+	/**
+	 * Updates values that depend on the camera region and shadow state.
+	 * Frustum visibility and camera-relative centers are read from {@link RegionVisibilityBatch}
+	 * on demand, so camera rotation and movement within a region need no update here.
+	 * See {@link RenderRegionStorage#updateRegionPositionAndVisibility()} for when this is called.
+	 */
 	public void update() {
 		computeRegionDependentValues();
-		computeViewDependentValues();
-
-		if (owner.worldRenderState.shadowsEnabled()) {
-			if (isInsideRenderDistance) {
-				// PERF: pointer chase hell
-				shadowCascade = terrainIterator.shadowVisibility.cascade(this);
-				shadowDistanceRank = shadowCascade == -1 ? -1 : terrainIterator.shadowVisibility.distanceRank(owner);
-			} else {
-				shadowCascade = -1;
-				shadowDistanceRank = -1;
-			}
-		} else {
-			shadowCascade = -1;
-		}
+		updateShadowValues();
 	}
 
 	private void computeRegionDependentValues() {
@@ -140,36 +125,23 @@ public class RegionPosition extends BlockPos {
 			// Based on trial-and-error
 			fuzz = squaredCameraChunkDistance >= 7 * 7 ? 1 : 0;
 			occlusionRange = PackedBox.rangeFromSquareChunkDist(squaredCameraChunkDistance);
+			// Depends only on camera region
+			visibleFaceFlags = cullingHelper.computeVisibleFaceFlags(packed);
 		}
 	}
 
-	private void computeViewDependentValues() {
-		final CameraVisibility cameraPVS = terrainIterator.cameraVisibility;
-		final int frustumViewVersion = cameraPVS.frustumViewVersion();
-
-		if (cameraFrustumViewVersion != frustumViewVersion) {
-			cameraFrustumViewVersion = frustumViewVersion;
-			visibleFaceFlags = cullingHelper.computeVisibleFaceFlags(packed);
-
-			final int frustumPositionVersion = cameraPVS.frustumPositionVersion();
-
-			// These checks depend on the camera occluder position version,
-			// which may not necessarily change when view version change.
-			if (cameraFrustumPositionVersion != frustumPositionVersion) {
-				cameraFrustumPositionVersion = frustumPositionVersion;
-
-				// These are needed by frustum tests, which happen below, after this update.
-				// not needed at all if outside of render distance
-				if (isInsideRenderDistance) {
-					final Vec3 cameraPos = cameraPVS.frustumCameraPos();
-					cameraRelativeCenterX = (float) (getX() + 8 - cameraPos.x);
-					cameraRelativeCenterY = (float) (getY() + 8 - cameraPos.y);
-					cameraRelativeCenterZ = (float) (getZ() + 8 - cameraPos.z);
-				}
+	/** Cascade and rank depend on camera-relative center, so they must also be updated when the camera moves. */
+	void updateShadowValues() {
+		if (owner.worldRenderState.shadowsEnabled()) {
+			if (isInsideRenderDistance) {
+				shadowCascade = terrainIterator.shadowVisibility.cascade(this);
+				shadowDistanceRank = shadowCascade == -1 ? -1 : terrainIterator.shadowVisibility.distanceRank(owner);
+			} else {
+				shadowCascade = -1;
+				shadowDistanceRank = -1;
 			}
-
-			//  PERF: implement hierarchical tests with propagation of per-plane inside test results
-			isPotentiallyVisibleFromCamera = isInsideRenderDistance && cameraFrustumTest.isVisible(this);
+		} else {
+			shadowCascade = -1;
 		}
 	}
 
@@ -186,10 +158,8 @@ public class RegionPosition extends BlockPos {
 	public void close() {
 		isInsideRenderDistance = false;
 		isNear = false;
-		cameraFrustumPositionVersion = -1;
-		cameraFrustumViewVersion = -1;
 		cameraRegionOrigin = -1;
-		isPotentiallyVisibleFromCamera = false;
+		forcedVisibilityViewVersion = NO_VIEW_VERSION;
 	}
 
 	/**
@@ -221,20 +191,19 @@ public class RegionPosition extends BlockPos {
 	/**
 	 * True when region is within render distance and also within the camera frustum.
 	 *
-	 * <p>NB: tried a crude hierarchical scheme of checking chunk columns first
-	 * but didn't pay off.  Would probably  need to propagate per-plane results
-	 * over a more efficient region but that might not even help. Is already
-	 * quite fast and typically only one or a few regions per chunk must be tested.
+	 * <p>Frustum tests are done in bulk for all loaded regions. See {@link RegionVisibilityBatch}.
 	 */
 	public boolean isPotentiallyVisibleFromCamera() {
-		return isPotentiallyVisibleFromCamera;
+		final RegionVisibilityBatch visibilityBatch = this.visibilityBatch;
+		return (isInsideRenderDistance && visibilityBatch.isInFrustum(batchRegionIndex)) || forcedVisibilityViewVersion == visibilityBatch.viewVersion();
 	}
 
 	/**
 	 * Called for camera region because frustum checks on near plane appear to be a little wobbly.
+	 * Lasts until the frustum view changes.
 	 */
 	public void forceCameraPotentialVisibility() {
-		isPotentiallyVisibleFromCamera = true;
+		forcedVisibilityViewVersion = visibilityBatch.viewVersion();
 	}
 
 	/**
@@ -255,33 +224,30 @@ public class RegionPosition extends BlockPos {
 	}
 
 	public float cameraRelativeCenterX() {
-		return cameraRelativeCenterX;
+		return visibilityBatch.columnCenterX(batchColumn);
 	}
 
 	public float cameraRelativeCenterY() {
-		return cameraRelativeCenterY;
+		return visibilityBatch.rowCenterY(batchRow);
 	}
 
 	public float cameraRelativeCenterZ() {
-		return cameraRelativeCenterZ;
+		return visibilityBatch.columnCenterZ(batchColumn);
 	}
 
 	/**
-	 * Tracks the given sort counter and returns true when the input value was different.
-	 * Used to identify regions that require a translucency resort.
-	 * The sort version is incremented elsewhere based on camera movement.
+	 * Frames this region has needed a translucency resort without being scheduled.
+	 * Used by the resort scheduler to keep regions from being starved.
 	 *
 	 * <p>Here because it is nominally related to position even if not related
-	 * to other feature of this class. (It has to live somewhere.) Future optimizations
-	 * might make more use of region-specific position information.
+	 * to other feature of this class. (It has to live somewhere.)
 	 */
-	public boolean checkAndUpdateSortNeeded(int sortPositionVersion) {
-		if (this.sortPositionVersion == sortPositionVersion) {
-			return false;
-		} else {
-			this.sortPositionVersion = sortPositionVersion;
-			return true;
-		}
+	public int sortWaitFrames() {
+		return sortWaitFrames;
+	}
+
+	public void setSortWaitFrames(int sortWaitFrames) {
+		this.sortWaitFrames = sortWaitFrames;
 	}
 
 	/** For debugging. */
@@ -324,6 +290,6 @@ public class RegionPosition extends BlockPos {
 
 	public boolean isFrontFacing(int fromSquaredDistance) {
 		assert Pipeline.advancedTerrainCulling();
-		return isPotentiallyVisibleFromCamera && squaredCameraChunkDistance >= fromSquaredDistance || isNear;
+		return isPotentiallyVisibleFromCamera() && squaredCameraChunkDistance >= fromSquaredDistance || isNear;
 	}
 }
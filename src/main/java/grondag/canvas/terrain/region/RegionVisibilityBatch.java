@@ -0,0 +1,188 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region;
+
+import grondag.canvas.render.frustum.CanvasFrustum;
+
+/**
+ * Structure-of-arrays mirror of loaded chunk columns used to test every loaded region against
+ * the camera frustum in one pass, without visiting region objects. Regions in a column share
+ * x and z, regions in the same row share y, and all regions have the same extent, so centers are
+ * kept per column and per row instead of per region.
+ *
+ * <p>Frustum tests are hierarchical: clusters of 4x4 columns, then columns, then regions.
+ * Each level only tests planes its parent straddles. Region rows are tested in branch-free loops.
+ *
+ * <p>Columns are added and removed as chunks open and close. Results are read without locking
+ * and are indexed by chunk index and row, which don't change while a region is loaded.
+ */
+final class RegionVisibilityBatch {
+	static final int COLUMN_COUNT = RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT;
+	static final int ROW_COUNT = RenderRegionIndexer.MAX_Y_REGIONS;
+
+	/** Block y coordinate at the center of the region address space, used for column frustum tests. */
+	static final float COLUMN_CENTER_Y = ROW_COUNT * 8 - RenderRegionIndexer.Y_BLOCKPOS_OFFSET;
+	static final float COLUMN_HALF_HEIGHT = ROW_COUNT * 8;
+
+	/** Chunk columns per axis in a frustum culling cluster. */
+	static final int CLUSTER_DIAMETER = 4;
+	static final int CLUSTER_DIAMETER_BITS = 2;
+	static final int CLUSTER_AXIS_COUNT = RenderRegionIndexer.PADDED_CHUNK_DIAMETER / CLUSTER_DIAMETER;
+	private static final int CLUSTER_AXIS_BITS = RenderRegionIndexer.CHUNK_DIAMETER_BITS - CLUSTER_DIAMETER_BITS;
+	private static final int CHUNK_AXIS_MASK = RenderRegionIndexer.PADDED_CHUNK_DIAMETER - 1;
+
+	/** Added to chunk coordinates in {@link RenderRegionIndexer#chunkIndex(int, int)}. */
+	private static final int CHUNK_INDEX_OFFSET = 30000000 >> 4;
+
+	private final int[] columnChunkX = new int[COLUMN_COUNT];
+	private final int[] columnChunkZ = new int[COLUMN_COUNT];
+	private final boolean[] isColumnLoaded = new boolean[COLUMN_COUNT];
+	private final float[] columnCenterX = new float[COLUMN_COUNT];
+	private final float[] columnCenterZ = new float[COLUMN_COUNT];
+	private final float[] rowCenterY = new float[ROW_COUNT];
+
+	/** Frustum planes that intersect each cluster, indexed by cluster x | z << {@link #CLUSTER_AXIS_BITS}. */
+	private final int[] clusterPlaneMasks = new int[CLUSTER_AXIS_COUNT * CLUSTER_AXIS_COUNT];
+
+	private final boolean[] isInFrustum = new boolean[COLUMN_COUNT * ROW_COUNT];
+
+	private CanvasFrustum frustum;
+	private int viewVersion = -1;
+	private double cameraX;
+	private double cameraY;
+	private double cameraZ;
+
+	static int regionIndex(int columnIndex, int rowIndex) {
+		return columnIndex * ROW_COUNT + rowIndex;
+	}
+
+	/** Tests the column immediately if a frustum is available so new regions have current results. */
+	synchronized void loadColumn(int columnIndex, int chunkX, int chunkZ) {
+		columnChunkX[columnIndex] = chunkX;
+		columnChunkZ[columnIndex] = chunkZ;
+		isColumnLoaded[columnIndex] = true;
+
+		if (frustum != null) {
+			updateColumn(columnIndex);
+		}
+	}
+
+	synchronized void unloadColumn(int columnIndex) {
+		isColumnLoaded[columnIndex] = false;
+	}
+
+	/**
+	 * Recomputes centers and frustum results for every loaded column.
+	 * Call when the frustum view changes.
+	 *
+	 * @param viewVersion frustum view version the results will be current for, see {@link #viewVersion()}
+	 */
+	synchronized void update(CanvasFrustum frustum, int viewVersion, double cameraX, double cameraY, double cameraZ) {
+		this.frustum = frustum;
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+		this.cameraZ = cameraZ;
+
+		for (int i = 0; i < ROW_COUNT; ++i) {
+			rowCenterY[i] = (float) ((i << 4) - RenderRegionIndexer.Y_BLOCKPOS_OFFSET + 8 - cameraY);
+		}
+
+		computeClusterPlaneMasks();
+
+		for (int i = 0; i < COLUMN_COUNT; ++i) {
+			if (isColumnLoaded[i]) {
+				updateColumn(i);
+			}
+		}
+
+		this.viewVersion = viewVersion;
+	}
+
+	/**
+	 * Regions compare this to their last seen version instead of the camera's, because regions
+	 * can be created on other threads after the camera view changes but before this is updated.
+	 */
+	int viewVersion() {
+		return viewVersion;
+	}
+
+	/**
+	 * The chunk array wraps, so each cluster is placed at the world position nearest the camera
+	 * that maps to its index range. Every column inside render distance is at that position.
+	 * Columns farther out may not be, but can't be visible, so their results don't matter.
+	 */
+	private void computeClusterPlaneMasks() {
+		final int cameraChunkX = ((int) Math.floor(cameraX)) >> 4;
+		final int cameraChunkZ = ((int) Math.floor(cameraZ)) >> 4;
+		final float cy = (float) (COLUMN_CENTER_Y - cameraY);
+		final float halfWidth = CLUSTER_DIAMETER * 8;
+
+		for (int z = 0; z < CLUSTER_AXIS_COUNT; ++z) {
+			final float cz = (float) ((clusterOriginChunk(z, cameraChunkZ) << 4) + halfWidth - cameraZ);
+
+			for (int x = 0; x < CLUSTER_AXIS_COUNT; ++x) {
+				final float cx = (float) ((clusterOriginChunk(x, cameraChunkX) << 4) + halfWidth - cameraX);
+				clusterPlaneMasks[x | (z << CLUSTER_AXIS_BITS)] = frustum.intersectPlanes(cx, cy, cz, halfWidth, COLUMN_HALF_HEIGHT, halfWidth, CanvasFrustum.ALL_PLANES);
+			}
+		}
+	}
+
+	private void updateColumn(int columnIndex) {
+		final float cx = (float) ((columnChunkX[columnIndex] << 4) + 8 - cameraX);
+		final float cz = (float) ((columnChunkZ[columnIndex] << 4) + 8 - cameraZ);
+		columnCenterX[columnIndex] = cx;
+		columnCenterZ[columnIndex] = cz;
+
+		final int clusterIndex = ((columnIndex & CHUNK_AXIS_MASK) >> CLUSTER_DIAMETER_BITS)
+				| ((columnIndex >> (RenderRegionIndexer.CHUNK_DIAMETER_BITS + CLUSTER_DIAMETER_BITS)) << CLUSTER_AXIS_BITS);
+
+		int planeMask = clusterPlaneMasks[clusterIndex];
+
+		if (planeMask != CanvasFrustum.OUTSIDE && planeMask != 0) {
+			planeMask = frustum.intersectPlanes(cx, (float) (COLUMN_CENTER_Y - cameraY), cz, 8, COLUMN_HALF_HEIGHT, 8, planeMask);
+		}
+
+		frustum.testRegionColumn(cx, cz, rowCenterY, ROW_COUNT, planeMask, isInFrustum, regionIndex(columnIndex, 0));
+	}
+
+	/** Chunk coordinate on one axis of the cluster origin nearest the camera. */
+	static int clusterOriginChunk(int clusterAxisIndex, int cameraChunk) {
+		final int cameraIndex = (cameraChunk + CHUNK_INDEX_OFFSET) & CHUNK_AXIS_MASK;
+		final int offset = (((clusterAxisIndex << CLUSTER_DIAMETER_BITS) - cameraIndex + 64) & CHUNK_AXIS_MASK) - 64;
+		return cameraChunk + offset;
+	}
+
+	boolean isInFrustum(int regionIndex) {
+		return isInFrustum[regionIndex];
+	}
+
+	float columnCenterX(int columnIndex) {
+		return columnCenterX[columnIndex];
+	}
+
+	float columnCenterZ(int columnIndex) {
+		return columnCenterZ[columnIndex];
+	}
+
+	float rowCenterY(int rowIndex) {
+		return rowCenterY[rowIndex];
+	}
+}
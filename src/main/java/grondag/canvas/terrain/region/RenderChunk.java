@@ -20,6 +20,8 @@
 
 package grondag.canvas.terrain.region;
 
+import java.util.List;
+
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.client.multiplayer.ClientLevel;
@@ -51,6 +53,8 @@ public class RenderChunk {
 		areCornersLoadedCache = false;
 		cameraRegionOrigin = -1;
 		computeChunkDistanceMetrics();
+		worldRenderState.renderRegionStorage.visibilityBatch.loadColumn(RenderRegionIndexer.chunkIndex(chunkX << 4, chunkZ << 4), chunkX, chunkZ);
+		worldRenderState.renderRegionStorage.trackChunkOpened(this);
 	}
 
 	public synchronized void close() {
@@ -62,6 +66,7 @@ public class RenderChunk {
 			}
 
 			regions = null;
+			worldRenderState.renderRegionStorage.visibilityBatch.unloadColumn(RenderRegionIndexer.chunkIndex(chunkX << 4, chunkZ << 4));
 		}
 	}
 
@@ -82,10 +87,15 @@ public class RenderChunk {
 		return result;
 	}
 
-	synchronized void updatePositionAndVisibility() {
+	/**
+	 * @param inRangeRegions receives regions inside render distance
+	 * @return number of regions updated
+	 */
+	synchronized int updatePositionAndVisibility(List<RenderRegion> inRangeRegions) {
 		computeChunkDistanceMetrics();
 
 		final RenderRegion[] regions = this.regions;
+		int count = 0;
 
 		if (regions != null) {
 			for (int i = 0; i < RenderRegionIndexer.MAX_Y_REGIONS; ++i) {
@@ -93,12 +103,31 @@ public class RenderChunk {
 
 				if (r != null) {
 					r.origin.update();
+					++count;
+
+					if (r.origin.isInsideRenderDistance()) {
+						inRangeRegions.add(r);
+					}
 				}
 			}
 
-			if (horizontalSquaredDistance > worldRenderState.maxSquaredChunkRetentionDistance()) {
-				worldRenderState.renderRegionStorage.scheduleClose(this);
-			}
+			scheduleCloseIfNotRetained();
+		}
+
+		return count;
+	}
+
+	/** Retention check for chunks opened since the last sweep of all chunks. */
+	synchronized void checkRetention() {
+		if (regions != null) {
+			computeChunkDistanceMetrics();
+			scheduleCloseIfNotRetained();
+		}
+	}
+
+	private void scheduleCloseIfNotRetained() {
+		if (horizontalSquaredDistance > worldRenderState.maxSquaredChunkRetentionDistance()) {
+			worldRenderState.renderRegionStorage.scheduleClose(this);
 		}
 	}
 
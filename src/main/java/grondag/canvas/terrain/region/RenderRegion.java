@@ -127,6 +127,7 @@ public class RenderRegion implements TerrainExecutorTask {
 		cameraVisibility = worldRenderState.terrainIterator.cameraVisibility.createRegionState(this);
 		shadowVisibility = worldRenderState.terrainIterator.shadowVisibility.createRegionState(this);
 		origin.update();
+		storage.trackRegionCreated(this);
 	}
 
 	private static <E extends BlockEntity> void addBlockEntity(List<BlockEntity> chunkEntities, Set<BlockEntity> globalEntities, E blockEntity) {
@@ -206,6 +207,9 @@ public class RenderRegion implements TerrainExecutorTask {
 		// Idle region is signal to reschedule
 		// If region is something other than idle, we are already in the queue
 		// and we only need to update the input protoRegion (which we do here.)
+		// Regions with a known result still go through the queue, because a worker
+		// may be inside a build for this region even when the input state is idle.
+		// The worker applies the known result without building.
 		if (inputState.getAndSet(region) == SignalInputRegion.IDLE) {
 			TerrainExecutor.INSTANCE.execute(this);
 		}
@@ -214,24 +218,22 @@ public class RenderRegion implements TerrainExecutorTask {
 	}
 
 	/**
-	 * Schedules a resort of this region if all of the following are true.
-	 * 1) region has translucency
-	 * 2) region sort version doesn't match the input version
-	 * 3) resort isn't already scheduled for this region
-	 *
-	 * <p>If a resort is already scheduled then the region sort version is
-	 * updated to match the input version.
+	 * True if this region has translucency and no build or resort is pending.
+	 * Regions that fail this check are not offered to the resort scheduler.
+	 */
+	public boolean canScheduleSort() {
+		return buildState.get().translucentState != null && inputState.get() == SignalInputRegion.IDLE;
+	}
+
+	/**
+	 * Schedules a resort of this region if it has translucency and
+	 * a resort or rebuild isn't already scheduled.
 	 *
-	 * @param sortPositionVersion The most recent position version counter - for comparision.
 	 * @return true if a resort was scheduled
 	 */
-	public boolean scheduleSort(int sortPositionVersion) {
+	public boolean scheduleSort() {
 		final RegionBuildState regionData = buildState.get();
 
-		if (!origin.checkAndUpdateSortNeeded(sortPositionVersion)) {
-			return false;
-		}
-
 		if (regionData.translucentState != null && inputState.compareAndSet(SignalInputRegion.IDLE, SignalInputRegion.RESORT_ONLY)) {
 			// null means need to reschedule, otherwise was already scheduled for either
 			// resort or rebuild, or is invalid, not ready to be built.
@@ -257,6 +259,44 @@ public class RenderRegion implements TerrainExecutorTask {
 		shadowVisibility.notifyOfOcclusionChange();
 	}
 
+	/** True for inputs classified at capture as having no geometry and a known occlusion result. */
+	private static boolean isPrebuilt(PackedInputRegion protoRegion) {
+		return protoRegion == SignalInputRegion.EMPTY || protoRegion == SignalInputRegion.BURIED;
+	}
+
+	/**
+	 * Sets the shared occlusion result for a region that needs no build and drops any
+	 * no-culling block entities from the prior build. Geometry from the prior build must
+	 * be released separately on the render thread.
+	 */
+	private void applyPrebuiltResult(PackedInputRegion protoRegion) {
+		final RegionBuildState newBuildState = new RegionBuildState();
+		newBuildState.setOcclusionResult(protoRegion == SignalInputRegion.BURIED ? RegionOcclusionCalculator.BURIED_OCCLUSION_RESULT : RegionOcclusionCalculator.EMPTY_OCCLUSION_RESULT);
+
+		// don't rebuild occlusion if occlusion did not change
+		final RegionBuildState oldBuildState = buildState.getAndSet(newBuildState);
+
+		if (oldBuildState == RegionBuildState.UNBUILT || !Arrays.equals(newBuildState.occlusionResult.occlusionData(), oldBuildState.occlusionResult.occlusionData())) {
+			// Even if empty the chunk may still be needed for visibility search to progress
+			notifyOcclusionChange();
+		}
+
+		if (!localNoCullingBlockEntities.isEmpty()) {
+			worldRenderState.cwr.updateNoCullingBlockEntities(new ObjectOpenHashSet<>(localNoCullingBlockEntities), new ObjectOpenHashSet<>());
+			localNoCullingBlockEntities.clear();
+		}
+	}
+
+	private void releaseGeometry() {
+		assert RenderSystem.isOnRenderThread();
+
+		if (solidDrawable != DrawableRegion.EMPTY_DRAWABLE || translucentDrawable != DrawableRegion.EMPTY_DRAWABLE) {
+			releaseDrawables();
+			animationBits.clear();
+			worldRenderState.invalidateDrawLists();
+		}
+	}
+
 	@Override
 	public void run(CanvasTerrainRenderContext context) {
 		final AtomicReference<PackedInputRegion> runningState = inputState;
@@ -266,16 +306,11 @@ public class RenderRegion implements TerrainExecutorTask {
 			return;
 		}
 
-		if (protoRegion == SignalInputRegion.EMPTY) {
-			final RegionBuildState chunkData = new RegionBuildState();
-			chunkData.setOcclusionResult(RegionOcclusionCalculator.EMPTY_OCCLUSION_RESULT);
+		if (isPrebuilt(protoRegion)) {
+			applyPrebuiltResult(protoRegion);
 
-			// don't rebuild occlusion if occlusion did not change
-			final RegionBuildState oldBuildData = buildState.getAndSet(chunkData);
-
-			if (oldBuildData == RegionBuildState.UNBUILT || !Arrays.equals(chunkData.occlusionResult.occlusionData(), oldBuildData.occlusionResult.occlusionData())) {
-				// Even if empty the chunk may still be needed for visibility search to progress
-				notifyOcclusionChange();
+			if (runningState.get() != SignalInputRegion.INVALID) {
+				renderRegionBuilder.scheduleUpload(this::releaseGeometry);
 			}
 
 			return;
@@ -310,7 +345,10 @@ public class RenderRegion implements TerrainExecutorTask {
 				final DrawableVertexCollector collector = collectors.get(TerrainRenderStates.TRANSLUCENT_TERRAIN);
 				collector.loadState(state);
 
-				if (collector.sortTerrainQuads(worldRenderState.sectorManager.cameraPos(), renderSector)) {
+				final Vec3 sortPos = worldRenderState.sectorManager.cameraPos();
+				regionData.setSortPos(sortPos);
+
+				if (collector.sortTerrainQuads(sortPos, renderSector)) {
 					regionData.translucentState = collector.saveState(state);
 
 					if (runningState.get() != SignalInputRegion.INVALID) {
@@ -510,17 +548,9 @@ public class RenderRegion implements TerrainExecutorTask {
 	public void rebuildOnMainThread() {
 		final PackedInputRegion inputRegion = PackedInputRegion.claim(worldRenderState.getWorld(), origin);
 
-		if (inputRegion == SignalInputRegion.EMPTY) {
-			final RegionBuildState newBuildState = new RegionBuildState();
-			newBuildState.setOcclusionResult(RegionOcclusionCalculator.EMPTY_OCCLUSION_RESULT);
-
-			// don't rebuild occlusion if occlusion did not change
-			final RegionBuildState oldBuildState = buildState.getAndSet(newBuildState);
-
-			if (oldBuildState == RegionBuildState.UNBUILT || !Arrays.equals(newBuildState.occlusionResult.occlusionData(), oldBuildState.occlusionResult.occlusionData())) {
-				// Even if empty the chunk may still be needed for visibility search to progress
-				notifyOcclusionChange();
-			}
+		if (isPrebuilt(inputRegion)) {
+			applyPrebuiltResult(inputRegion);
+			releaseGeometry();
 		} else {
 			final CanvasTerrainRenderContext context = renderRegionBuilder.mainThreadContext.prepareForRegion(inputRegion);
 			final RegionBuildState newBuildState = captureAndSetBuildState(context, origin.isNear());
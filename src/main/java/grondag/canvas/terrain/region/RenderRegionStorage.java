@@ -20,15 +20,20 @@
 
 package grondag.canvas.terrain.region;
 
+import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.Vec3;
 
+import grondag.canvas.perf.RegionUpdateCounters;
 import grondag.canvas.render.world.WorldRenderState;
 import grondag.canvas.terrain.occlusion.OcclusionStatus;
+import grondag.canvas.terrain.occlusion.camera.CameraVisibility;
 
 public class RenderRegionStorage {
 	private final AtomicInteger loadedRegionCount = new AtomicInteger();
@@ -38,6 +43,28 @@ public class RenderRegionStorage {
 	private final RenderChunk[] chunks = new RenderChunk[RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT];
 	private final ArrayBlockingQueue<RenderChunk> closeQueue = new ArrayBlockingQueue<>(RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT);
 
+	final RegionVisibilityBatch visibilityBatch = new RegionVisibilityBatch();
+
+	/** Regions inside render distance as of the last sweep. Shadow updates visit only these. */
+	private final ArrayList<RenderRegion> inRangeRegions = new ArrayList<>();
+
+	/** Regions created inside render distance since the last update, to be added to {@link #inRangeRegions}. */
+	private final ConcurrentLinkedQueue<RenderRegion> createdInRangeRegions = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Chunks opened since the last sweep. Retention of open chunks only changes with
+	 * the camera region or retention distance, which cause a sweep, so between sweeps
+	 * only these need a retention check.
+	 */
+	private final ConcurrentLinkedQueue<RenderChunk> openedChunks = new ConcurrentLinkedQueue<>();
+
+	// Set to improbable initial value to ensure a sweep runs first time
+	private long sweepCameraRegionOrigin = Long.MIN_VALUE;
+	private int sweepRetentionDistance;
+	private boolean sweepShadowsEnabled;
+	private int shadowRegionVersion;
+	private int shadowViewVersion;
+
 	public RenderRegionStorage(WorldRenderState worldRenderState) {
 		this.worldRenderState = worldRenderState;
 
@@ -68,10 +95,107 @@ public class RenderRegionStorage {
 		}
 	}
 
+	/**
+	 * Camera frustum tests for all loaded regions are done in bulk when the view changes.
+	 * Regions read those results on demand. See {@link RegionVisibilityBatch}.
+	 *
+	 * <p>Other region values are updated only when their inputs change. Distances change for every
+	 * region when the camera region changes, so that requires a sweep of all loaded regions.
+	 * Shadow cascades and ranks change with shadow state and camera position, but only matter
+	 * inside render distance, so those changes visit only regions in range.
+	 */
 	public void updateRegionPositionAndVisibility() {
-		for (int i = 0; i < RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT; ++i) {
-			chunks[i].updatePositionAndVisibility();
+		if (RegionUpdateCounters.ENABLED) {
+			RegionUpdateCounters.startPass();
+		}
+
+		final CameraVisibility cameraVisibility = worldRenderState.terrainIterator.cameraVisibility;
+		final int frustumViewVersion = cameraVisibility.frustumViewVersion();
+
+		if (visibilityBatch.viewVersion() != frustumViewVersion) {
+			final Vec3 cameraPos = cameraVisibility.frustumCameraPos();
+			visibilityBatch.update(worldRenderState.terrainFrustum, frustumViewVersion, cameraPos.x, cameraPos.y, cameraPos.z);
 		}
+
+		final long cameraRegionOrigin = worldRenderState.terrainIterator.cameraRegionOrigin();
+		final int retentionDistance = worldRenderState.maxSquaredChunkRetentionDistance();
+		final boolean shadowsEnabled = worldRenderState.shadowsEnabled();
+		final int shadowRegionVersion = shadowsEnabled ? worldRenderState.terrainIterator.shadowVisibility.regionVersion() : 0;
+		final int shadowViewVersion = visibilityBatch.viewVersion();
+		int regionCount = 0;
+		boolean isSweep = false;
+		boolean isShadowPass = false;
+
+		if (sweepCameraRegionOrigin != cameraRegionOrigin || sweepRetentionDistance != retentionDistance || sweepShadowsEnabled != shadowsEnabled) {
+			sweepCameraRegionOrigin = cameraRegionOrigin;
+			sweepRetentionDistance = retentionDistance;
+			sweepShadowsEnabled = shadowsEnabled;
+			createdInRangeRegions.clear();
+			openedChunks.clear();
+			inRangeRegions.clear();
+
+			for (int i = 0; i < RenderRegionIndexer.PADDED_CHUNK_INDEX_COUNT; ++i) {
+				regionCount += chunks[i].updatePositionAndVisibility(inRangeRegions);
+			}
+
+			isSweep = true;
+		} else {
+			RenderRegion created = createdInRangeRegions.poll();
+
+			while (created != null) {
+				inRangeRegions.add(created);
+				created = createdInRangeRegions.poll();
+			}
+
+			RenderChunk opened = openedChunks.poll();
+
+			while (opened != null) {
+				opened.checkRetention();
+				opened = openedChunks.poll();
+			}
+
+			if (shadowsEnabled && (this.shadowRegionVersion != shadowRegionVersion || this.shadowViewVersion != shadowViewVersion)) {
+				regionCount = updateInRangeShadowValues();
+				isShadowPass = true;
+			}
+		}
+
+		this.shadowRegionVersion = shadowRegionVersion;
+		this.shadowViewVersion = shadowViewVersion;
+
+		if (RegionUpdateCounters.ENABLED) {
+			RegionUpdateCounters.completePass(regionCount, isSweep, isShadowPass);
+		}
+	}
+
+	/** Also removes closed regions. */
+	private int updateInRangeShadowValues() {
+		final ArrayList<RenderRegion> regions = inRangeRegions;
+		final int limit = regions.size();
+		int count = 0;
+
+		for (int i = 0; i < limit; ++i) {
+			final RenderRegion r = regions.get(i);
+
+			if (!r.isClosed()) {
+				r.origin.updateShadowValues();
+				regions.set(count++, r);
+			}
+		}
+
+		regions.subList(count, limit).clear();
+		return count;
+	}
+
+	/** Called when a region is created between sweeps. */
+	void trackRegionCreated(RenderRegion region) {
+		if (region.origin.isInsideRenderDistance()) {
+			createdInRangeRegions.offer(region);
+		}
+	}
+
+	void trackChunkOpened(RenderChunk chunk) {
+		openedChunks.offer(chunk);
 	}
 
 	public int loadedRegionCount() {
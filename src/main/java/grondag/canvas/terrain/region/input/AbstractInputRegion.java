@@ -24,8 +24,9 @@ import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndex;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunk;
-import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 
 /**
  * Tries to prevent InputRegion from being unreadably big. Fails.
@@ -33,6 +34,9 @@ import net.minecraft.world.level.chunk.LevelChunkSection;
 public abstract class AbstractInputRegion {
 	// larger than needed to speed up indexing
 	protected final LevelChunk[] chunks = new LevelChunk[16];
+	/** Pinned section snapshots, null for sections with only air. Indexed by x + y * 3 + z * 9, 0-2 on each axis. */
+	@SuppressWarnings("unchecked")
+	protected final PalettedContainer<BlockState>[] sectionStates = new PalettedContainer[27];
 	protected int originX;
 	protected int originY;
 	protected int originZ;
@@ -54,15 +58,8 @@ public abstract class AbstractInputRegion {
 		return regionIndex(x - originX, y - originY, z - originZ);
 	}
 
-	protected LevelChunkSection getSection(int x, int y, int z) {
-		final int index = y + baseSectionIndex;
-
-		if (index < 0) {
-			return null;
-		}
-
-		final LevelChunkSection[] sections = chunks[x | (z << 2)].getSections();
-		return index >= sections.length ? null : sections[index];
+	protected PalettedContainer<BlockState> getSectionStates(int x, int y, int z) {
+		return sectionStates[x + y * 3 + z * 9];
 	}
 
 	protected LevelChunk getChunk(int cx, int cz) {
@@ -83,7 +83,7 @@ import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.lighting.LevelLightEngine;
 import net.minecraft.world.level.material.FluidState;
 
@@ -110,6 +110,7 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	protected final BlockPos.MutableBlockPos searchPos = new BlockPos.MutableBlockPos();
 	protected final Object[] renderData = new Object[INTERIOR_STATE_COUNT];
 	private final BlockState[] states = new BlockState[TOTAL_STATE_COUNT];
+	private final LightSnapshot light = new LightSnapshot();
 	public final ObjectArrayList<RenderRegionBakeListener> bakeListeners = new ObjectArrayList<>();
 
 	public final RegionOcclusionCalculator occlusion = new RegionOcclusionCalculator() {
@@ -141,6 +142,8 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		bakeListeners.addAll(packedRegion.bakeListenerContext.listeners);
 
 		System.arraycopy(packedRegion.chunks, 0, chunks, 0, 16);
+		System.arraycopy(packedRegion.sectionStates, 0, sectionStates, 0, 27);
+		light.copyFrom(packedRegion.light);
 		System.arraycopy(EMPTY_BLOCK_ENTITIES, 0, blockEntities, 0, INTERIOR_STATE_COUNT);
 		System.arraycopy(EMPTY_RENDER_DATA, 0, renderData, 0, INTERIOR_STATE_COUNT);
 		System.arraycopy(EMPTY_AO_CACHE, 0, aoCache, 0, TOTAL_STATE_COUNT);
@@ -156,12 +159,16 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		baseSectionIndex = packedRegion.baseSectionIndex;
 		chunkBaseZ = packedRegion.chunkBaseZ;
 
-		final var mainSection = getSection(1, 1, 1);
+		final PalettedContainer<BlockState> mainSection = getSectionStates(1, 1, 1);
 
-		for (int x = 0; x < 16; x++) {
-			for (int y = 0; y < 16; y++) {
-				for (int z = 0; z < 16; z++) {
-					states[interiorIndex(x, y, z)] = mainSection.getBlockState(x, y, z);
+		if (mainSection == null) {
+			Arrays.fill(states, 0, INTERIOR_STATE_COUNT, AIR);
+		} else {
+			for (int x = 0; x < 16; x++) {
+				for (int y = 0; y < 16; y++) {
+					for (int z = 0; z < 16; z++) {
+						states[interiorIndex(x, y, z)] = mainSection.get(x, y, z);
+					}
 				}
 			}
 		}
@@ -190,23 +197,23 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureFaces() {
-		final LevelChunkSection lowX = getSection(0, 1, 1);
-		captureFace(SIDE_INDEX_X0, lowX == null ? AIR_FUNCTION : (i, j, k) -> lowX.getBlockState(14 + k, i, j));
+		final PalettedContainer<BlockState> lowX = getSectionStates(0, 1, 1);
+		captureFace(SIDE_INDEX_X0, lowX == null ? AIR_FUNCTION : (i, j, k) -> lowX.get(14 + k, i, j));
 
-		final LevelChunkSection highX = getSection(2, 1, 1);
-		captureFace(SIDE_INDEX_X2, highX == null ? AIR_FUNCTION : (i, j, k) -> highX.getBlockState(k, i, j));
+		final PalettedContainer<BlockState> highX = getSectionStates(2, 1, 1);
+		captureFace(SIDE_INDEX_X2, highX == null ? AIR_FUNCTION : (i, j, k) -> highX.get(k, i, j));
 
-		final LevelChunkSection lowZ = getSection(1, 1, 0);
-		captureFace(SIDE_INDEX_Z0, lowZ == null ? AIR_FUNCTION : (i, j, k) -> lowZ.getBlockState(i, j, 14 + k));
+		final PalettedContainer<BlockState> lowZ = getSectionStates(1, 1, 0);
+		captureFace(SIDE_INDEX_Z0, lowZ == null ? AIR_FUNCTION : (i, j, k) -> lowZ.get(i, j, 14 + k));
 
-		final LevelChunkSection highZ = getSection(1, 1, 2);
-		captureFace(SIDE_INDEX_Z2, highZ == null ? AIR_FUNCTION : (i, j, k) -> highZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> highZ = getSectionStates(1, 1, 2);
+		captureFace(SIDE_INDEX_Z2, highZ == null ? AIR_FUNCTION : (i, j, k) -> highZ.get(i, j, k));
 
-		final LevelChunkSection lowY = getSection(1, 0, 1);
-		captureFace(SIDE_INDEX_Y0, lowY == null ? AIR_FUNCTION : (i, j, k) -> lowY.getBlockState(i, 14 + k, j));
+		final PalettedContainer<BlockState> lowY = getSectionStates(1, 0, 1);
+		captureFace(SIDE_INDEX_Y0, lowY == null ? AIR_FUNCTION : (i, j, k) -> lowY.get(i, 14 + k, j));
 
-		final LevelChunkSection highY = getSection(1, 2, 1);
-		captureFace(SIDE_INDEX_Y2, highY == null ? AIR_FUNCTION : (i, j, k) -> highY.getBlockState(i, k, j));
+		final PalettedContainer<BlockState> highY = getSectionStates(1, 2, 1);
+		captureFace(SIDE_INDEX_Y2, highY == null ? AIR_FUNCTION : (i, j, k) -> highY.get(i, k, j));
 	}
 
 	//NB: the addressing math here must match what is in RenderRegionAddressHelper
@@ -217,41 +224,41 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureEdges() {
-		final LevelChunkSection aaZ = getSection(0, 0, 1);
-		captureEdge(EDGE_INDEX_Y0X0, aaZ == null ? AIR_FUNCTION : (i, j, k) -> aaZ.getBlockState(14 + i, 14 + j, k));
+		final PalettedContainer<BlockState> aaZ = getSectionStates(0, 0, 1);
+		captureEdge(EDGE_INDEX_Y0X0, aaZ == null ? AIR_FUNCTION : (i, j, k) -> aaZ.get(14 + i, 14 + j, k));
 
-		final LevelChunkSection abZ = getSection(0, 2, 1);
-		captureEdge(EDGE_INDEX_Y2X0, abZ == null ? AIR_FUNCTION : (i, j, k) -> abZ.getBlockState(14 + i, j, k));
+		final PalettedContainer<BlockState> abZ = getSectionStates(0, 2, 1);
+		captureEdge(EDGE_INDEX_Y2X0, abZ == null ? AIR_FUNCTION : (i, j, k) -> abZ.get(14 + i, j, k));
 
-		final LevelChunkSection baZ = getSection(2, 0, 1);
-		captureEdge(EDGE_INDEX_Y0X2, baZ == null ? AIR_FUNCTION : (i, j, k) -> baZ.getBlockState(i, 14 + j, k));
+		final PalettedContainer<BlockState> baZ = getSectionStates(2, 0, 1);
+		captureEdge(EDGE_INDEX_Y0X2, baZ == null ? AIR_FUNCTION : (i, j, k) -> baZ.get(i, 14 + j, k));
 
-		final LevelChunkSection bbZ = getSection(2, 2, 1);
-		captureEdge(EDGE_INDEX_Y2X2, bbZ == null ? AIR_FUNCTION : (i, j, k) -> bbZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> bbZ = getSectionStates(2, 2, 1);
+		captureEdge(EDGE_INDEX_Y2X2, bbZ == null ? AIR_FUNCTION : (i, j, k) -> bbZ.get(i, j, k));
 
-		final LevelChunkSection aYa = getSection(0, 1, 0);
-		captureEdge(EDGE_INDEX_Z0X0, aYa == null ? AIR_FUNCTION : (i, j, k) -> aYa.getBlockState(14 + i, k, 14 + j));
+		final PalettedContainer<BlockState> aYa = getSectionStates(0, 1, 0);
+		captureEdge(EDGE_INDEX_Z0X0, aYa == null ? AIR_FUNCTION : (i, j, k) -> aYa.get(14 + i, k, 14 + j));
 
-		final LevelChunkSection aYb = getSection(0, 1, 2);
-		captureEdge(EDGE_INDEX_Z2X0, aYb == null ? AIR_FUNCTION : (i, j, k) -> aYb.getBlockState(14 + i, k, j));
+		final PalettedContainer<BlockState> aYb = getSectionStates(0, 1, 2);
+		captureEdge(EDGE_INDEX_Z2X0, aYb == null ? AIR_FUNCTION : (i, j, k) -> aYb.get(14 + i, k, j));
 
-		final LevelChunkSection bYa = getSection(2, 1, 0);
-		captureEdge(EDGE_INDEX_Z0X2, bYa == null ? AIR_FUNCTION : (i, j, k) -> bYa.getBlockState(i, k, 14 + j));
+		final PalettedContainer<BlockState> bYa = getSectionStates(2, 1, 0);
+		captureEdge(EDGE_INDEX_Z0X2, bYa == null ? AIR_FUNCTION : (i, j, k) -> bYa.get(i, k, 14 + j));
 
-		final LevelChunkSection bYb = getSection(2, 1, 2);
-		captureEdge(EDGE_INDEX_Z2X2, bYb == null ? AIR_FUNCTION : (i, j, k) -> bYb.getBlockState(i, k, j));
+		final PalettedContainer<BlockState> bYb = getSectionStates(2, 1, 2);
+		captureEdge(EDGE_INDEX_Z2X2, bYb == null ? AIR_FUNCTION : (i, j, k) -> bYb.get(i, k, j));
 
-		final LevelChunkSection Xaa = getSection(1, 0, 0);
-		captureEdge(EDGE_INDEX_Z0Y0, Xaa == null ? AIR_FUNCTION : (i, j, k) -> Xaa.getBlockState(k, 14 + i, 14 + j));
+		final PalettedContainer<BlockState> Xaa = getSectionStates(1, 0, 0);
+		captureEdge(EDGE_INDEX_Z0Y0, Xaa == null ? AIR_FUNCTION : (i, j, k) -> Xaa.get(k, 14 + i, 14 + j));
 
-		final LevelChunkSection Xab = getSection(1, 0, 2);
-		captureEdge(EDGE_INDEX_Z2Y0, Xab == null ? AIR_FUNCTION : (i, j, k) -> Xab.getBlockState(k, 14 + i, j));
+		final PalettedContainer<BlockState> Xab = getSectionStates(1, 0, 2);
+		captureEdge(EDGE_INDEX_Z2Y0, Xab == null ? AIR_FUNCTION : (i, j, k) -> Xab.get(k, 14 + i, j));
 
-		final LevelChunkSection Xba = getSection(1, 2, 0);
-		captureEdge(EDGE_INDEX_Z0Y2, Xba == null ? AIR_FUNCTION : (i, j, k) -> Xba.getBlockState(k, i, 14 + j));
+		final PalettedContainer<BlockState> Xba = getSectionStates(1, 2, 0);
+		captureEdge(EDGE_INDEX_Z0Y2, Xba == null ? AIR_FUNCTION : (i, j, k) -> Xba.get(k, i, 14 + j));
 
-		final LevelChunkSection Xbb = getSection(1, 2, 2);
-		captureEdge(EDGE_INDEX_Z2Y2, Xbb == null ? AIR_FUNCTION : (i, j, k) -> Xbb.getBlockState(k, i, j));
+		final PalettedContainer<BlockState> Xbb = getSectionStates(1, 2, 2);
+		captureEdge(EDGE_INDEX_Z2Y2, Xbb == null ? AIR_FUNCTION : (i, j, k) -> Xbb.get(k, i, j));
 	}
 
 	//NB: the addressing math here must match what is in RenderRegionAddressHelper
@@ -262,29 +269,29 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	private void captureCorners() {
-		final LevelChunkSection xyz = getSection(0, 0, 0);
-		captureCorner(CORNER_INDEX_000, xyz == null ? AIR_FUNCTION : (i, j, k) -> xyz.getBlockState(14 + i, 14 + j, 14 + k));
+		final PalettedContainer<BlockState> xyz = getSectionStates(0, 0, 0);
+		captureCorner(CORNER_INDEX_000, xyz == null ? AIR_FUNCTION : (i, j, k) -> xyz.get(14 + i, 14 + j, 14 + k));
 
-		final LevelChunkSection xyZ = getSection(0, 0, 2);
-		captureCorner(CORNER_INDEX_200, xyZ == null ? AIR_FUNCTION : (i, j, k) -> xyZ.getBlockState(14 + i, 14 + j, k));
+		final PalettedContainer<BlockState> xyZ = getSectionStates(0, 0, 2);
+		captureCorner(CORNER_INDEX_200, xyZ == null ? AIR_FUNCTION : (i, j, k) -> xyZ.get(14 + i, 14 + j, k));
 
-		final LevelChunkSection xYz = getSection(0, 2, 0);
-		captureCorner(CORNER_INDEX_020, xYz == null ? AIR_FUNCTION : (i, j, k) -> xYz.getBlockState(14 + i, j, 14 + k));
+		final PalettedContainer<BlockState> xYz = getSectionStates(0, 2, 0);
+		captureCorner(CORNER_INDEX_020, xYz == null ? AIR_FUNCTION : (i, j, k) -> xYz.get(14 + i, j, 14 + k));
 
-		final LevelChunkSection xYZ = getSection(0, 2, 2);
-		captureCorner(CORNER_INDEX_220, xYZ == null ? AIR_FUNCTION : (i, j, k) -> xYZ.getBlockState(14 + i, j, k));
+		final PalettedContainer<BlockState> xYZ = getSectionStates(0, 2, 2);
+		captureCorner(CORNER_INDEX_220, xYZ == null ? AIR_FUNCTION : (i, j, k) -> xYZ.get(14 + i, j, k));
 
-		final LevelChunkSection Xyz = getSection(2, 0, 0);
-		captureCorner(CORNER_INDEX_002, Xyz == null ? AIR_FUNCTION : (i, j, k) -> Xyz.getBlockState(i, 14 + j, 14 + k));
+		final PalettedContainer<BlockState> Xyz = getSectionStates(2, 0, 0);
+		captureCorner(CORNER_INDEX_002, Xyz == null ? AIR_FUNCTION : (i, j, k) -> Xyz.get(i, 14 + j, 14 + k));
 
-		final LevelChunkSection XyZ = getSection(2, 0, 2);
-		captureCorner(CORNER_INDEX_202, XyZ == null ? AIR_FUNCTION : (i, j, k) -> XyZ.getBlockState(i, 14 + j, k));
+		final PalettedContainer<BlockState> XyZ = getSectionStates(2, 0, 2);
+		captureCorner(CORNER_INDEX_202, XyZ == null ? AIR_FUNCTION : (i, j, k) -> XyZ.get(i, 14 + j, k));
 
-		final LevelChunkSection XYz = getSection(2, 2, 0);
-		captureCorner(CORNER_INDEX_022, XYz == null ? AIR_FUNCTION : (i, j, k) -> XYz.getBlockState(i, j, 14 + k));
+		final PalettedContainer<BlockState> XYz = getSectionStates(2, 2, 0);
+		captureCorner(CORNER_INDEX_022, XYz == null ? AIR_FUNCTION : (i, j, k) -> XYz.get(i, j, 14 + k));
 
-		final LevelChunkSection XYZ = getSection(2, 2, 2);
-		captureCorner(CORNER_INDEX_222, XYZ == null ? AIR_FUNCTION : (i, j, k) -> XYZ.getBlockState(i, j, k));
+		final PalettedContainer<BlockState> XYZ = getSectionStates(2, 2, 2);
+		captureCorner(CORNER_INDEX_222, XYZ == null ? AIR_FUNCTION : (i, j, k) -> XYZ.get(i, j, k));
 	}
 
 	private void copyBeData(PackedInputRegion protoRegion) {
@@ -316,7 +323,7 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		final int i = blockIndex(pos.getX(), pos.getY(), pos.getZ());
 
 		if (i == -1) {
-			return world.getBlockState(pos);
+			return sectionBlockState(pos.getX(), pos.getY(), pos.getZ());
 		}
 
 		return states[i];
@@ -326,12 +333,29 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 		final int i = blockIndex(x, y, z);
 
 		if (i == -1) {
-			return world.getBlockState(searchPos.set(x, y, z));
+			return sectionBlockState(x, y, z);
 		}
 
 		return states[i];
 	}
 
+	/**
+	 * For positions outside the padding, such as those read for light smoothing.
+	 * Uses pinned sections when possible so the world isn't read off-thread.
+	 */
+	private BlockState sectionBlockState(int x, int y, int z) {
+		final int sx = x - originX + 16;
+		final int sy = y - originY + 16;
+		final int sz = z - originZ + 16;
+
+		if ((sx | sy | sz) < 0 || sx >= 48 || sy >= 48 || sz >= 48) {
+			return world.getBlockState(searchPos.set(x, y, z));
+		}
+
+		final PalettedContainer<BlockState> section = getSectionStates(sx >> 4, sy >> 4, sz >> 4);
+		return section == null ? AIR : section.get(sx & 0xF, sy & 0xF, sz & 0xF);
+	}
+
 	/**
 	 * Assumes values 0-15.
 	 */
@@ -352,7 +376,19 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 
 	@Override
 	public int getBrightness(LightLayer type, BlockPos pos) {
-		return world.getBrightness(type, pos);
+		final int result = type == LightLayer.SKY ? light.skyLight(pos.getX(), pos.getY(), pos.getZ()) : light.blockLight(pos.getX(), pos.getY(), pos.getZ());
+		return result == -1 ? world.getBrightness(type, pos) : result;
+	}
+
+	@Override
+	public int getRawBrightness(BlockPos pos, int skyDarken) {
+		final int sky = light.skyLight(pos.getX(), pos.getY(), pos.getZ());
+
+		if (sky == -1) {
+			return world.getRawBrightness(pos, skyDarken);
+		}
+
+		return Math.max(light.blockLight(pos.getX(), pos.getY(), pos.getZ()), sky - skyDarken);
 	}
 
 	// Implements Fabrics API RenderAttachedBlockView
@@ -373,7 +409,7 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 			final int x = (packedXyz5 & 31) - 2 + originX;
 			final int y = ((packedXyz5 >> 5) & 31) - 2 + originY;
 			final int z = (packedXyz5 >> 10) - 2 + originZ;
-			result = LevelRenderer.getLightColor(world, state, searchPos.set(x, y, z));
+			result = LevelRenderer.getLightColor(this, state, searchPos.set(x, y, z));
 			lightCache[cacheIndex] = result;
 		}
 
@@ -388,7 +424,7 @@ public class InputRegion extends AbstractInputRegion implements BlockAndTintGett
 	}
 
 	public int directBrightness(BlockPos pos) {
-		return LevelRenderer.getLightColor(world, getBlockState(pos), pos);
+		return LevelRenderer.getLightColor(this, getBlockState(pos), pos);
 	}
 
 	// TODO: do anything with this?
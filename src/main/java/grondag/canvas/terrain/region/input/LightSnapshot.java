@@ -0,0 +1,175 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region.input;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Block and sky light for the 3x3x3 sections around a render region, captured on the main thread
+ * so region builds don't read the live light engine. Holds references to packed nibble arrays in the
+ * same layout as vanilla light data, which are never modified once visible to readers because the
+ * light engine copies a section before its first write after each update, so nothing is copied here.
+ *
+ * <p>Sky light follows vanilla lookup rules: sections without data take light from the bottom layer
+ * of the first section above that has data, or full light if there is none.
+ */
+public class LightSnapshot {
+	/** Nibble array size for one section, same as vanilla. */
+	public static final int DATA_SIZE = 2048;
+
+	/** Shared data for sections that have light data but no values set. Must not be modified. */
+	public static final byte[] EMPTY_DATA = new byte[DATA_SIZE];
+
+	private static final int SECTION_COUNT = 27;
+
+	@FunctionalInterface
+	public interface LayerSource {
+		/** Light data for the section, null if there is none, {@link #EMPTY_DATA} if all values are zero. */
+		@Nullable byte[] data(int sectionX, int sectionY, int sectionZ);
+	}
+
+	private final byte[][] blockLight = new byte[SECTION_COUNT][];
+	private final byte[][] skyLight = new byte[SECTION_COUNT][];
+	private final boolean[] skyFromAbove = new boolean[SECTION_COUNT];
+	private int defaultSkyLight;
+	private int minX;
+	private int minY;
+	private int minZ;
+
+	/**
+	 * Captures light for sections around the one with the given section coordinates.
+	 *
+	 * @param sky null if the dimension has no sky light
+	 * @param maxSectionY highest section Y that can have sky light data
+	 */
+	public void capture(int sectionX, int sectionY, int sectionZ, LayerSource block, @Nullable LayerSource sky, int maxSectionY) {
+		minX = (sectionX - 1) << 4;
+		minY = (sectionY - 1) << 4;
+		minZ = (sectionZ - 1) << 4;
+		defaultSkyLight = sky == null ? 0 : 15;
+
+		for (int x = 0; x < 3; x++) {
+			for (int z = 0; z < 3; z++) {
+				final int sx = sectionX - 1 + x;
+				final int sz = sectionZ - 1 + z;
+				byte[] above = null;
+
+				// Top down so sky light found above one section serves those below
+				for (int y = 2; y >= 0; y--) {
+					final int sy = sectionY - 1 + y;
+					final int i = x + y * 3 + z * 9;
+					blockLight[i] = block.data(sx, sy, sz);
+
+					if (sky == null) {
+						skyLight[i] = null;
+						skyFromAbove[i] = false;
+						continue;
+					}
+
+					final byte[] data = sky.data(sx, sy, sz);
+
+					if (data != null) {
+						skyLight[i] = data;
+						skyFromAbove[i] = false;
+					} else {
+						if (y == 2) {
+							for (int ay = sy + 1; ay <= maxSectionY && above == null; ++ay) {
+								above = sky.data(sx, ay, sz);
+							}
+						}
+
+						skyLight[i] = above;
+						skyFromAbove[i] = true;
+					}
+
+					// Only the bottom layer of a section is ever read from above
+					above = skyLight[i];
+				}
+			}
+		}
+	}
+
+	/** Same as {@link #capture} but copies references from another snapshot. */
+	public void copyFrom(LightSnapshot other) {
+		System.arraycopy(other.blockLight, 0, blockLight, 0, SECTION_COUNT);
+		System.arraycopy(other.skyLight, 0, skyLight, 0, SECTION_COUNT);
+		System.arraycopy(other.skyFromAbove, 0, skyFromAbove, 0, SECTION_COUNT);
+		defaultSkyLight = other.defaultSkyLight;
+		minX = other.minX;
+		minY = other.minY;
+		minZ = other.minZ;
+	}
+
+	/** Releases references to light data. */
+	public void clear() {
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			blockLight[i] = null;
+			skyLight[i] = null;
+		}
+	}
+
+	/** Block light at the given world coordinates, or -1 if the position is outside the captured sections. */
+	public int blockLight(int x, int y, int z) {
+		final int i = sectionIndex(x, y, z);
+
+		if (i == -1) {
+			return -1;
+		}
+
+		final byte[] data = blockLight[i];
+		return data == null ? 0 : nibble(data, x & 0xF, y & 0xF, z & 0xF);
+	}
+
+	/** Sky light at the given world coordinates, or -1 if the position is outside the captured sections. */
+	public int skyLight(int x, int y, int z) {
+		final int i = sectionIndex(x, y, z);
+
+		if (i == -1) {
+			return -1;
+		}
+
+		final byte[] data = skyLight[i];
+
+		if (data == null) {
+			return defaultSkyLight;
+		}
+
+		return nibble(data, x & 0xF, skyFromAbove[i] ? 0 : y & 0xF, z & 0xF);
+	}
+
+	private int sectionIndex(int x, int y, int z) {
+		x -= minX;
+		y -= minY;
+		z -= minZ;
+
+		if ((x | y | z) < 0 || x >= 48 || y >= 48 || z >= 48) {
+			return -1;
+		}
+
+		return (x >> 4) + (y >> 4) * 3 + (z >> 4) * 9;
+	}
+
+	/** Same addressing as vanilla light data. */
+	static int nibble(byte[] data, int x, int y, int z) {
+		final int index = (y << 8) | (z << 4) | x;
+		return (data[index >> 1] >> ((index & 1) << 2)) & 0xF;
+	}
+}
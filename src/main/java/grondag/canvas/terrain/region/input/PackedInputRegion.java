@@ -23,27 +23,43 @@ package grondag.canvas.terrain.region.input;
 import static grondag.canvas.terrain.util.RenderRegionStateIndexer.EXTERIOR_STATE_COUNT;
 import static grondag.canvas.terrain.util.RenderRegionStateIndexer.interiorIndex;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
 import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.lighting.LayerLightEventListener;
+import net.minecraft.world.level.lighting.LevelLightEngine;
 
 import io.vram.frex.api.world.BlockEntityRenderData;
 import io.vram.frex.api.world.RenderRegionBakeListener;
 import io.vram.frex.impl.world.ChunkRenderConditionContext;
 
+import grondag.canvas.config.Configurator;
 import grondag.canvas.perf.ChunkRebuildCounters;
 
 /**
  * Serves as a container to capture world state data on the main thread as quickly as possible
  * for later consumption on possibly non-render threads for terrain render region rebuild.
+ * Block states are pinned {@link SectionSnapshots} and light is a {@link LightSnapshot},
+ * both shared with other regions, not copies.
+ *
+ * <p>Regions that need no build are classified here and returned as a {@link SignalInputRegion}
+ * so they never reach a worker thread.
  *
  * <p>Also serves as a state indicator for rebuild activity.
  */
@@ -57,6 +73,8 @@ public class PackedInputRegion extends AbstractInputRegion {
 	final ShortArrayList renderDataPos = new ShortArrayList();
 	final ObjectArrayList<Object> renderData = new ObjectArrayList<>();
 	final ShortArrayList blockEntityPos = new ShortArrayList();
+	final LightSnapshot light = new LightSnapshot();
+	private final BlockPos.MutableBlockPos searchPos = new BlockPos.MutableBlockPos();
 
 	public static PackedInputRegion claim(ClientLevel world, BlockPos origin) {
 		final PackedInputRegion result = POOL.poll();
@@ -116,17 +134,116 @@ public class PackedInputRegion extends AbstractInputRegion {
 			chunks[2 | (0 << 2)] = world.getChunk(chunkBaseX + 2, chunkBaseZ + 0);
 			chunks[2 | (1 << 2)] = world.getChunk(chunkBaseX + 2, chunkBaseZ + 1);
 			chunks[2 | (2 << 2)] = world.getChunk(chunkBaseX + 2, chunkBaseZ + 2);
+			pinSections();
+
+			final PackedInputRegion signal = bakeListenerContext.listeners.isEmpty() && blockEntityPos.isEmpty() ? classify(world) : null;
 
-			result = this;
+			if (signal == null) {
+				captureLight(world);
+				result = this;
+			} else {
+				release();
+				result = signal;
+			}
 		}
 
 		if (ChunkRebuildCounters.ENABLED) {
 			ChunkRebuildCounters.completeCopy();
+			ChunkRebuildCounters.recordCapture(result == SignalInputRegion.EMPTY, result == SignalInputRegion.BURIED);
 		}
 
 		return result;
 	}
 
+	private void pinSections() {
+		for (int x = 0; x < 3; x++) {
+			for (int z = 0; z < 3; z++) {
+				final SectionSnapshots snapshots = SectionSnapshots.get(chunks[x | (z << 2)]);
+
+				for (int y = 0; y < 3; y++) {
+					sectionStates[x + y * 3 + z * 9] = snapshots.pin(baseSectionIndex + y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Identifies regions with a known build output: those with only air, and those filled with
+	 * a single closed state with closed neighbors on every face. The latter have no visible
+	 * faces and produce the same occlusion result as a full build. Checks mirror the
+	 * occlusion calculator. Returns null if the region needs a build.
+	 */
+	private @Nullable PackedInputRegion classify(ClientLevel world) {
+		final PalettedContainer<BlockState> main = sectionStates[13];
+
+		if (main == null) {
+			return SignalInputRegion.EMPTY;
+		}
+
+		final BlockState state = main.get(0, 0, 0);
+
+		// Palettes can retain states no longer present, so this will miss some uniform sections
+		if (main.maybeHas(s -> s != state) || !isVisible(state) || state.getBlock().hasDynamicShape()) {
+			return null;
+		}
+
+		if (!state.isSolidRender(world, searchPos.set(originX, originY, originZ))
+				&& !(Configurator.renderWhiteGlassAsOccluder && state.getBlock() == Blocks.WHITE_STAINED_GLASS)) {
+			return null;
+		}
+
+		for (int i = 0; i < 16; i++) {
+			for (int j = 0; j < 16; j++) {
+				if (!isClosed(world, -1, i, j) || !isClosed(world, 16, i, j)
+						|| !isClosed(world, i, -1, j) || !isClosed(world, i, 16, j)
+						|| !isClosed(world, i, j, -1) || !isClosed(world, i, j, 16)) {
+					return null;
+				}
+			}
+		}
+
+		return SignalInputRegion.BURIED;
+	}
+
+	/** Coordinates are relative to origin, -16 to 31. */
+	private boolean isClosed(ClientLevel world, int x, int y, int z) {
+		final PalettedContainer<BlockState> section = getSectionStates((x >> 4) + 1, (y >> 4) + 1, (z >> 4) + 1);
+
+		if (section == null) {
+			return false;
+		}
+
+		final BlockState state = section.get(x & 15, y & 15, z & 15);
+		return isVisible(state) && state.isSolidRender(world, searchPos.set(originX + x, originY + y, originZ + z));
+	}
+
+	private static boolean isVisible(BlockState state) {
+		return state.getRenderShape() != RenderShape.INVISIBLE || !state.getFluidState().isEmpty();
+	}
+
+	private void captureLight(ClientLevel world) {
+		final LevelLightEngine lightEngine = world.getLightEngine();
+		final LayerLightEventListener blockLight = lightEngine.getLayerListener(LightLayer.BLOCK);
+		final LightSnapshot.LayerSource blockSource = (x, y, z) -> lightData(blockLight.getDataLayerData(SectionPos.of(x, y, z)));
+		LightSnapshot.LayerSource skySource = null;
+
+		if (world.dimensionType().hasSkyLight()) {
+			final LayerLightEventListener skyLight = lightEngine.getLayerListener(LightLayer.SKY);
+			skySource = (x, y, z) -> lightData(skyLight.getDataLayerData(SectionPos.of(x, y, z)));
+		}
+
+		light.capture(chunkBaseX + 1, originY >> 4, chunkBaseZ + 1, blockSource, skySource, world.getMaxSection());
+	}
+
+	private static @Nullable byte[] lightData(@Nullable DataLayer layer) {
+		if (layer == null) {
+			return null;
+		}
+
+		// getData allocates for empty layers and we don't want to modify them
+		return layer.isEmpty() ? LightSnapshot.EMPTY_DATA : layer.getData();
+	}
+
 	private void captureBlockEntities(LevelChunk mainChunk) {
 		renderDataPos.clear();
 		renderData.clear();
@@ -164,6 +281,9 @@ public class PackedInputRegion extends AbstractInputRegion {
 			}
 		}
 
+		Arrays.fill(sectionStates, null);
+		light.clear();
+
 		blockEntities.clear();
 		renderData.clear();
 
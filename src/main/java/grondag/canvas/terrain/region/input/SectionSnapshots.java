@@ -0,0 +1,124 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region.input;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import grondag.canvas.mixinterface.LevelChunkExt;
+import grondag.canvas.perf.ChunkRebuildCounters;
+
+/**
+ * Copies of block states for each section in a chunk, kept for the life of the chunk
+ * so region rebuilds can share them instead of reading live world state off-thread.
+ *
+ * <p>A copy becomes immutable once pinned for a rebuild. The first block change in a section
+ * after it is pinned takes a new copy, which is unpinned, and later changes patch that copy
+ * in place until the next rebuild pins it. Changing a block marks surrounding regions for
+ * rebuild, so the new copy is almost always used. Sections never pinned aren't copied.
+ * Pinning and changes happen on the main thread. Pinned copies can be read from any thread.
+ */
+public class SectionSnapshots {
+	private final LevelChunk chunk;
+	private final PalettedContainer<BlockState>[] states;
+	private final boolean[] pinned;
+
+	@SuppressWarnings("unchecked")
+	public SectionSnapshots(LevelChunk chunk) {
+		this.chunk = chunk;
+		final int sectionCount = chunk.getSections().length;
+		states = new PalettedContainer[sectionCount];
+		pinned = new boolean[sectionCount];
+	}
+
+	public static SectionSnapshots get(LevelChunk chunk) {
+		return ((LevelChunkExt) chunk).canvas_sectionSnapshots();
+	}
+
+	/**
+	 * Block states of the section at the given index, or null if the section is out of range
+	 * or has only air. The result must not be modified.
+	 */
+	public @Nullable PalettedContainer<BlockState> pin(int sectionIndex) {
+		final LevelChunkSection[] sections = chunk.getSections();
+
+		if (sectionIndex < 0 || sectionIndex >= sections.length) {
+			return null;
+		}
+
+		final LevelChunkSection section = sections[sectionIndex];
+
+		if (section == null || section.hasOnlyAir()) {
+			return null;
+		}
+
+		PalettedContainer<BlockState> result = states[sectionIndex];
+
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.recordSnapshotLookup(result != null);
+		}
+
+		if (result == null) {
+			result = section.getStates().copy();
+			states[sectionIndex] = result;
+		}
+
+		pinned[sectionIndex] = true;
+		return result;
+	}
+
+	/**
+	 * Called after a block state in the chunk changes. Coordinates are world coordinates.
+	 * Reads the live state because nested changes during the call may have replaced it.
+	 */
+	public void onBlockChanged(int x, int y, int z) {
+		final int sectionIndex = chunk.getSectionIndex(y);
+
+		if (sectionIndex < 0 || sectionIndex >= states.length) {
+			return;
+		}
+
+		final PalettedContainer<BlockState> snapshot = states[sectionIndex];
+
+		if (snapshot == null) {
+			return;
+		}
+
+		final LevelChunkSection section = chunk.getSections()[sectionIndex];
+		final boolean isPatch = !pinned[sectionIndex];
+
+		if (isPatch) {
+			snapshot.getAndSetUnchecked(x & 0xF, y & 0xF, z & 0xF, section.getBlockState(x & 0xF, y & 0xF, z & 0xF));
+		} else {
+			// Live section already includes the change
+			states[sectionIndex] = section.getStates().copy();
+			pinned[sectionIndex] = false;
+		}
+
+		if (ChunkRebuildCounters.ENABLED) {
+			ChunkRebuildCounters.recordSnapshotChange(isPatch);
+		}
+	}
+}
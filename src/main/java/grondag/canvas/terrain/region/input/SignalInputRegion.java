@@ -41,6 +41,12 @@ public class SignalInputRegion extends PackedInputRegion {
 	 */
 	public static final PackedInputRegion EMPTY = new SignalInputRegion();
 
+	/**
+	 * Signals that build is for a region filled with one opaque block state and enclosed on every face,
+	 * so nothing in it is visible and it occludes its full volume.
+	 */
+	public static final PackedInputRegion BURIED = new SignalInputRegion();
+
 	@Override
 	public void release() { }
 }
@@ -20,8 +20,9 @@
 
 package grondag.canvas.texture;
 
+import java.util.function.IntUnaryOperator;
+
 import it.unimi.dsi.fastutil.Hash;
-import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
@@ -84,27 +85,32 @@ public abstract class MaterialIndexProvider {
 		private final Long2ObjectOpenHashMap<Indexer> materialMap = new Long2ObjectOpenHashMap<>(64, Hash.VERY_FAST_LOAD_FACTOR);
 		private final MaterialIndexTexture tex = new MaterialIndexTexture(true);
 
-		// PERF: find ways to reduce/avoid locking here and in MaterialIndexImage
+		/**
+		 * Guards index allocation and image updates.  Sprite lookups on the
+		 * hot path do not take this lock - see {@link SpriteIndexMap}.
+		 */
 		private final Object sync = new Object();
 
 		private class Indexer implements MaterialIndexer {
 			private Indexer(CanvasRenderMaterial mat) {
 				this.mat = mat;
+
+				// Called by spriteMap while holding sync, at most once per sprite
+				allocator = spriteId -> {
+					final int i = nextIndex++;
+					final TextureAtlasSprite sprite = mat.texture().spriteIndex().fromIndex(spriteId);
+					tex.set(i, mat.vertexShaderIndex(), mat.fragmentShaderIndex(), mat.shaderFlags(), mat.condition().index(), sprite);
+					return i;
+				};
 			}
 
 			private final CanvasRenderMaterial mat;
-			private final Int2IntOpenHashMap spriteMap = new Int2IntOpenHashMap(64, Hash.VERY_FAST_LOAD_FACTOR);
+			private final IntUnaryOperator allocator;
+			private final SpriteIndexMap spriteMap = new SpriteIndexMap(sync);
 
 			@Override
 			public int index(int spriteId) {
-				synchronized (sync) {
-					return spriteMap.computeIfAbsent(spriteId, k -> {
-						final int i = nextIndex++;
-						final TextureAtlasSprite sprite = mat.texture().spriteIndex().fromIndex(k);
-						tex.set(i, mat.vertexShaderIndex(), mat.fragmentShaderIndex(), mat.shaderFlags(), mat.condition().index(), sprite);
-						return i;
-					});
-				}
+				return spriteMap.index(spriteId, allocator);
 			}
 		}
 
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.texture;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Maps dense sprite IDs to material indices without locking on lookup.
+ *
+ * <p>Readers see an immutable snapshot array published through a volatile
+ * field. Only first-time registration of a sprite takes the lock, allocates
+ * the index and publishes a new copy of the array.  Sprite IDs are small, dense
+ * atlas indices and registration stops once every sprite in use has been seen,
+ * so copy-on-write is cheap overall.
+ */
+final class SpriteIndexMap {
+	static final int UNMAPPED = -1;
+	private static final int[] EMPTY = new int[0];
+
+	private final Object sync;
+	private volatile int[] snapshot = EMPTY;
+
+	/**
+	 * @param sync lock shared by all writers that allocate from the same index space.
+	 */
+	SpriteIndexMap(Object sync) {
+		this.sync = sync;
+	}
+
+	/**
+	 * Returns the index mapped to the given sprite, calling the allocator
+	 * while holding the lock if the sprite has not been seen before.
+	 * The allocator is called at most once per sprite.
+	 */
+	int index(int spriteId, IntUnaryOperator allocator) {
+		final int[] s = snapshot;
+
+		if (spriteId < s.length) {
+			final int result = s[spriteId];
+
+			if (result != UNMAPPED) {
+				return result;
+			}
+		}
+
+		return register(spriteId, allocator);
+	}
+
+	private int register(int spriteId, IntUnaryOperator allocator) {
+		synchronized (sync) {
+			final int[] s = snapshot;
+
+			if (spriteId < s.length && s[spriteId] != UNMAPPED) {
+				return s[spriteId];
+			}
+
+			final int result = allocator.applyAsInt(spriteId);
+			final int[] next = Arrays.copyOf(s, Math.max(s.length, spriteId + 1));
+
+			if (next.length > s.length) {
+				Arrays.fill(next, s.length, next.length, UNMAPPED);
+			}
+
+			next[spriteId] = result;
+			snapshot = next;
+			return result;
+		}
+	}
+
+	int size() {
+		int result = 0;
+
+		for (final int i : snapshot) {
+			if (i != UNMAPPED) {
+				++result;
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.buffer.input;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import it.unimi.dsi.fastutil.Swapper;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link QuadSorter} produces exactly the same vertex order as the
+ * merge sort previously used by {@link SortingVertexCollector}. Timing is compared
+ * in {@code QuadSortBenchmark}.
+ */
+class QuadSorterTest {
+	static final int QUAD_STRIDE = 32;
+
+	@Test
+	void equivalence() {
+		final Random r = new Random(42);
+
+		for (int n = 0; n < 2000; ++n) {
+			final int quadCount = r.nextInt(600);
+			final float[] dist = new float[quadCount];
+
+			// mix of unique values, heavy ties, zeros and a few special values
+			final int mode = n % 4;
+
+			for (int i = 0; i < quadCount; ++i) {
+				dist[i] = switch (mode) {
+					case 0 -> r.nextFloat() * 1000f;
+					case 1 -> r.nextInt(8);
+					case 2 -> i % 3 == 0 ? 0f : r.nextInt(4) * 0.25f;
+					default -> r.nextInt(50) == 0 ? (r.nextBoolean() ? -0f : Float.MAX_VALUE) : r.nextFloat();
+				};
+			}
+
+			assertSameOrder(dist);
+		}
+
+		assertSameOrder(oceanDistances(100_000));
+
+		// scratch buffers are released after an oversized sort and must regrow cleanly
+		assertSameOrder(oceanDistances(1_000));
+		assertSameOrder(oceanDistances(100_000));
+	}
+
+	/** Flat water surface around the camera - many quads share exact distances. */
+	static float[] oceanDistances(int quadCount) {
+		final int side = (int) Math.ceil(Math.sqrt(quadCount));
+		final float[] result = new float[quadCount];
+
+		for (int i = 0; i < quadCount; ++i) {
+			final float dx = (i % side) + 0.5f - side * 0.5f;
+			final float dz = (i / side) + 0.5f - side * 0.5f;
+			result[i] = dx * dx + 2.25f + dz * dz;
+		}
+
+		// ocean chunks are typically emitted in roughly block order, not distance order
+		final Random r = new Random(7);
+
+		for (int i = quadCount - 1; i > 0; i -= 16) {
+			final int j = r.nextInt(i + 1);
+			final float t = result[i];
+			result[i] = result[j];
+			result[j] = t;
+		}
+
+		return result;
+	}
+
+	static int[] vertexData(int quadCount) {
+		final int[] result = new int[quadCount * QUAD_STRIDE];
+
+		for (int i = 0; i < result.length; ++i) {
+			result[i] = i;
+		}
+
+		return result;
+	}
+
+	static void assertSameOrder(float[] dist) {
+		final int quadCount = dist.length;
+		final int[] expected = vertexData(quadCount);
+		final boolean expectedMoved = mergeSort(expected, quadCount, dist.clone());
+
+		final int[] actual = vertexData(quadCount);
+		final boolean actualMoved = QuadSorter.get().sort(actual, quadCount, QUAD_STRIDE, dist);
+
+		assert Arrays.equals(expected, actual);
+		assert expectedMoved == actualMoved;
+	}
+
+	/** Prior implementation from SortingVertexCollector. */
+	static boolean mergeSort(int[] vertexData, int quadCount, float[] perQuadDistance) {
+		final int[] swapData = new int[QUAD_STRIDE * 2];
+		final boolean[] didSwap = new boolean[1];
+
+		final IntComparator comparator = (a, b) -> Float.compare(perQuadDistance[b], perQuadDistance[a]);
+
+		final Swapper swapper = (a, b) -> {
+			didSwap[0] = true;
+			final float distSwap = perQuadDistance[a];
+			perQuadDistance[a] = perQuadDistance[b];
+			perQuadDistance[b] = distSwap;
+
+			final int aIndex = a * QUAD_STRIDE;
+			final int bIndex = b * QUAD_STRIDE;
+
+			System.arraycopy(vertexData, aIndex, swapData, 0, QUAD_STRIDE);
+			System.arraycopy(vertexData, bIndex, swapData, QUAD_STRIDE, QUAD_STRIDE);
+			System.arraycopy(swapData, 0, vertexData, bIndex, QUAD_STRIDE);
+			System.arraycopy(swapData, QUAD_STRIDE, vertexData, aIndex, QUAD_STRIDE);
+		};
+
+		it.unimi.dsi.fastutil.Arrays.mergeSort(0, quadCount, comparator, swapper);
+		return didSwap[0];
+	}
+}
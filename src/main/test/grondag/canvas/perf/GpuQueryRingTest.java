@@ -0,0 +1,193 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.perf;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the query ring with a fake backend whose queries finish only when the
+ * test lets the simulated GPU catch up.
+ */
+public class GpuQueryRingTest {
+	/** Query results become available in submission order, when {@link #complete(int)} allows. */
+	private static class FakeBackend implements GpuQueryRing.Backend {
+		private final Int2IntOpenHashMap submission = new Int2IntOpenHashMap();
+		private final Int2LongOpenHashMap elapsed = new Int2LongOpenHashMap();
+		private int nextId = 1;
+		private int activeId = 0;
+		private int submitted = 0;
+		private int completed = 0;
+		private int liveIds = 0;
+		/** Value recorded for the next query that begins. */
+		long nextElapsed;
+
+		@Override
+		public void generate(int[] ids) {
+			for (int i = 0; i < ids.length; ++i) {
+				ids[i] = nextId++;
+			}
+
+			liveIds += ids.length;
+		}
+
+		@Override
+		public void delete(int[] ids) {
+			liveIds -= ids.length;
+		}
+
+		@Override
+		public void begin(int id) {
+			assert activeId == 0 : "nested query";
+			assert !submission.containsKey(id) || submission.get(id) <= completed : "query reused while pending";
+			activeId = id;
+			elapsed.put(id, nextElapsed);
+		}
+
+		@Override
+		public void end() {
+			assert activeId != 0 : "end without begin";
+			submission.put(activeId, ++submitted);
+			activeId = 0;
+		}
+
+		@Override
+		public boolean isAvailable(int id) {
+			assert id != activeId : "polled active query";
+			return submission.get(id) <= completed;
+		}
+
+		@Override
+		public long result(int id) {
+			assert isAvailable(id) : "result read before available";
+			return elapsed.get(id);
+		}
+
+		/** Lets the simulated GPU finish every query submitted so far except the last {@code behind}. */
+		void complete(int behind) {
+			completed = Math.max(completed, submitted - behind);
+		}
+	}
+
+	/** Times two steps per frame, recording frame * 10 + step as the elapsed time. */
+	private static void runFrame(GpuQueryRing ring, FakeBackend gpu) {
+		ring.startFrame();
+		final long frame = ring.frame();
+
+		for (int step = 0; step < 2; ++step) {
+			gpu.nextElapsed = frame * 10 + step;
+			ring.begin(step);
+		}
+
+		ring.end();
+	}
+
+	@Test
+	void resultsLagAndMatchIssuingFrame() {
+		final FakeBackend gpu = new FakeBackend();
+		final GpuQueryRing ring = new GpuQueryRing(gpu, 2, 4);
+
+		runFrame(ring, gpu);
+		assert !ring.poll() : "GPU has not finished anything";
+		assert ring.resultFrame() == -1;
+
+		// GPU finishes each frame while the CPU records the next one
+		for (int i = 0; i < 10; ++i) {
+			gpu.complete(0);
+			runFrame(ring, gpu);
+
+			final long expectedFrame = ring.frame() - 1;
+			assert ring.resultFrame() == expectedFrame : "frame " + ring.frame() + " shows " + ring.resultFrame();
+			assert ring.elapsed(0) == expectedFrame * 10;
+			assert ring.elapsed(1) == expectedFrame * 10 + 1;
+		}
+
+		assert ring.skippedFrames() == 0;
+		ring.close();
+		assert gpu.liveIds == 0;
+	}
+
+	@Test
+	void fullRingSkipsFramesInsteadOfWaiting() {
+		final FakeBackend gpu = new FakeBackend();
+		final GpuQueryRing ring = new GpuQueryRing(gpu, 2, 3);
+
+		// GPU stalled: three frames fill the ring, the next two can't be timed
+		for (int i = 0; i < 5; ++i) {
+			runFrame(ring, gpu);
+		}
+
+		assert ring.skippedFrames() == 2;
+		assert ring.resultFrame() == -1;
+
+		// The GPU catches up and every pending frame is read back in order
+		gpu.complete(0);
+		assert ring.poll();
+		assert ring.resultFrame() == 2 : "untimed frames 3 and 4 must not be reported";
+		assert ring.elapsed(0) == 20 && ring.elapsed(1) == 21;
+
+		// Timing resumes with the next frame
+		runFrame(ring, gpu);
+		gpu.complete(0);
+		runFrame(ring, gpu);
+		assert ring.resultFrame() == 5;
+		assert ring.elapsed(1) == 51;
+		assert ring.skippedFrames() == 2;
+	}
+
+	@Test
+	void neverPublishesOutOfOrder() {
+		final FakeBackend gpu = new FakeBackend();
+		final GpuQueryRing ring = new GpuQueryRing(gpu, 2, 4);
+
+		runFrame(ring, gpu);
+		runFrame(ring, gpu);
+		runFrame(ring, gpu);
+
+		// Only the first query of frame 0 is done
+		gpu.complete(5);
+		assert !ring.poll() : "frame 0 is only half finished";
+
+		gpu.complete(4);
+		assert ring.poll();
+		assert ring.resultFrame() == 0;
+
+		gpu.complete(0);
+		assert ring.poll();
+		assert ring.resultFrame() == 1 : "frame 2 is still recording";
+	}
+
+	@Test
+	void stepsNotRunReportZero() {
+		final FakeBackend gpu = new FakeBackend();
+		final GpuQueryRing ring = new GpuQueryRing(gpu, 3, 4);
+
+		ring.startFrame();
+		gpu.nextElapsed = 7;
+		ring.begin(2);
+		ring.begin(-1);
+		ring.startFrame();
+		gpu.complete(0);
+		assert ring.poll();
+		assert ring.elapsed(0) == 0 && ring.elapsed(1) == 0 && ring.elapsed(2) == 7;
+	}
+}
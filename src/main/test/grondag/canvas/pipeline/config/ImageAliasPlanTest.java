@@ -0,0 +1,232 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.pipeline.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.resources.ResourceLocation;
+
+import grondag.canvas.pipeline.config.util.NamedDependency;
+
+public class ImageAliasPlanTest {
+	private static final Path ASSETS = Path.of("src", "main", "resources", "assets");
+
+	private static final String SYNTHETIC = """
+			{
+				materialProgram: {
+					vertexSource: "test:shaders/material.vert",
+					fragmentSource: "test:shaders/material.frag",
+					samplers: [],
+					samplerImages: []
+				},
+				drawTargets: {
+					solidTerrain: "default",
+					translucentTerrain: "default",
+					translucentEntity: "default",
+					weather: "default",
+					clouds: "default",
+					translucentParticles: "default"
+				},
+				defaultFramebuffer: "default",
+				images: [
+					{name: "main"}, {name: "depth"}, {name: "a"}, {name: "b"},
+					{name: "c", internalFormat: "RGBA16F", pixelDataType: "FLOAT"},
+					{name: "history"}
+				],
+				programs: [
+					{name: "copy", vertexSource: "test:shaders/copy.vert", fragmentSource: "test:shaders/copy.frag", samplers: ["s0"]},
+					{name: "combine", vertexSource: "test:shaders/copy.vert", fragmentSource: "test:shaders/combine.frag", samplers: ["s0", "s1", "s2"]}
+				],
+				framebuffers: [
+					{name: "default", colorAttachments: [{image: "main"}], depthAttachment: {image: "depth"}},
+					{name: "fa", colorAttachments: [{image: "a"}]},
+					{name: "fb", colorAttachments: [{image: "b"}]},
+					{name: "fc", colorAttachments: [{image: "c"}]},
+					{name: "fh", colorAttachments: [{image: "history"}]}
+				],
+				afterRenderHand: {
+					passes: [
+						{name: "make_a", framebuffer: "fa", program: "copy", samplerImages: ["main"]},
+						{name: "use_a", framebuffer: "default", program: "copy", samplerImages: ["a"]},
+						{name: "make_b", framebuffer: "fb", program: "copy", samplerImages: ["main"]},
+						{name: "make_c", framebuffer: "fc", program: "copy", samplerImages: ["b"]},
+						{name: "final", framebuffer: "default", program: "combine", samplerImages: ["b", "c", "history"]},
+						{name: "save_history", framebuffer: "fh", program: "copy", samplerImages: ["main"]}
+					]
+				}
+			}
+			""";
+
+	@Test
+	void syntheticPlan() throws IOException {
+		final PipelineConfig config = synthetic(SYNTHETIC);
+		final RenderGraph graph = RenderGraph.compile(config);
+		final ImageAliasPlan plan = ImageAliasPlan.plan(config, graph);
+
+		// b starts after a's last use and matches its format; c differs in format,
+		// history is read before it is written, main and depth are used by world rendering
+		assert plan.sharedCount() == 1;
+		assert plan.owner(image(config, "b")) == image(config, "a");
+
+		for (final String name : List.of("main", "depth", "a", "c", "history")) {
+			assert plan.owner(image(config, name)) == image(config, name) : name;
+		}
+
+		assert plan.bytesSaved(100, 50) == 100 * 50 * 4;
+
+		// passes that first write a shared texture clear it so discarded pixels can't show the other image
+		assert plan.clearFlags(pass(graph, "make_a")) == 1;
+		assert plan.clearFlags(pass(graph, "make_b")) == 1;
+
+		for (final String name : List.of("use_a", "make_c", "final", "save_history")) {
+			assert plan.clearFlags(pass(graph, name)) == 0 : name;
+		}
+	}
+
+	@Test
+	void shareStorageOptOut() throws IOException {
+		final PipelineConfig config = synthetic(SYNTHETIC.replace("{name: \"b\"}", "{name: \"b\", shareStorage: false}"));
+		final RenderGraph graph = RenderGraph.compile(config);
+		final ImageAliasPlan plan = ImageAliasPlan.plan(config, graph);
+
+		assert plan.sharedCount() == 0;
+		assert plan.owner(image(config, "b")) == image(config, "b");
+		assert plan.clearFlags(pass(graph, "make_a")) == 0;
+		assert plan.clearFlags(pass(graph, "make_b")) == 0;
+	}
+
+	@Test
+	void bundledPipelines() throws IOException {
+		final PipelineConfigBuilder.ResourceOpener opener = id -> {
+			final Path path = ASSETS.resolve(id.getNamespace()).resolve(id.getPath());
+			return Files.exists(path) ? Files.newInputStream(path) : null;
+		};
+
+		final List<String> files;
+
+		try (Stream<Path> list = Files.list(ASSETS.resolve("canvas").resolve("pipelines"))) {
+			files = list.map(p -> p.getFileName().toString()).filter(s -> s.endsWith(".json5")).sorted().toList();
+		}
+
+		for (final String file : files) {
+			final ResourceLocation id = new ResourceLocation("canvas", "pipelines/" + file);
+			final PipelineConfig config = PipelineConfigBuilder.build(id, opener);
+			assert config != null : id;
+
+			final RenderGraph graph = RenderGraph.compile(config);
+			final ImageAliasPlan plan = ImageAliasPlan.plan(config, graph);
+			final ObjectOpenHashSet<String> external = RenderGraph.externalImages(config);
+
+			long total = 0;
+
+			for (final ImageConfig img : config.images) {
+				total += ImageAliasPlan.estimateBytes(img, 1920, 1080);
+				final ImageConfig owner = plan.owner(img);
+
+				if (owner != img) {
+					assert !external.contains(img.name) && !external.contains(owner.name) : img.name;
+					assert plan.owner(owner) == owner : img.name;
+					assert owner.internalFormat == img.internalFormat && owner.width == img.width && owner.height == img.height && owner.lod == img.lod : img.name;
+				}
+			}
+
+			// images sharing storage may never be used by the same pass
+			for (final PassConfig[] passes : List.of(graph.onWorldStart, graph.fabulous, graph.afterRenderHand)) {
+				for (final PassConfig pass : passes) {
+					final Object2ObjectOpenHashMap<ImageConfig, String> used = new Object2ObjectOpenHashMap<>();
+
+					for (final String name : touched(pass)) {
+						final ImageConfig img = image(config, name);
+
+						if (img != null) {
+							final String prior = used.put(plan.owner(img), name);
+							assert prior == null || prior.equals(name) : pass.name + " uses " + prior + " and " + name;
+						}
+					}
+				}
+			}
+
+			System.out.println(String.format("%s: %d images share storage, saving %d of %d KB at 1920x1080",
+					id, plan.sharedCount(), plan.bytesSaved(1920, 1080) / 1024, total / 1024));
+		}
+	}
+
+	private static PipelineConfig synthetic(String source) throws IOException {
+		final ResourceLocation id = new ResourceLocation("test", "pipelines/synthetic.json5");
+		final PipelineConfig config = PipelineConfigBuilder.build(id, target -> target.equals(id)
+				? new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)) : null);
+
+		assert config != null;
+		return config;
+	}
+
+	private static PassConfig pass(RenderGraph graph, String name) {
+		for (final PassConfig pass : graph.afterRenderHand) {
+			if (pass.name.equals(name)) {
+				return pass;
+			}
+		}
+
+		return null;
+	}
+
+	private static ImageConfig image(PipelineConfig config, String name) {
+		for (final ImageConfig img : config.images) {
+			if (img.name.equals(name)) {
+				return img;
+			}
+		}
+
+		return null;
+	}
+
+	private static List<String> touched(PassConfig pass) {
+		final ObjectOpenHashSet<String> result = new ObjectOpenHashSet<>();
+
+		for (final NamedDependency<ImageConfig> dep : pass.samplerImages) {
+			result.add(dep.name);
+		}
+
+		final FramebufferConfig fb = pass.framebuffer.value();
+
+		if (fb != null) {
+			for (final AttachmentConfig a : fb.colorAttachments) {
+				result.add(a.image.name);
+			}
+
+			if (fb.depthAttachment != null) {
+				result.add(fb.depthAttachment.image.name);
+			}
+		}
+
+		return List.copyOf(result);
+	}
+}
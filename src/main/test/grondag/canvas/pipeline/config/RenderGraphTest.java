@@ -0,0 +1,240 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.pipeline.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.resources.ResourceLocation;
+
+import grondag.canvas.pipeline.config.util.NamedDependency;
+
+public class RenderGraphTest {
+	private static final Path ASSETS = Path.of("src", "main", "resources", "assets");
+
+	private static final String SYNTHETIC = """
+			{
+				materialProgram: {
+					vertexSource: "test:shaders/material.vert",
+					fragmentSource: "test:shaders/material.frag",
+					samplers: [],
+					samplerImages: []
+				},
+				drawTargets: {
+					solidTerrain: "default",
+					translucentTerrain: "default",
+					translucentEntity: "default",
+					weather: "default",
+					clouds: "default",
+					translucentParticles: "default"
+				},
+				defaultFramebuffer: "default",
+				images: [
+					{name: "main"}, {name: "depth"}, {name: "a"}, {name: "b"}, {name: "c"}, {name: "d"}
+				],
+				programs: [
+					{name: "copy", vertexSource: "test:shaders/copy.vert", fragmentSource: "test:shaders/copy.frag", samplers: ["s0"]},
+					{name: "combine", vertexSource: "test:shaders/copy.vert", fragmentSource: "test:shaders/combine.frag", samplers: ["s0", "s1"]}
+				],
+				framebuffers: [
+					{name: "default", colorAttachments: [{image: "main"}], depthAttachment: {image: "depth"}},
+					{name: "fa", colorAttachments: [{image: "a"}]},
+					{name: "fb", colorAttachments: [{image: "b"}]},
+					{name: "fc", colorAttachments: [{image: "c"}]},
+					{name: "fd", colorAttachments: [{image: "d"}]}
+				],
+				afterRenderHand: {
+					passes: [
+						{name: "a1", framebuffer: "fa", program: "copy", samplerImages: ["main"]},
+						{name: "b1", framebuffer: "fb", program: "copy", samplerImages: ["main"]},
+						{name: "a2", framebuffer: "fa", program: "copy", samplerImages: ["main"]},
+						{name: "d1", framebuffer: "fd", program: "copy", samplerImages: ["main"]},
+						{name: "c1", framebuffer: "fc", program: "copy", samplerImages: ["d"]},
+						{name: "final", framebuffer: "default", program: "combine", samplerImages: ["a", "b"]}
+					]
+				}
+			}
+			""";
+
+	@Test
+	void syntheticGraph() throws IOException {
+		final ResourceLocation id = new ResourceLocation("test", "pipelines/synthetic.json5");
+		final PipelineConfig config = PipelineConfigBuilder.build(id, target -> target.equals(id)
+				? new ByteArrayInputStream(SYNTHETIC.getBytes(StandardCharsets.UTF_8)) : null);
+
+		assert config != null;
+
+		RenderGraph graph = RenderGraph.compile(config);
+
+		// c is never read, so c1 and d1 (which only feeds c1) are dead
+		assert names(graph.afterRenderHand).equals(List.of("a1", "a2", "b1", "final")) : names(graph.afterRenderHand);
+		assert names(graph.culled).equals(List.of("d1", "c1")) : names(graph.culled);
+		assert RenderGraph.framebufferBinds(graph.afterRenderHand) == 3;
+		checkGraph(config, PassConfig::isEnabled);
+
+		// disabled passes are neither scheduled nor reported as culled
+		graph = RenderGraph.compile(config, p -> !p.name.equals("b1"));
+		assert names(graph.afterRenderHand).equals(List.of("a1", "a2", "final")) : names(graph.afterRenderHand);
+		assert names(graph.culled).equals(List.of("d1", "c1")) : names(graph.culled);
+	}
+
+	@Test
+	void bundledPipelines() throws IOException {
+		final ObjectOpenHashSet<ResourceLocation> opened = new ObjectOpenHashSet<>();
+
+		final PipelineConfigBuilder.ResourceOpener opener = id -> {
+			final Path path = ASSETS.resolve(id.getNamespace()).resolve(id.getPath());
+
+			if (!Files.exists(path)) {
+				return null;
+			}
+
+			opened.add(id);
+			return Files.newInputStream(path);
+		};
+
+		for (final String file : jsonFiles(ASSETS.resolve("canvas").resolve("pipelines"))) {
+			final ResourceLocation id = new ResourceLocation("canvas", "pipelines/" + file);
+			final PipelineConfig config = PipelineConfigBuilder.build(id, opener);
+			assert config != null : id;
+
+			final ObjectOpenHashSet<String> toggles = new ObjectOpenHashSet<>();
+
+			for (final PassConfig[] passes : List.of(config.onWorldStart, config.fabulous, config.afterRenderHand)) {
+				for (final PassConfig pass : passes) {
+					if (pass.toggleConfig.isValid()) {
+						toggles.add(pass.toggleConfig.name);
+					}
+				}
+			}
+
+			System.out.println(id + " culled with defaults: " + names(RenderGraph.compile(config).culled));
+
+			checkGraph(config, p -> true);
+			checkGraph(config, p -> !p.toggleConfig.isValid());
+
+			for (final String toggle : toggles) {
+				checkGraph(config, p -> !p.toggleConfig.isValid() || !p.toggleConfig.name.equals(toggle));
+			}
+		}
+
+		// every shared fragment must have been analyzed as part of some pipeline
+		for (final String file : jsonFiles(ASSETS.resolve("canvas").resolve("pipeline"))) {
+			assert opened.contains(new ResourceLocation("canvas", "pipeline/" + file)) : file;
+		}
+	}
+
+	private static List<String> jsonFiles(Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(p -> p.getFileName().toString()).filter(s -> s.endsWith(".json5") || s.endsWith(".json")).sorted().toList();
+		}
+	}
+
+	private static List<String> names(PassConfig[] passes) {
+		return Arrays.stream(passes).map(p -> p.name).toList();
+	}
+
+	/** Checks compiled output against the declared passes without relying on compiler internals. */
+	private static void checkGraph(PipelineConfig config, Predicate<PassConfig> isEnabled) {
+		final RenderGraph graph = RenderGraph.compile(config, isEnabled);
+		final List<PassConfig> culled = List.of(graph.culled);
+
+		checkSequence(config.onWorldStart, graph.onWorldStart, culled, isEnabled);
+		checkSequence(config.afterRenderHand, graph.afterRenderHand, culled, isEnabled);
+
+		if (config.fabulosity != null) {
+			checkSequence(config.fabulous, graph.fabulous, culled, isEnabled);
+		} else {
+			assert graph.fabulous.length == 0;
+		}
+
+		// nothing still running, and no fixed consumer, may need a culled pass
+		final ObjectOpenHashSet<String> needed = new ObjectOpenHashSet<>();
+		needed.addAll(images(config.defaultFramebuffer));
+		needed.addAll(images(config.drawTargets.solidTerrain));
+		needed.addAll(images(config.drawTargets.translucentTerrain));
+
+		if (config.skyShadow != null) {
+			needed.addAll(images(config.skyShadow.framebuffer));
+		}
+
+		for (final PassConfig[] passes : List.of(graph.onWorldStart, graph.fabulous, graph.afterRenderHand)) {
+			for (final PassConfig pass : passes) {
+				needed.addAll(reads(pass));
+			}
+		}
+
+		for (final PassConfig pass : culled) {
+			for (final String img : images(pass.framebuffer)) {
+				assert !needed.contains(img) : pass.name + " culled but " + img + " is used";
+			}
+		}
+	}
+
+	private static void checkSequence(PassConfig[] declared, PassConfig[] compiled, List<PassConfig> culled, Predicate<PassConfig> isEnabled) {
+		final List<PassConfig> result = List.of(compiled);
+		final List<PassConfig> expected = Arrays.stream(declared).filter(p -> isEnabled.test(p) && !culled.contains(p)).toList();
+
+		assert result.size() == expected.size() && result.containsAll(expected) : names(compiled);
+
+		for (int i = 0; i < declared.length; ++i) {
+			for (int j = i + 1; j < declared.length; ++j) {
+				if (result.contains(declared[i]) && result.contains(declared[j]) && conflicts(declared[i], declared[j])) {
+					assert result.indexOf(declared[i]) < result.indexOf(declared[j]) : declared[i].name + " reordered after " + declared[j].name;
+				}
+			}
+		}
+
+		assert RenderGraph.framebufferBinds(compiled) <= RenderGraph.framebufferBinds(expected.toArray(new PassConfig[0]));
+	}
+
+	private static boolean conflicts(PassConfig a, PassConfig b) {
+		final List<String> aWrites = images(a.framebuffer);
+		final List<String> bWrites = images(b.framebuffer);
+		return aWrites.stream().anyMatch(s -> bWrites.contains(s) || reads(b).contains(s))
+				|| reads(a).stream().anyMatch(bWrites::contains);
+	}
+
+	private static List<String> reads(PassConfig pass) {
+		return Arrays.stream(pass.samplerImages).map(d -> d.name).toList();
+	}
+
+	private static List<String> images(NamedDependency<FramebufferConfig> framebuffer) {
+		final FramebufferConfig fb = framebuffer.value();
+
+		if (fb == null) {
+			return List.of();
+		}
+
+		final Stream<String> color = Arrays.stream(fb.colorAttachments).map(a -> a.image.name);
+		return fb.depthAttachment == null ? color.toList() : Stream.concat(color, Stream.of(fb.depthAttachment.image.name)).toList();
+	}
+}
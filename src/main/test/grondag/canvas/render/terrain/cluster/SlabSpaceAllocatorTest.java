@@ -0,0 +1,319 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.render.terrain.cluster;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the slab free list against a simple occupancy model. Traces recorded from play sessions
+ * can be replayed by pointing the {@code canvas.slabTraces} system property at a directory of
+ * text files with one operation per line: {@code a <id> <vertexCount>} or {@code f <id>}.
+ */
+public class SlabSpaceAllocatorTest {
+	/** Vertex capacity of a fairly large slab. */
+	private static final int CAPACITY = SlabAllocator.SLAB_QUAD_VERTEX_COUNT_INCREMENT * 64;
+
+	@Test
+	void coalescing() {
+		final SlabSpaceAllocator space = new SlabSpaceAllocator(64);
+		final int a = space.allocate(16);
+		final int b = space.allocate(16);
+		final int c = space.allocate(16);
+
+		assert a == 0 && b == 16 && c == 32;
+		assert space.freeBlockCount() == 1 && space.largestFree() == 16;
+
+		space.free(a, 16);
+		space.free(c, 16);
+		assert space.freeBlockCount() == 2 : "c should merge with the tail";
+		assert space.largestFree() == 32 && space.strandedCount() == 16;
+
+		// best fit takes the exact hole, not the tail
+		assert space.allocate(16) == 0;
+		space.free(0, 16);
+
+		space.free(b, 16);
+		assert space.freeBlockCount() == 1 && space.largestFree() == 64 && space.isEmpty();
+		assert space.fragmentation() == 0f;
+
+		assert space.allocate(65) == SlabSpaceAllocator.NO_SPACE;
+	}
+
+	@Test
+	void reuseMakesDrawListsStale() {
+		final SlabSpaceAllocator space = new SlabSpaceAllocator(64);
+		final int a = space.allocate(16);
+		space.allocate(16);
+
+		// as recorded by a draw list built now
+		final SlabVersions built = new SlabVersions();
+		built.add(space);
+
+		// new allocations don't move anything the list draws
+		space.allocate(16);
+		assert !built.isStale();
+
+		space.free(a, 16);
+		assert space.allocate(16) == a : "freed range should be reused";
+		assert built.isStale();
+
+		final SlabVersions rebuilt = new SlabVersions();
+		rebuilt.add(space);
+		assert !rebuilt.isStale();
+	}
+
+	@Test
+	void randomFuzz() {
+		final Random r = new Random(1234);
+
+		for (int round = 0; round < 20; ++round) {
+			final Model model = new Model(new SlabSpaceAllocator(4096), 1);
+			final List<int[]> live = new ArrayList<>();
+
+			for (int op = 0; op < 20000; ++op) {
+				if (!live.isEmpty() && r.nextInt(100) < 45) {
+					final int[] alloc = live.remove(r.nextInt(live.size()));
+					model.free(alloc[0], alloc[1]);
+				} else {
+					final int size = (1 + r.nextInt(r.nextBoolean() ? 8 : 128)) * 4;
+					final int start = model.allocate(size);
+
+					if (start != SlabSpaceAllocator.NO_SPACE) {
+						live.add(new int[] {start, size});
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void syntheticSession() {
+		report("synthetic session", replay(syntheticTrace(new Random(42), 200000)));
+	}
+
+	@Test
+	void recordedTraces() throws IOException {
+		final String dir = System.getProperty("canvas.slabTraces");
+
+		if (dir == null) {
+			return;
+		}
+
+		try (Stream<Path> files = Files.list(Path.of(dir))) {
+			for (final Path file : files.sorted().toList()) {
+				report(file.getFileName().toString(), replay(Files.readAllLines(file)));
+			}
+		}
+	}
+
+	/**
+	 * Regions are loaded as the player moves and unloaded behind them, and are frequently
+	 * rebuilt in place with a slightly different size - as when blocks are placed or broken.
+	 */
+	private static List<String> syntheticTrace(Random r, int opCount) {
+		final List<String> result = new ArrayList<>();
+		final List<int[]> live = new ArrayList<>();
+		int nextId = 0;
+		int liveVertices = 0;
+
+		for (int op = 0; op < opCount; ++op) {
+			final int roll = r.nextInt(100);
+
+			if (!live.isEmpty() && (roll < 30 || liveVertices > CAPACITY * 3 / 4)) {
+				// mostly unload the oldest regions, left behind as the player moves
+				final int[] region = live.remove(r.nextInt(4) == 0 ? r.nextInt(live.size()) : 0);
+				result.add("f " + region[0]);
+				liveVertices -= region[1];
+			} else {
+				if (!live.isEmpty() && roll < 50) {
+					// rebuild in place
+					final int[] region = live.remove(r.nextInt(live.size()));
+					result.add("f " + region[0]);
+					liveVertices -= region[1];
+				}
+
+				final int size = regionSize(r);
+				result.add("a " + nextId + " " + size);
+				live.add(new int[] {nextId++, size});
+				liveVertices += size;
+			}
+		}
+
+		return result;
+	}
+
+	/** Mostly sparse surface regions with a tail of dense ones, always whole quads. */
+	private static int regionSize(Random r) {
+		final double x = r.nextDouble();
+		final int quads = x < 0.7 ? 50 + r.nextInt(600) : x < 0.95 ? 600 + r.nextInt(2500) : 3000 + r.nextInt(8000);
+		return quads * 4;
+	}
+
+	private static Stats replay(List<String> trace) {
+		final Model model = new Model(new SlabSpaceAllocator(CAPACITY), 1000);
+		final Int2IntOpenHashMap starts = new Int2IntOpenHashMap();
+		final Int2IntOpenHashMap sizes = new Int2IntOpenHashMap();
+		final Stats stats = new Stats();
+		int bumpHead = 0;
+
+		for (final String line : trace) {
+			final String[] parts = line.trim().split("\\s+");
+
+			if (parts.length == 3 && parts[0].equals("a")) {
+				final int id = Integer.parseInt(parts[1]);
+				final int size = Integer.parseInt(parts[2]);
+				final int start = model.allocate(size);
+				++stats.allocations;
+
+				if (start == SlabSpaceAllocator.NO_SPACE) {
+					++stats.failures;
+				} else {
+					starts.put(id, start);
+					sizes.put(id, size);
+				}
+
+				// bump allocation only reclaims space once the slab is entirely empty
+				if (bumpHead + size > CAPACITY) {
+					++stats.bumpCompactions;
+					bumpHead = model.space.usedCount();
+				}
+
+				bumpHead += size;
+			} else if (parts.length == 2 && parts[0].equals("f")) {
+				final int id = Integer.parseInt(parts[1]);
+
+				if (starts.containsKey(id)) {
+					model.free(starts.remove(id), sizes.remove(id));
+				}
+			} else if (!line.isBlank()) {
+				throw new IllegalArgumentException("Unrecognized trace line: " + line);
+			}
+
+			stats.maxFragmentation = Math.max(stats.maxFragmentation, model.space.fragmentation());
+			stats.fragmentationSum += model.space.fragmentation();
+			++stats.steps;
+		}
+
+		return stats;
+	}
+
+	private static void report(String name, Stats stats) {
+		System.out.println(String.format("%s: %d allocations, %d failed (each would start a new slab), %d bump-allocator compactions, mean fragmentation %.3f, max %.3f",
+				name, stats.allocations, stats.failures, stats.bumpCompactions, stats.fragmentationSum / Math.max(1, stats.steps), stats.maxFragmentation));
+
+		assert stats.failures <= stats.bumpCompactions;
+	}
+
+	private static class Stats {
+		int allocations;
+		int failures;
+		int bumpCompactions;
+		int steps;
+		double fragmentationSum;
+		float maxFragmentation;
+	}
+
+	/** Shadows the allocator with a per-unit occupancy map and periodically checks every invariant. */
+	private static class Model {
+		final SlabSpaceAllocator space;
+		final boolean[] used;
+		final int verifyInterval;
+		int opCount;
+
+		Model(SlabSpaceAllocator space, int verifyInterval) {
+			this.space = space;
+			this.verifyInterval = verifyInterval;
+			used = new boolean[space.capacity()];
+		}
+
+		int allocate(int size) {
+			final int start = space.allocate(size);
+
+			if (start == SlabSpaceAllocator.NO_SPACE) {
+				assert space.largestFree() < size && largestRun() < size : "Allocation failed with sufficient contiguous space";
+			} else {
+				for (int i = start; i < start + size; ++i) {
+					assert !used[i] : "Overlapping allocation";
+					used[i] = true;
+				}
+			}
+
+			verify();
+			return start;
+		}
+
+		void free(int start, int size) {
+			space.free(start, size);
+
+			for (int i = start; i < start + size; ++i) {
+				assert used[i];
+				used[i] = false;
+			}
+
+			verify();
+		}
+
+		private int largestRun() {
+			int result = 0;
+			int run = 0;
+
+			for (final boolean u : used) {
+				run = u ? 0 : run + 1;
+				result = Math.max(result, run);
+			}
+
+			return result;
+		}
+
+		private void verify() {
+			if (++opCount % verifyInterval != 0) {
+				return;
+			}
+
+			int free = 0;
+			int runs = 0;
+
+			for (int i = 0; i < used.length; ++i) {
+				if (!used[i]) {
+					++free;
+
+					if (i == 0 || used[i - 1]) {
+						++runs;
+					}
+				}
+			}
+
+			assert space.freeCount() == free;
+			// every adjacent pair of free ranges must have been merged
+			assert space.freeBlockCount() == runs;
+			assert space.largestFree() == largestRun();
+		}
+	}
+}
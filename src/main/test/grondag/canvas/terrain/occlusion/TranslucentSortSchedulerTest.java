@@ -0,0 +1,117 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TranslucentSortSchedulerTest {
+	@Test
+	void angleFallsWithDistance() {
+		final float near = TranslucentSortScheduler.sortAngle(0, 0, 24, 1, 0, 0);
+		final float far = TranslucentSortScheduler.sortAngle(0, 0, 240, 1, 0, 0);
+		assert near > far * 8;
+
+		// Camera inside the region uses the minimum distance
+		assert TranslucentSortScheduler.sortAngle(0, 0, 0, 1, 0, 0) == 1 / TranslucentSortScheduler.MIN_SORT_DISTANCE;
+
+		// One block of movement still resorts a nearby region, but not a distant one
+		assert TranslucentSortScheduler.sortAngle(0, 0, 16, 1, 0, 0) >= TranslucentSortScheduler.MIN_SORT_ANGLE;
+		assert TranslucentSortScheduler.sortAngle(0, 0, 128, 1, 0, 0) < TranslucentSortScheduler.MIN_SORT_ANGLE;
+	}
+
+	@Test
+	void selectionPrefersValueWithinBudget() {
+		final TranslucentSortScheduler scheduler = new TranslucentSortScheduler();
+		scheduler.clear();
+		// Near and moved a lot
+		scheduler.add(0, 0.5f, 0, 1000, 0);
+		// Far and barely moved
+		scheduler.add(1, 0.06f, 3, 1000, 0);
+		// Too large to fit after the first
+		scheduler.add(2, 0.5f, 1, 5000, 0);
+		// Small and cheap
+		scheduler.add(3, 0.2f, 2, 100, 0);
+
+		assert scheduler.select(2000, 16) == 2;
+		assert scheduler.isSelected(0);
+		assert !scheduler.isSelected(1);
+		assert !scheduler.isSelected(2);
+		assert scheduler.isSelected(3);
+
+		// Always takes at least one even if nothing fits
+		scheduler.clear();
+		scheduler.add(7, 0.5f, 0, 5000, 0);
+		assert scheduler.select(1000, 16) == 1;
+		assert scheduler.regionIndex(0) == 7 && scheduler.isSelected(0);
+
+		// Count limit
+		scheduler.clear();
+
+		for (int i = 0; i < 10; ++i) {
+			scheduler.add(i, 0.5f, 0, 1, 0);
+		}
+
+		assert scheduler.select(Integer.MAX_VALUE, 4) == 4;
+	}
+
+	@Test
+	void starvedRegionsAreSorted() {
+		final TranslucentSortScheduler scheduler = new TranslucentSortScheduler();
+		final Random r = new Random(42);
+		final int regionCount = 600;
+		final int[] waitFrames = new int[regionCount];
+		final int[] quads = new int[regionCount];
+		final int[] tiers = new int[regionCount];
+		int maxWait = 0;
+
+		for (int i = 0; i < regionCount; ++i) {
+			quads[i] = 16 + r.nextInt(2000);
+			tiers[i] = r.nextInt(TranslucentSortScheduler.TIER_COUNT);
+		}
+
+		// Every region needs a resort every frame, far more than the budget allows
+		for (int frame = 0; frame < 500; ++frame) {
+			scheduler.clear();
+
+			for (int i = 0; i < regionCount; ++i) {
+				scheduler.add(i, 0.1f + r.nextFloat(), tiers[i], quads[i], waitFrames[i]);
+			}
+
+			scheduler.select(16384, 16);
+
+			for (int c = 0; c < scheduler.candidateCount(); ++c) {
+				final int i = scheduler.regionIndex(c);
+
+				if (scheduler.isSelected(c)) {
+					waitFrames[i] = 0;
+				} else {
+					maxWait = Math.max(maxWait, ++waitFrames[i]);
+				}
+			}
+		}
+
+		// Forced selection is capped per frame, so the worst case wait is bounded by
+		// the number of regions that can become starved at once divided by that cap.
+		assert maxWait <= TranslucentSortScheduler.MAX_WAIT_FRAMES + regionCount / 16 : maxWait;
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.camera;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import grondag.bitraster.PackedBox;
+
+class OccluderBudgetTest {
+	private static final int REGION_RADIUS = 12;
+	private static final int TRIAL_COUNT = 50;
+
+	@Test
+	void valueRanksBySizeAndDistance() {
+		final int small = PackedBox.pack(6, 6, 6, 10, 10, 10, PackedBox.RANGE_NEAR);
+		final int slab = PackedBox.pack(0, 0, 0, 16, 16, 1, PackedBox.RANGE_FAR);
+
+		assert OccluderBudget.valueBucket(PackedBox.FULL_BOX, 0, 0, 32) > OccluderBudget.valueBucket(PackedBox.FULL_BOX, 0, 0, 256);
+		assert OccluderBudget.valueBucket(PackedBox.FULL_BOX, 0, 0, 64) > OccluderBudget.valueBucket(small, 0, 0, 64);
+
+		// A slab seen face-on covers more than one seen edge-on
+		assert OccluderBudget.valueBucket(slab, 0, 0, 64) > OccluderBudget.valueBucket(slab, 64, 0, 0);
+
+		// Camera inside the box
+		assert OccluderBudget.valueBucket(PackedBox.FULL_BOX, 0, 0, 0) == OccluderBudget.VALUE_BUCKET_COUNT - 1;
+	}
+
+	@Test
+	void selectionKeepsOrderWithinBudget() {
+		final Random r = new Random(42);
+		final int[][] regions = randomRegions(r, 500);
+		final float[][] centers = randomCenters(r, regions.length);
+		final OccluderBudget budget = new OccluderBudget();
+		final int limit = 2000;
+
+		for (int pass = 0; pass < 3; ++pass) {
+			budget.reset(limit);
+			assert budget.isEnabled();
+			int drawn = 0;
+
+			for (int i = 0; i < regions.length; ++i) {
+				final int[] data = regions[i];
+				final int[] selected = budget.select(data, centers[i][0], centers[i][1], centers[i][2]);
+
+				if (selected == null) {
+					continue;
+				}
+
+				assert selected[0] == data[0];
+				assert selected.length > 1;
+
+				// Selected boxes are a subsequence of the input that all meet the threshold
+				int j = 1;
+
+				for (int k = 1; k < selected.length; ++k) {
+					while (data[j] != selected[k]) {
+						++j;
+					}
+
+					assert OccluderBudget.valueBucket(selected[k], centers[i][0], centers[i][1], centers[i][2]) >= budget.thresholdBucket();
+					++j;
+				}
+
+				drawn += selected.length - 1;
+			}
+
+			assert drawn <= limit;
+
+			// After the first pass the threshold comes from a histogram of the same scene
+			if (pass > 0) {
+				assert budget.thresholdBucket() > 0;
+			}
+		}
+
+		budget.reset(Integer.MAX_VALUE);
+
+		for (int i = 0; i < regions.length; ++i) {
+			final int[] selected = budget.select(regions[i], centers[i][0], centers[i][1], centers[i][2]);
+			assert selected == (regions[i].length == 1 ? null : regions[i]);
+		}
+
+		budget.reset(0);
+		assert !budget.isEnabled();
+	}
+
+	/**
+	 * Headless comparison across budgets on a synthetic scene of regions around the camera.
+	 * Reports the share of total estimated screen coverage kept, which approximates culling
+	 * effectiveness, and selection time per iteration. Raster draw time isn't included
+	 * because it scales with boxes drawn, which is also reported.
+	 */
+	@Test
+	void compareBudgets() {
+		final Random r = new Random(42);
+		final int diameter = REGION_RADIUS * 2 + 1;
+		final int regionCount = diameter * diameter * 3;
+		final int[][] regions = randomRegions(r, regionCount);
+		final float[][] centers = new float[regionCount][];
+		int boxCount = 0;
+		double totalValue = 0;
+
+		for (int i = 0; i < regionCount; ++i) {
+			final int x = i % diameter - REGION_RADIUS;
+			final int z = (i / diameter) % diameter - REGION_RADIUS;
+			final int y = i / (diameter * diameter) - 1;
+			centers[i] = new float[] {x * 16 + 3.5f, y * 16 - 4.5f, z * 16 + 1.5f};
+			boxCount += regions[i].length - 1;
+
+			for (int k = 1; k < regions[i].length; ++k) {
+				totalValue += value(regions[i][k], centers[i]);
+			}
+		}
+
+		// Iterate near to far like camera iteration
+		final Integer[] order = new Integer[regionCount];
+
+		for (int i = 0; i < regionCount; ++i) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (a, b) -> Float.compare(squaredLength(centers[a]), squaredLength(centers[b])));
+
+		for (final int limit : new int[] {boxCount, boxCount / 2, boxCount / 4, boxCount / 8, boxCount / 16}) {
+			final OccluderBudget budget = new OccluderBudget();
+			long nanos = 0;
+			int drawn = 0;
+			double keptValue = 0;
+
+			for (int n = 0; n < TRIAL_COUNT; ++n) {
+				budget.reset(limit);
+				drawn = 0;
+				keptValue = 0;
+				final long start = System.nanoTime();
+
+				for (final int i : order) {
+					final int[] selected = budget.select(regions[i], centers[i][0], centers[i][1], centers[i][2]);
+
+					if (selected != null) {
+						drawn += selected.length - 1;
+					}
+				}
+
+				nanos += System.nanoTime() - start;
+
+				// Repeat outside timing to measure what was kept
+				budget.reset(limit);
+
+				for (final int i : order) {
+					final int[] selected = budget.select(regions[i], centers[i][0], centers[i][1], centers[i][2]);
+
+					if (selected != null) {
+						for (int k = 1; k < selected.length; ++k) {
+							keptValue += value(selected[k], centers[i]);
+						}
+					}
+				}
+			}
+
+			assert drawn <= limit;
+			System.out.println(String.format("Budget %,d of %,d boxes: drew %,d  coverage kept %.1f%%  selection time %,dns",
+					limit, boxCount, drawn, keptValue * 100 / totalValue, nanos / TRIAL_COUNT));
+		}
+	}
+
+	private static double value(int box, float[] center) {
+		final int dx = PackedBox.x1(box) - PackedBox.x0(box);
+		final int dy = PackedBox.y1(box) - PackedBox.y0(box);
+		final int dz = PackedBox.z1(box) - PackedBox.z0(box);
+		final double x = center[0] + (PackedBox.x0(box) + PackedBox.x1(box)) * 0.5 - 8;
+		final double y = center[1] + (PackedBox.y0(box) + PackedBox.y1(box)) * 0.5 - 8;
+		final double z = center[2] + (PackedBox.z0(box) + PackedBox.z1(box)) * 0.5 - 8;
+		final double d = Math.max(1, Math.sqrt(x * x + y * y + z * z));
+		return Math.min(4 * Math.PI, (dy * dz * Math.abs(x) + dx * dz * Math.abs(y) + dx * dy * Math.abs(z)) / (d * d * d));
+	}
+
+	private static float squaredLength(float[] v) {
+		return v[0] * v[0] + v[1] * v[1] + v[2] * v[2];
+	}
+
+	private static float[][] randomCenters(Random r, int count) {
+		final float[][] result = new float[count][];
+
+		for (int i = 0; i < count; ++i) {
+			result[i] = new float[] {r.nextFloat() * 400 - 200, r.nextFloat() * 100 - 50, r.nextFloat() * 400 - 200};
+		}
+
+		return result;
+	}
+
+	/** Mimics BoxFinder output: a few large boxes followed by many small ones. */
+	private static int[][] randomRegions(Random r, int count) {
+		final int[][] result = new int[count][];
+
+		for (int i = 0; i < count; ++i) {
+			final int boxCount = r.nextInt(24);
+			final int[] data = new int[boxCount + 1];
+			data[0] = PackedBox.FULL_BOX;
+
+			for (int k = 1; k <= boxCount; ++k) {
+				final int size = Math.max(1, 16 >> Math.min(4, k / 2));
+				final int x0 = r.nextInt(17 - size);
+				final int y0 = r.nextInt(17 - size);
+				final int z0 = r.nextInt(17 - size);
+				data[k] = PackedBox.pack(x0, y0, z0, x0 + size, y0 + r.nextInt(size) + 1, z0 + size, PackedBox.RANGE_NEAR);
+			}
+
+			result[i] = data;
+		}
+
+		return result;
+	}
+}
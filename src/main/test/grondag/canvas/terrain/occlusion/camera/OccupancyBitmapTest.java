@@ -0,0 +1,171 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.camera;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OccupancyBitmapTest {
+	private static final int RADIUS = 34;
+	private static final int TRIAL_COUNT = 200;
+
+	@Test
+	void matchesBitSet() {
+		final Random r = new Random(42);
+		final int capacity = 300000;
+		final OccupancyBitmap bitmap = new OccupancyBitmap(capacity);
+		final BitSet expected = new BitSet(capacity);
+
+		for (int n = 0; n < 20; ++n) {
+			final int count = r.nextInt(5000);
+
+			for (int i = 0; i < count; ++i) {
+				final int index = r.nextInt(capacity);
+				bitmap.set(index);
+				expected.set(index);
+			}
+
+			for (int i = 0; i < 2000; ++i) {
+				final int from = r.nextInt(capacity);
+				final int limit = from + r.nextInt(capacity - from + 1);
+				final int next = expected.nextSetBit(from);
+				assert bitmap.nextSetBit(from, limit) == (next >= 0 && next < limit ? next : -1);
+			}
+
+			if ((n & 3) == 3) {
+				bitmap.clear();
+				expected.clear();
+				assert bitmap.nextSetBit(0, capacity) == -1;
+			}
+		}
+	}
+
+	/**
+	 * Compares iteration by linear scan, as the region set used to do, with bitmap iteration
+	 * over the same ring layout. Sparse fill models elytra flight, where most of the sphere
+	 * around the camera isn't loaded yet.
+	 */
+	@Test
+	void benchmarkRingIteration() {
+		final int[] ringSizes = ringSizes();
+		final int[] ringStarts = new int[ringSizes.length];
+		int length = 0;
+
+		for (int i = 0; i < ringSizes.length; ++i) {
+			ringStarts[i] = length;
+			length += ringSizes[i];
+		}
+
+		benchmark("Dense", ringSizes, ringStarts, length, 0.5f, 1f);
+		benchmark("Sparse", ringSizes, ringStarts, length, 0.5f, 0.05f);
+		benchmark("Near only", ringSizes, ringStarts, length, 0.05f, 1f);
+	}
+
+	/**
+	 * @param ringFraction fraction of rings, from nearest, that may hold regions
+	 * @param fillFraction fraction of those regions present
+	 */
+	private static void benchmark(String label, int[] ringSizes, int[] ringStarts, int length, float ringFraction, float fillFraction) {
+		final Random r = new Random(42);
+		final Object[] states = new Object[length];
+		final OccupancyBitmap bitmap = new OccupancyBitmap(length);
+		final Object present = new Object();
+		final int ringLimit = (int) (ringSizes.length * ringFraction);
+		long linearNanos = 0;
+		long bitmapNanos = 0;
+		int presentCount = 0;
+
+		for (int n = 0; n < TRIAL_COUNT; ++n) {
+			Arrays.fill(states, null);
+			bitmap.clear();
+			int maxIndex = -1;
+
+			// Rings are filled contiguously from their start
+			for (int ring = 0; ring < ringLimit; ++ring) {
+				final int count = (int) (ringSizes[ring] * fillFraction * r.nextFloat() * 2);
+				final int end = ringStarts[ring] + Math.min(count, ringSizes[ring]);
+
+				for (int i = ringStarts[ring]; i < end; ++i) {
+					states[i] = present;
+					bitmap.set(i);
+					maxIndex = i;
+				}
+			}
+
+			int linearCount = 0;
+			long start = System.nanoTime();
+
+			for (int i = 0; i <= maxIndex; ++i) {
+				if (states[i] != null) {
+					++linearCount;
+				}
+			}
+
+			linearNanos += System.nanoTime() - start;
+
+			int bitmapCount = 0;
+			start = System.nanoTime();
+			int i = 0;
+
+			// Same as CameraPotentiallyVisibleRegionSet.next(): walk filled slots, jump over empty ones
+			while (i <= maxIndex) {
+				if (states[i] == null) {
+					i = bitmap.nextSetBit(i + 1, maxIndex + 1);
+
+					if (i < 0) {
+						break;
+					}
+				}
+
+				++bitmapCount;
+				++i;
+			}
+
+			bitmapNanos += System.nanoTime() - start;
+
+			assert linearCount == bitmapCount;
+			presentCount += bitmapCount;
+		}
+
+		System.out.println(label + " regions per iteration: " + presentCount / TRIAL_COUNT + " of " + length);
+		System.out.println(label + " linear scan duration:  " + linearNanos / TRIAL_COUNT);
+		System.out.println(label + " bitmap duration:       " + bitmapNanos / TRIAL_COUNT);
+	}
+
+	/** Same voxelized sphere as {@link CameraPotentiallyVisibleRegionSet}. */
+	private static int[] ringSizes() {
+		final int maxDist = RADIUS * RADIUS * 3;
+		final int[] counts = new int[maxDist + 1];
+
+		for (int x = -RADIUS; x <= RADIUS; ++x) {
+			for (int y = -RADIUS; y <= RADIUS; ++y) {
+				for (int z = -RADIUS; z <= RADIUS; ++z) {
+					++counts[x * x + y * y + z * z];
+				}
+			}
+		}
+
+		return Arrays.stream(counts).filter(c -> c != 0).toArray();
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link BoxFinder} and {@link AreaFinder#findLargest(long[])} give exactly
+ * the same results as {@link ReferenceBoxFinder}, the implementation they replaced.
+ */
+class BoxFinderEquivalenceTest {
+	private static final int RANDOM_SECTION_COUNT = 4000;
+	private static final int TIMING_SECTION_COUNT = 256;
+	private static final int TIMING_PASSES = 20;
+
+	@Test
+	void findLargestMatchesReference() {
+		final long[] bits = new long[4];
+
+		// Every 4x4 pattern, scaled up so each bit is a 4x4 block
+		for (int pattern = 0; pattern < 0x10000; ++pattern) {
+			bits[0] = bits[1] = bits[2] = bits[3] = 0;
+
+			for (int y = 0; y < 16; ++y) {
+				for (int x = 0; x < 16; ++x) {
+					if ((pattern & (1 << ((x >> 2) | ((y >> 2) << 2)))) != 0) {
+						final int i = x | (y << 4);
+						bits[i >> 6] |= 1L << (i & 63);
+					}
+				}
+			}
+
+			assertSameLargest(bits);
+		}
+
+		// Every row pattern, repeated on rows chosen by the pattern itself
+		for (int pattern = 1; pattern < 0x10000; ++pattern) {
+			bits[0] = bits[1] = bits[2] = bits[3] = 0;
+
+			for (int y = 0; y < 16; ++y) {
+				if ((pattern & (1 << y)) != 0) {
+					bits[y >> 2] |= (long) pattern << ((y & 3) << 4);
+				}
+			}
+
+			assertSameLargest(bits);
+		}
+
+		final Random r = new Random(42);
+
+		for (int n = 0; n < 200000; ++n) {
+			final int density = r.nextInt(16);
+
+			for (int w = 0; w < 4; ++w) {
+				long word = r.nextLong();
+
+				// more set bits as density rises
+				for (int d = 0; d < density >> 2; ++d) {
+					word |= r.nextLong();
+				}
+
+				bits[w] = word;
+			}
+
+			if ((bits[0] | bits[1] | bits[2] | bits[3]) != 0) {
+				assertSameLargest(bits);
+			}
+		}
+	}
+
+	@Test
+	void findBoxesMatchesReference() {
+		final BoxFinder finder = new BoxFinder(new AreaFinder());
+		final ReferenceBoxFinder reference = new ReferenceBoxFinder();
+		final Random r = new Random(42);
+
+		for (final Pattern pattern : Pattern.values()) {
+			for (int n = 0; n < RANDOM_SECTION_COUNT; ++n) {
+				final long[] section = pattern.section(r);
+				finder.findBoxes(section, 0);
+				reference.findBoxes(section, 0);
+				assert finder.boxes.equals(reference.boxes) : pattern + " section " + n;
+			}
+		}
+	}
+
+	/**
+	 * Headless per-section timing on the same patterns. Not a substitute for
+	 * the JMH benchmark but enough to see the difference without a separate run.
+	 */
+	@Test
+	void compareTiming() {
+		final BoxFinder finder = new BoxFinder(new AreaFinder());
+		final ReferenceBoxFinder reference = new ReferenceBoxFinder();
+		final Random r = new Random(42);
+
+		for (final Pattern pattern : Pattern.values()) {
+			final long[][] sections = new long[TIMING_SECTION_COUNT][];
+
+			for (int i = 0; i < TIMING_SECTION_COUNT; ++i) {
+				sections[i] = pattern.section(r);
+			}
+
+			long referenceNanos = 0;
+			long nanos = 0;
+
+			for (int pass = 0; pass < TIMING_PASSES; ++pass) {
+				long start = System.nanoTime();
+
+				for (final long[] section : sections) {
+					reference.findBoxes(section, 0);
+				}
+
+				referenceNanos += System.nanoTime() - start;
+				start = System.nanoTime();
+
+				for (final long[] section : sections) {
+					finder.findBoxes(section, 0);
+				}
+
+				nanos += System.nanoTime() - start;
+			}
+
+			final int count = TIMING_SECTION_COUNT * TIMING_PASSES;
+			System.out.println(String.format("%-9s reference %,dns  current %,dns per section", pattern, referenceNanos / count, nanos / count));
+		}
+	}
+
+	private static void assertSameLargest(long[] bits) {
+		final int expected = ReferenceBoxFinder.findLargest(bits);
+		final int actual = AreaFinder.findLargest(bits);
+		assert expected == actual : String.format("%016x %016x %016x %016x", bits[0], bits[1], bits[2], bits[3]);
+	}
+
+	private enum Pattern {
+		/** Independent random bits at varying density. */
+		RANDOM,
+
+		/** Solid below a noisy surface, like the top of the ground. */
+		SURFACE,
+
+		/** Solid with noise tunnels, like deep underground. */
+		CAVES,
+
+		/** Repeated layers, like flat worlds and stacked slabs of one material. */
+		LAYERS,
+
+		/** Few scattered blocks. */
+		SPARSE,
+
+		/** Rectangular rooms and walls. */
+		BUILDINGS;
+
+		long[] section(Random r) {
+			final long[] result = new long[64];
+			final int seed = r.nextInt();
+			final int density = r.nextInt(256);
+			final int surface = r.nextInt(24) - 4;
+			final int boxCount = 1 + r.nextInt(8);
+			final int[] rooms = new int[boxCount * 6];
+
+			for (int i = 0; i < rooms.length; i += 3) {
+				final int a = r.nextInt(16);
+				final int b = r.nextInt(16);
+				rooms[i] = Math.min(a, b);
+				rooms[i + 1] = Math.max(a, b);
+				rooms[i + 2] = r.nextInt(16);
+			}
+
+			for (int i = 0; i < 4096; ++i) {
+				final int x = i & 15;
+				final int y = (i >> 4) & 15;
+				final int z = i >> 8;
+
+				if (isSet(x, y, z, seed, density, surface, rooms)) {
+					result[i >> 6] |= 1L << (i & 63);
+				}
+			}
+
+			return result;
+		}
+
+		private boolean isSet(int x, int y, int z, int seed, int density, int surface, int[] rooms) {
+			switch (this) {
+				case RANDOM:
+					return (hash(x, y, z, seed) & 0xFF) < density;
+
+				case SURFACE:
+					return y < surface + (int) (noise(x, 0, z, seed, 3) * 6);
+
+				case CAVES:
+					return noise(x, y, z, seed, 2) > 0.35f + density / 1024f;
+
+				case LAYERS:
+					return (hash(0, y, 0, seed) & 0xFF) < density || (hash(x, y, 0, seed) & 0xFF) < 8;
+
+				case SPARSE:
+					return (hash(x, y, z, seed) & 0xFF) < 6;
+
+				case BUILDINGS:
+				default:
+					for (int i = 0; i < rooms.length; i += 6) {
+						if (x >= rooms[i] && x <= rooms[i + 1] && y >= rooms[i + 3] && y <= rooms[i + 4] && (z == rooms[i + 2] || z == rooms[i + 5])) {
+							return true;
+						}
+					}
+
+					return false;
+			}
+		}
+
+		private static int hash(int x, int y, int z, int seed) {
+			int h = seed * 0x9E3779B9 + x * 0x85EBCA6B + y * 0xC2B2AE35 + z * 0x27D4EB2F;
+			h ^= h >>> 15;
+			h *= 0x2C1B3C6D;
+			h ^= h >>> 12;
+			h *= 0x297A2D39;
+			return h ^ (h >>> 15);
+		}
+
+		/** Trilinear value noise in the range 0-1 with lattice spacing of 1 << scaleBits blocks. */
+		private static float noise(int x, int y, int z, int seed, int scaleBits) {
+			final int x0 = x >> scaleBits;
+			final int y0 = y >> scaleBits;
+			final int z0 = z >> scaleBits;
+			final float scale = 1f / (1 << scaleBits);
+			final float fx = (x - (x0 << scaleBits)) * scale;
+			final float fy = (y - (y0 << scaleBits)) * scale;
+			final float fz = (z - (z0 << scaleBits)) * scale;
+
+			final float c00 = lerp(fx, lattice(x0, y0, z0, seed), lattice(x0 + 1, y0, z0, seed));
+			final float c10 = lerp(fx, lattice(x0, y0 + 1, z0, seed), lattice(x0 + 1, y0 + 1, z0, seed));
+			final float c01 = lerp(fx, lattice(x0, y0, z0 + 1, seed), lattice(x0 + 1, y0, z0 + 1, seed));
+			final float c11 = lerp(fx, lattice(x0, y0 + 1, z0 + 1, seed), lattice(x0 + 1, y0 + 1, z0 + 1, seed));
+
+			return lerp(fz, lerp(fy, c00, c10), lerp(fy, c01, c11));
+		}
+
+		private static float lattice(int x, int y, int z, int seed) {
+			return (hash(x, y, z, seed) & 0xFFFF) / 65535f;
+		}
+
+		private static float lerp(float t, float a, float b) {
+			return a + (b - a) * t;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.INTERIOR_STATE_COUNT;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.TOTAL_STATE_COUNT;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+class OcclusionResultCacheTest {
+	private static class TestCalculator extends RegionOcclusionCalculator {
+		TestCalculator(OcclusionResultCache resultCache) {
+			super(resultCache);
+		}
+
+		@Override
+		protected BlockState blockStateAtIndex(int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected boolean closedAtRelativePos(BlockState blockState, int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Solid floor below a random height with scattered holes and random padding,
+		 * so results include boxes, open faces and hidden interior positions.
+		 */
+		void fill(long seed) {
+			final Random r = new Random(seed);
+			final int floor = 2 + r.nextInt(12);
+			clear();
+
+			for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+				if (((i >> 4) & 0xF) < floor && r.nextInt(20) != 0) {
+					setVisibility(i, true, true);
+				} else if (r.nextInt(50) == 0) {
+					setVisibility(i, true, false);
+				}
+			}
+
+			for (int i = INTERIOR_STATE_COUNT; i < TOTAL_STATE_COUNT; ++i) {
+				if (r.nextBoolean()) {
+					setVisibility(i, false, true);
+				}
+			}
+		}
+	}
+
+	private static void assertSameOutput(TestCalculator expected, OcclusionResult expectedResult, TestCalculator actual, OcclusionResult actualResult) {
+		assert Arrays.equals(expectedResult.occlusionData(), actualResult.occlusionData());
+		assert expectedResult.mutalFaceMask() == actualResult.mutalFaceMask();
+
+		for (int i = 0; i < TOTAL_STATE_COUNT; ++i) {
+			assert expected.isClosed(i) == actual.isClosed(i);
+		}
+
+		for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+			assert expected.shouldRender(i) == actual.shouldRender(i);
+		}
+	}
+
+	@Test
+	void cachedMatchesComputed() {
+		final OcclusionResultCache cache = new OcclusionResultCache();
+		final TestCalculator computed = new TestCalculator(null);
+		final TestCalculator cached = new TestCalculator(cache);
+		int expectedSize = 0;
+
+		// isNear only affects advanced culling, so near and far basic culling share entries
+		for (int mode = 0; mode < 3; ++mode) {
+			final boolean isNear = mode == 2;
+			final boolean advancedCulling = mode != 0;
+
+			for (long seed = 0; seed < 8; ++seed) {
+				computed.fill(seed);
+				final OcclusionResult expected = computed.build(isNear, advancedCulling);
+
+				// first build is a miss
+				cached.fill(seed);
+				final OcclusionResult first = cached.build(isNear, advancedCulling);
+				assert cache.size() == ++expectedSize;
+				assertSameOutput(computed, expected, cached, first);
+
+				// second build is a hit and must restore the same calculator state
+				cached.fill(seed);
+				final OcclusionResult second = cached.build(isNear, advancedCulling);
+				assert second == first;
+				assert cache.size() == expectedSize;
+				assertSameOutput(computed, expected, cached, second);
+
+				if (!advancedCulling) {
+					cached.fill(seed);
+					assert cached.build(true, false) == first;
+				}
+			}
+		}
+	}
+
+	@Test
+	void differentInputMisses() {
+		final OcclusionResultCache cache = new OcclusionResultCache();
+		final TestCalculator calc = new TestCalculator(cache);
+
+		calc.fill(1);
+		final OcclusionResult a = calc.build(false, true);
+
+		calc.fill(1);
+		calc.setVisibility(INTERIOR_STATE_COUNT - 1, true, false);
+		final OcclusionResult b = calc.build(false, true);
+
+		assert a != b;
+		assert cache.size() == 2;
+	}
+}
@@ -0,0 +1,564 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.INTERIOR_CACHE_WORDS;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.SLICE_WORD_COUNT;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntConsumer;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import grondag.bitraster.PackedBox;
+
+/**
+ * Copy of {@link BoxFinder} and {@link AreaFinder} before bit-parallel slice marking,
+ * kept as the reference for equivalence testing.
+ */
+class ReferenceBoxFinder {
+	/** Area indices of areas that span a full slice in x or y, in area order. */
+	private static final int[] SECTION_INDEX;
+
+	static {
+		final IntArrayList sections = new IntArrayList();
+
+		for (int i = 0; i < Area.AREA_COUNT; ++i) {
+			final int a = Area.indexToKey(i);
+
+			if ((Area.x0(a) == 0 && Area.x1(a) == 15) || (Area.y0(a) == 0 && Area.y1(a) == 15)) {
+				sections.add(i);
+			}
+		}
+
+		SECTION_INDEX = sections.toIntArray();
+	}
+
+	public final IntArrayList boxes = new IntArrayList();
+	final long[] source = new long[INTERIOR_CACHE_WORDS];
+	final long[] filled = new long[INTERIOR_CACHE_WORDS];
+	/**
+	 * Bits 0-15 indicate which slices contain the area with the same index of the value.
+	 */
+	final int[] areaSlices = new int[Area.AREA_COUNT];
+	private final LongArrayList sortedBoxes = new LongArrayList();
+	private final int[] EMPTY_AREA_SLICES = new int[Area.AREA_COUNT];
+	int mask;
+	private final IntConsumer markSliceConsumer = areaIndex -> areaSlices[areaIndex] |= mask;
+	private int voxelCount;
+	private final long[] areaBits = new long[4];
+	private final long[] sliceBits = new long[4];
+
+	public void findBoxes(long[] sourceBits, int sourceIndex) {
+		Arrays.fill(filled, 0);
+		System.arraycopy(sourceBits, sourceIndex, source, 0, INTERIOR_CACHE_WORDS);
+		boxes.clear();
+
+		markSectionSlices();
+		buildSortedSections();
+		findSections();
+
+		clearSectionBits();
+
+		voxelCount = voxelCount(sourceBits, sourceIndex);
+		markBoxSlices();
+		markBoxNeighborSlices();
+		buildSortedBoxes();
+		findDisjointBoxes();
+
+		if (voxelCount > 0) {
+			clearSectionBits();
+			markBoxSlices();
+			markBoxNeighborSlices();
+			buildSortedBoxes();
+			findDisjointBoxes();
+		}
+	}
+
+	private void buildSortedSections() {
+		final LongArrayList sortedBoxes = this.sortedBoxes;
+		sortedBoxes.clear();
+
+		final int[] areaSlices = this.areaSlices;
+
+		if (areaSlices[0] != 0) {
+			// handle special case of full Z-plane
+			addBoxesFromSlice(Area.indexToKey(0), areaSlices[0]);
+		}
+
+		for (int i = 1; i < SECTION_INDEX.length; ++i) {
+			final int areaIndex = SECTION_INDEX[i];
+			final int slice = areaSlices[areaIndex];
+
+			if (slice == 0xFFFF) {
+				final int areaKey = Area.indexToKey(areaIndex);
+				final int dy = (Area.y1(areaKey) - Area.y0(areaKey) + 1);
+				final int dx = (Area.x1(areaKey) - Area.x0(areaKey) + 1);
+				final long vol = (dx * dy * 16);
+				sortedBoxes.add((vol << 34) | (areaIndex << 10) | (16 << 5) | 0);
+			}
+		}
+
+		sortedBoxes.sort((a, b) -> Long.compare(b, a));
+	}
+
+	private void markBoxNeighborSlices() {
+		final int[] areaSlices = this.areaSlices;
+
+		for (int areaIndex = 0; areaIndex < Area.AREA_COUNT; ++areaIndex) {
+			int slice = areaSlices[areaIndex];
+
+			if (slice != 0) {
+				if ((slice & 1) == 1 && (slice & 2) == 0) {
+					// special case first slice - can only transfer up
+					if (Area.isIncludedBySample(source, SLICE_WORD_COUNT, areaIndex)) {
+						slice |= 2;
+					}
+				}
+
+				int mask = 2;
+
+				for (int z = 1; z < 15; z++) {
+					if ((slice & mask) != 0) {
+						// transfer to lower slice if not already present
+						final int lowMask = (mask >> 1);
+
+						if ((slice & lowMask) == 0) {
+							if (Area.isIncludedBySample(source, (z - 1) * SLICE_WORD_COUNT, areaIndex)) {
+								slice |= lowMask;
+							}
+						}
+
+						// transfer to upper slice if not already present
+						final int highMask = (mask << 1);
+
+						if ((slice & highMask) == 0) {
+							if (Area.isIncludedBySample(source, (z + 1) * SLICE_WORD_COUNT, areaIndex)) {
+								slice |= highMask;
+							}
+						}
+					}
+
+					mask <<= 1;
+				}
+
+				if ((slice & 0b1000000000000000) == 0b1000000000000000 && (slice & 0b0100000000000000) == 0) {
+					if (Area.isIncludedBySample(source, SLICE_WORD_COUNT * 14, areaIndex)) {
+						slice |= 0b0100000000000000;
+					}
+				}
+
+				areaSlices[areaIndex] = slice;
+			}
+		}
+	}
+
+	private void buildSortedBoxes() {
+		final LongArrayList sortedBoxes = this.sortedBoxes;
+		sortedBoxes.clear();
+
+		final int[] areaSlices = this.areaSlices;
+
+		for (int areaIndex = 0; areaIndex < Area.AREA_COUNT; ++areaIndex) {
+			final int slice = areaSlices[areaIndex];
+
+			if (slice != 0) {
+				addBoxesFromSlice(Area.indexToKey(areaIndex), slice);
+			}
+		}
+
+		sortedBoxes.sort((a, b) -> Long.compare(b, a));
+	}
+
+	private void addBoxesFromSlice(int areaKey, int slice) {
+		int z0 = -1;
+		int mask = 1;
+		final int x0 = Area.x0(areaKey);
+		final int y0 = Area.y0(areaKey);
+		final int x1 = Area.x1(areaKey);
+		final int y1 = Area.y1(areaKey);
+		final int areaIndex = Area.keyToIndex(areaKey);
+
+		for (int z = 0; z < 16; z++) {
+			if ((slice & mask) == 0) {
+				// no bit, end run if started
+				if (z0 != -1) {
+					final int dz = (z - z0);
+					final int dy = (y1 - y0 + 1);
+					final int dx = (x1 - x0 + 1);
+					final long vol = dx * dy * dz;
+					sortedBoxes.add((vol << 34) | (areaIndex << 10) | (z << 5) | z0);
+					z0 = -1;
+				}
+			} else {
+				// bit set, start run if not started
+				if (z0 == -1) {
+					z0 = z;
+				}
+			}
+
+			mask <<= 1;
+		}
+
+		// handle case when run extends to last bit
+		if (z0 != -1) {
+			final int dz = (16 - z0);
+			final int dy = (y1 - y0 + 1);
+			final int dx = (x1 - x0 + 1);
+			final long vol = dx * dy * dz;
+
+			sortedBoxes.add((vol << 34) | (areaIndex << 10) | (16 << 5) | z0);
+		}
+	}
+
+	// PERF: still slow on relative basis to rest of chunk baking
+	private void markBoxSlices() {
+		final long[] sourceBits = source;
+		final int[] areaSlices = this.areaSlices;
+		System.arraycopy(EMPTY_AREA_SLICES, 0, areaSlices, 0, Area.AREA_COUNT);
+		mask = 1;
+		int sourceIndex = 0;
+
+		for (int i = 0; i < 16; ++i) {
+			find(sourceBits, sourceIndex, markSliceConsumer);
+			sourceIndex += SLICE_WORD_COUNT;
+			mask <<= 1;
+		}
+	}
+
+	private void markSectionSlices() {
+		final long[] sourceBits = source;
+		final int[] areaSlices = this.areaSlices;
+		System.arraycopy(EMPTY_AREA_SLICES, 0, areaSlices, 0, Area.AREA_COUNT);
+		mask = 1;
+		int sourceIndex = 0;
+
+		for (int i = 0; i < 16; ++i) {
+			findSections(sourceBits, sourceIndex, markSliceConsumer);
+			sourceIndex += SLICE_WORD_COUNT;
+			mask <<= 1;
+		}
+	}
+
+	private void findSections() {
+		final LongArrayList sortedBoxes = this.sortedBoxes;
+		final int limit = sortedBoxes.size();
+		final IntArrayList boxes = this.boxes;
+
+		for (int i = 0; i < limit; i++) {
+			final long box = sortedBoxes.getLong(i);
+			final int areaIndex = (int) (box >> 10) & 0xFFFFFF;
+
+			final int z0 = (int) box & 31;
+			final int z1 = (int) (box >> 5) & 31;
+
+			if (isAdditive(areaIndex, z0, z1)) {
+				fill(areaIndex, z0, z1);
+				final int areaKey = Area.indexToKey(areaIndex);
+				boxes.add(PackedBox.pack(Area.x0(areaKey), Area.y0(areaKey), z0, Area.x1(areaKey) + 1, Area.y1(areaKey) + 1, z1, PackedBox.RANGE_EXTREME));
+			}
+		}
+	}
+
+	private void findDisjointBoxes() {
+		final LongArrayList sortedBoxes = this.sortedBoxes;
+		final int limit = sortedBoxes.size();
+		final IntArrayList boxes = this.boxes;
+
+		for (int i = 0; i < limit; i++) {
+			final long box = sortedBoxes.getLong(i);
+			final int areaIndex = (int) (box >> 10) & 0xFFFFFF;
+			final int z0 = (int) box & 31;
+			final int z1 = (int) (box >> 5) & 31;
+
+			if (!intersects(areaIndex, z0, z1)) {
+				fill(areaIndex, z0, z1);
+				final int vol = (int) (box >>> 34);
+				final int areaKey = Area.indexToKey(areaIndex);
+				boxes.add(PackedBox.pack(Area.x0(areaKey), Area.y0(areaKey), z0, Area.x1(areaKey) + 1, Area.y1(areaKey) + 1, z1, rangeFromVolume(vol)));
+				voxelCount -= vol;
+
+				if (voxelCount == 0) {
+					break;
+				}
+			}
+		}
+	}
+
+	private int rangeFromVolume(int maxArea) {
+		return maxArea <= 64 ? PackedBox.RANGE_NEAR : maxArea > 512 ? PackedBox.RANGE_FAR : PackedBox.RANGE_MID;
+	}
+
+	private int voxelCount(long[] sourceBits, int sourceIndex) {
+		int result = 0;
+		final int limit = sourceIndex + INTERIOR_CACHE_WORDS;
+
+		for (int i = sourceIndex; i < limit; ++i) {
+			final long bits = sourceBits[i];
+			result += bits == 0 ? 0 : bits == -1 ? 64 : Long.bitCount(bits);
+		}
+
+		return result;
+	}
+
+	private void fill(int areaIndex, int z0, int z1) {
+		final long[] filled = this.filled;
+		int index = z0 * SLICE_WORD_COUNT;
+		final long[] bits = bitsFromIndex(areaIndex);
+
+		for (int z = z0; z < z1; ++z) {
+			filled[index] |= bits[0];
+			filled[index + 1] |= bits[1];
+			filled[index + 2] |= bits[2];
+			filled[index + 3] |= bits[3];
+			index += SLICE_WORD_COUNT;
+		}
+	}
+
+	private boolean intersects(int areaIndex, int z0, int z1) {
+		final long[] filled = this.filled;
+		int index = z0 * SLICE_WORD_COUNT;
+
+		for (int z = z0; z < z1; ++z) {
+			if (Area.intersectsWithSample(filled, index, areaIndex)) {
+				return true;
+			}
+
+			index += SLICE_WORD_COUNT;
+		}
+
+		return false;
+	}
+
+	private boolean isAdditive(int areaIndex, int z0, int z1) {
+		final long[] filled = this.filled;
+		int index = z0 * SLICE_WORD_COUNT;
+
+		final long a0 = Area.bitsFromIndex(areaIndex, 0);
+		final long a1 = Area.bitsFromIndex(areaIndex, 1);
+		final long a2 = Area.bitsFromIndex(areaIndex, 2);
+		final long a3 = Area.bitsFromIndex(areaIndex, 3);
+
+		for (int z = z0; z < z1; ++z) {
+			if (((~filled[index++] & a0) | (~filled[index++] & a1) | (~filled[index++] & a2) | (~filled[index++] & a3)) != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void clearSectionBits() {
+		for (int i = 0; i < INTERIOR_CACHE_WORDS; ++i) {
+			source[i] &= ~filled[i];
+		}
+	}
+
+	private static int bitCount(long bits) {
+		return bits == 0 ? 0 : Long.bitCount(bits);
+	}
+
+	// based on approach described here:
+	// 	https://stackoverflow.com/a/7497967
+	// 	https://stackoverflow.com/a/7773870
+	//  https://www.drdobbs.com/database/the-maximal-rectangle-problem/184410529
+	static int findLargest(long[] bitsIn) {
+		int bestX0 = 0;
+		int bestY0 = 0;
+		int bestX1 = -1;
+		int bestY1 = -1;
+		int bestArea = 0;
+
+		// height of prior rows
+		// four bits per position, values 0-15
+		long heights = 0;
+
+		for (int y = 0; y < 16; ++y) {
+			final int rowBits = (int) ((bitsIn[y >> 2] >> ((y & 3) << 4)) & 0xFFFF);
+
+			if (rowBits == 0) {
+				heights = 0;
+				continue;
+			}
+
+			//	OcclusionBitPrinter.printSpaced(Strings.padStart(Integer.toBinaryString(rowBits), 16, '0'));
+
+			// track start of runs up to current height
+			long stackX15 = 0; // 0-15
+			long stackH16 = 0; // 1-16
+			int stackSize = 0;
+
+			// height of first column is zero if closed, otherwise 1 + previous row first column height
+			int runHeight = (rowBits & 1) == 0 ? 0 : (1 + getVal15(heights, 0));
+			int runStart = 0;
+
+			// save height for use by next row, unless at top row
+			if (y != 15) heights = setVal15(heights, 0, runHeight);
+
+			// NB: inclusive of 16. The height @ 16 will always be zero, closing off last column
+			for (int x = 1; x <= 16; ++x) {
+				// height here is 0 if closed, otherwise 1 + height of row below
+				final int h = (rowBits & (1 << x)) == 0 ? 0 : (1 + getVal15(heights, x));
+
+				// if higher than last start new run
+				if (h > runHeight) {
+					// push current run onto stack
+					if (runHeight != 0) {
+						stackX15 = setVal15(stackX15, stackSize, runStart);
+						stackH16 = setVal16(stackH16, stackSize, runHeight);
+						++stackSize;
+					}
+
+					// new run starts here
+					runStart = x;
+					runHeight = h;
+				} else {
+					// if reduction in height, close out current run and
+					// also runs on stack until revert to a sustainable run
+					// or the stack is empty
+
+					while (h < runHeight) {
+						// check for largest area on current run
+						final int a = (x - runStart) * runHeight;
+
+						if (a > bestArea) {
+							bestArea = a;
+							bestX0 = runStart;
+							bestX1 = x - 1;
+							bestY0 = y - runHeight + 1;
+							bestY1 = y;
+						}
+
+						if (stackSize == 0) {
+							// if we have an empty stack but non-zero height,
+							// then run at current height effectively starts
+							// where the just-closed prior run  started
+							runHeight = h;
+							// NB: no change to run start - continue from prior
+						} else { // stackSize > 0
+							--stackSize;
+							final int stackStart = getVal15(stackX15, stackSize);
+							final int stackHeight = getVal16(stackH16, stackSize);
+
+							if (stackHeight == h) {
+								// if stack run height is same as current, resume run, leave stack popped
+								runHeight = h;
+								runStart = stackStart;
+							} else if (stackHeight < h) {
+								// if stack run height is less new height, leave on the stack
+								++stackSize;
+								// and new run starts from current position
+								runHeight = h;
+								// NB: no change to run start - continue from prior
+							} else {
+								// stack area is higher than new height
+								// leave stack popped and loop to close out area on the stack
+								runHeight = stackHeight;
+								runStart = stackStart;
+							}
+						}
+					}
+				}
+
+				// track height of this column but don't overflow on last row/column
+				if (y != 15 && x < 16) heights = setVal15(heights, x, h);
+			}
+		}
+
+		return Area.areaKey(bestX0, bestY0, bestX1, bestY1);
+	}
+
+	/**
+	 * 1-16 values.
+	 */
+	private static int getVal16(long packed, int x) {
+		return 1 + getVal15(packed, x);
+	}
+
+	/**
+	 * 1-16 values.
+	 */
+	private static long setVal16(long packed, int x, int val) {
+		return setVal15(packed, x, val - 1);
+	}
+
+	/**
+	 * 0-15 values.
+	 */
+	private static int getVal15(long packed, int x) {
+		return (int) ((packed >>> (x << 2)) & 0xF);
+	}
+
+	/**
+	 * 0-15 values.
+	 */
+	private static long setVal15(long packed, int x, int val) {
+		final int shift = x << 2;
+		final long mask = 0xFL << shift;
+		return (packed & ~mask) | (((long) val) << shift);
+	}
+
+	private long[] bitsFromIndex(int areaIndex) {
+		final long[] result = areaBits;
+
+		result[0] = Area.bitsFromIndex(areaIndex, 0);
+		result[1] = Area.bitsFromIndex(areaIndex, 1);
+		result[2] = Area.bitsFromIndex(areaIndex, 2);
+		result[3] = Area.bitsFromIndex(areaIndex, 3);
+
+		return result;
+	}
+
+	private void find(long[] bitsIn, int sourceIndex, IntConsumer areaIndexConsumer) {
+		final long[] bits = sliceBits;
+		System.arraycopy(bitsIn, sourceIndex, bits, 0, 4);
+
+		int bitCount = bitCount(bits[0]) + bitCount(bits[1]) + bitCount(bits[2]) + bitCount(bits[3]);
+
+		while (bitCount > 0) {
+			final int key = findLargest(bits);
+			final int index = Area.keyToIndex(key);
+			areaIndexConsumer.accept(index);
+			Area.clearBits(bits, 0, index);
+			bitCount -= Area.size(key);
+		}
+	}
+
+	private void findSections(long[] bitsIn, int sourceIndex, IntConsumer areaIndexConsumer) {
+		final long[] bits = sliceBits;
+		System.arraycopy(bitsIn, sourceIndex, bits, 0, 4);
+
+		final int bitCount = Long.bitCount(bits[0]) + Long.bitCount(bits[1]) + Long.bitCount(bits[2]) + Long.bitCount(bits[3]);
+
+		if (bitCount == 0) {
+			return;
+		}
+
+		for (int i = 0; i < SECTION_INDEX.length; ++i) {
+			final int areaIndex = SECTION_INDEX[i];
+
+			if (Area.isIncludedBySample(bits, 0, areaIndex)) {
+				areaIndexConsumer.accept(areaIndex);
+			}
+		}
+	}
+}
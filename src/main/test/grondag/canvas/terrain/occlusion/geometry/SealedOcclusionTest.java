@@ -0,0 +1,123 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.INTERIOR_STATE_COUNT;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.TOTAL_STATE_COUNT;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndex;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+import grondag.bitraster.PackedBox;
+
+class SealedOcclusionTest {
+	private static class TestCalculator extends RegionOcclusionCalculator {
+		TestCalculator() {
+			super(null);
+		}
+
+		@Override
+		protected BlockState blockStateAtIndex(int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected boolean closedAtRelativePos(BlockState blockState, int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		/** Solid interior with closed neighbors except at the given padding positions. */
+		void fillSealed(IntOpenHashSet openNeighbors) {
+			clear();
+
+			for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+				setVisibility(i, true, true);
+			}
+
+			for (int i = INTERIOR_STATE_COUNT; i < TOTAL_STATE_COUNT; ++i) {
+				if (!openNeighbors.contains(i)) {
+					setVisibility(i, false, true);
+				}
+			}
+		}
+	}
+
+	@Test
+	void buriedRegionHasNothingRenderable() {
+		final TestCalculator calc = new TestCalculator();
+		calc.fillSealed(new IntOpenHashSet());
+		final OcclusionResult result = calc.build(false, true);
+		final int[] data = result.occlusionData();
+
+		assert data[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] == PackedBox.EMPTY_BOX;
+		assert RegionOcclusionCalculator.isSealed(data);
+
+		for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+			assert !calc.shouldRender(i);
+		}
+
+		// Same shared result used for regions classified as buried at capture
+		assert result == RegionOcclusionCalculator.BURIED_OCCLUSION_RESULT;
+		calc.fillSealed(new IntOpenHashSet());
+		assert calc.build(false, false) == RegionOcclusionCalculator.BURIED_OCCLUSION_RESULT;
+	}
+
+	@Test
+	void exposedTopLimitsBounds() {
+		final TestCalculator calc = new TestCalculator();
+		final IntOpenHashSet open = new IntOpenHashSet();
+
+		for (int x = 0; x < 16; ++x) {
+			for (int z = 0; z < 16; ++z) {
+				open.add(regionIndex(x, 16, z));
+			}
+		}
+
+		calc.fillSealed(open);
+		final int[] data = calc.build(false, true).occlusionData();
+
+		assert data[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] == PackedBox.pack(0, 15, 0, 16, 16, 16, PackedBox.RANGE_EXTREME);
+		assert RegionOcclusionCalculator.isSealed(data);
+	}
+
+	@Test
+	void exposedOnAllSidesIsFull() {
+		final TestCalculator calc = new TestCalculator();
+		final IntOpenHashSet open = new IntOpenHashSet();
+
+		for (int i = INTERIOR_STATE_COUNT; i < TOTAL_STATE_COUNT; ++i) {
+			open.add(i);
+		}
+
+		calc.fillSealed(open);
+		final int[] data = calc.build(false, true).occlusionData();
+
+		assert data[RegionOcclusionCalculator.OCCLUSION_RESULT_RENDERABLE_BOUNDS_INDEX] == PackedBox.FULL_BOX;
+		assert RegionOcclusionCalculator.isSealed(data);
+
+		// Result is shared
+		calc.fillSealed(open);
+		assert calc.build(false, true).occlusionData() == data;
+	}
+}
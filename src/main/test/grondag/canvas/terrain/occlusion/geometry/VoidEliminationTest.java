@@ -0,0 +1,396 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.occlusion.geometry;
+
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.INTERIOR_STATE_COUNT;
+import static grondag.canvas.terrain.util.RenderRegionStateIndexer.regionIndex;
+
+import java.util.Random;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+class VoidEliminationTest {
+	private static final int SECTIONS_PER_PATTERN = 500;
+
+	/** World volume covering the region and its padding, -2 to 17 on each axis. */
+	private static final int WORLD_SIZE = 20;
+
+	private static final int[][] FACE_OFFSETS = {{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}};
+
+	private static class TestCalculator extends RegionOcclusionCalculator {
+		TestCalculator() {
+			super(null);
+		}
+
+		@Override
+		protected BlockState blockStateAtIndex(int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected boolean closedAtRelativePos(BlockState blockState, int regionIndex) {
+			throw new UnsupportedOperationException();
+		}
+
+		/** Closed interior positions are renderable, as solid blocks would be. */
+		void load(boolean[] world) {
+			clear();
+
+			for (int x = -2; x < 18; ++x) {
+				for (int y = -2; y < 18; ++y) {
+					for (int z = -2; z < 18; ++z) {
+						if (world[worldIndex(x, y, z)]) {
+							final int index = regionIndex(x, y, z);
+							setVisibility(index, index < INTERIOR_STATE_COUNT, true);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private enum Pattern {
+		/** Stone with small unreachable air pockets, as left by ore generation. */
+		POCKETS {
+			@Override
+			void generate(Random r, boolean[] world) {
+				fill(world, true);
+
+				for (int n = r.nextInt(40); n > 0; --n) {
+					box(world, r.nextInt(WORLD_SIZE) - 2, r.nextInt(WORLD_SIZE) - 2, r.nextInt(WORLD_SIZE) - 2, 1 + r.nextInt(3), 1 + r.nextInt(2), 1 + r.nextInt(3), false);
+				}
+			}
+		},
+
+		/** Stone carved by random walk tunnels that may or may not reach the region faces. */
+		CAVES {
+			@Override
+			void generate(Random r, boolean[] world) {
+				fill(world, true);
+
+				for (int n = 1 + r.nextInt(3); n > 0; --n) {
+					int x = r.nextInt(WORLD_SIZE) - 2;
+					int y = r.nextInt(WORLD_SIZE) - 2;
+					int z = r.nextInt(WORLD_SIZE) - 2;
+
+					for (int step = 10 + r.nextInt(40); step > 0; --step) {
+						box(world, x - 1, y - 1, z - 1, 3, 3, 3, false);
+						x += r.nextInt(3) - 1;
+						y += r.nextInt(3) - 1;
+						z += r.nextInt(3) - 1;
+					}
+				}
+			}
+		},
+
+		/** Surface terrain from a smoothed height map with a few buried pockets. */
+		SURFACE {
+			@Override
+			void generate(Random r, boolean[] world) {
+				fill(world, false);
+				final int base = r.nextInt(16);
+
+				for (int x = -2; x < 18; ++x) {
+					for (int z = -2; z < 18; ++z) {
+						final int height = base + (int) (3 * Math.sin((x + base) * 0.4) + 3 * Math.cos(z * 0.3));
+
+						for (int y = -2; y < 18 && y <= height; ++y) {
+							world[worldIndex(x, y, z)] = true;
+						}
+					}
+				}
+
+				for (int n = r.nextInt(10); n > 0; --n) {
+					box(world, r.nextInt(WORLD_SIZE) - 2, r.nextInt(base + 1) - 2, r.nextInt(WORLD_SIZE) - 2, 2, 1, 2, false);
+				}
+			}
+		},
+
+		/** Hollow rooms in open air, some with doorways, some sealed. */
+		STRUCTURES {
+			@Override
+			void generate(Random r, boolean[] world) {
+				fill(world, false);
+
+				for (int n = 1 + r.nextInt(3); n > 0; --n) {
+					final int dx = 4 + r.nextInt(8);
+					final int dy = 4 + r.nextInt(6);
+					final int dz = 4 + r.nextInt(8);
+					final int x = r.nextInt(WORLD_SIZE - dx) - 2;
+					final int y = r.nextInt(WORLD_SIZE - dy) - 2;
+					final int z = r.nextInt(WORLD_SIZE - dz) - 2;
+					box(world, x, y, z, dx, dy, dz, true);
+					box(world, x + 1, y + 1, z + 1, dx - 2, dy - 2, dz - 2, false);
+
+					if (r.nextBoolean()) {
+						box(world, x, y + 1, z + dz / 2, 1, 2, 1, false);
+					}
+				}
+			}
+		},
+
+		/** Dense random blocks with many small enclosed gaps. */
+		NOISE {
+			@Override
+			void generate(Random r, boolean[] world) {
+				final int density = 60 + r.nextInt(35);
+
+				for (int i = 0; i < world.length; ++i) {
+					world[i] = r.nextInt(100) < density;
+				}
+			}
+		};
+
+		abstract void generate(Random r, boolean[] world);
+	}
+
+	@Test
+	void faceVisibilityUnchanged() {
+		final TestCalculator calc = new TestCalculator();
+		final boolean[] world = new boolean[WORLD_SIZE * WORLD_SIZE * WORLD_SIZE];
+		final boolean[] output = new boolean[world.length];
+
+		for (final Pattern pattern : Pattern.values()) {
+			final Random r = new Random(42);
+
+			for (int n = 0; n < SECTIONS_PER_PATTERN; ++n) {
+				pattern.generate(r, world);
+				final boolean[] visible = exteriorVisible(world);
+
+				calc.load(world);
+				calc.build(false, true);
+				System.arraycopy(world, 0, output, 0, world.length);
+
+				for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+					final boolean closed = world[worldIndex(i & 0xF, (i >> 4) & 0xF, i >> 8)];
+
+					// Everything not seen from outside is filled, and nothing seen from outside changes
+					assert calc.isClosed(i) == (closed || !visible[i]);
+					assert calc.shouldRender(i) == (closed && visible[i]);
+					output[worldIndex(i & 0xF, (i >> 4) & 0xF, i >> 8)] = calc.isClosed(i);
+				}
+
+				assert connectedFaces(world) == connectedFaces(output);
+			}
+		}
+	}
+
+	/**
+	 * Box counts and build times with and without the pre-pass over generated sections.
+	 * The interior-only column fills only voids that don't touch the region surface,
+	 * which was the extent of hiding before voids on the surface were also filled.
+	 */
+	@Test
+	void compareBoxCounts() {
+		final TestCalculator calc = new TestCalculator();
+		final BoxFinder boxFinder = new BoxFinder(new AreaFinder());
+		final boolean[] world = new boolean[WORLD_SIZE * WORLD_SIZE * WORLD_SIZE];
+		final long[] interiorOnly = new long[RegionOcclusionCalculator.EMPTY_BITS.length];
+		int allTotal = 0;
+		int filledTotal = 0;
+
+		for (final Pattern pattern : Pattern.values()) {
+			final Random r = new Random(42);
+			int unfilled = 0;
+			int interior = 0;
+			int filled = 0;
+			long unfilledNanos = 0;
+			long filledNanos = 0;
+
+			for (int n = 0; n < SECTIONS_PER_PATTERN; ++n) {
+				pattern.generate(r, world);
+				final boolean[] visible = exteriorVisible(world);
+
+				// Camera near the region disables hiding
+				calc.load(world);
+				long start = System.nanoTime();
+				unfilled += boxCount(calc.build(true, true).occlusionData());
+				unfilledNanos += System.nanoTime() - start;
+
+				calc.load(world);
+				start = System.nanoTime();
+				filled += boxCount(calc.build(false, true).occlusionData());
+				filledNanos += System.nanoTime() - start;
+
+				System.arraycopy(RegionOcclusionCalculator.EMPTY_BITS, 0, interiorOnly, 0, interiorOnly.length);
+
+				for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+					final int x = i & 0xF;
+					final int y = (i >> 4) & 0xF;
+					final int z = i >> 8;
+					final boolean shell = x == 0 || y == 0 || z == 0 || x == 15 || y == 15 || z == 15;
+
+					if (world[worldIndex(x, y, z)] || (!shell && !visible[i])) {
+						interiorOnly[i >> 6] |= 1L << (i & 63);
+					}
+				}
+
+				boxFinder.findBoxes(interiorOnly, 0);
+				interior += boxFinder.boxes.size();
+			}
+
+			assert filled <= interior;
+			allTotal += interior;
+			filledTotal += filled;
+
+			System.out.println(String.format("%-10s boxes per section: unfilled %5.2f  interior only %5.2f  filled %5.2f    build time: unfilled %,7dns  filled %,7dns",
+					pattern, (float) unfilled / SECTIONS_PER_PATTERN, (float) interior / SECTIONS_PER_PATTERN, (float) filled / SECTIONS_PER_PATTERN,
+					unfilledNanos / SECTIONS_PER_PATTERN, filledNanos / SECTIONS_PER_PATTERN));
+		}
+
+		assert filledTotal < allTotal;
+	}
+
+	private static int boxCount(int[] occlusionData) {
+		return occlusionData.length - 1;
+	}
+
+	private static int worldIndex(int x, int y, int z) {
+		return (x + 2) + (y + 2) * WORLD_SIZE + (z + 2) * WORLD_SIZE * WORLD_SIZE;
+	}
+
+	private static boolean inside(int x, int y, int z) {
+		return x >= 0 && y >= 0 && z >= 0 && x < 16 && y < 16 && z < 16;
+	}
+
+	private static void fill(boolean[] world, boolean closed) {
+		for (int i = 0; i < world.length; ++i) {
+			world[i] = closed;
+		}
+	}
+
+	private static void box(boolean[] world, int x0, int y0, int z0, int dx, int dy, int dz, boolean closed) {
+		for (int x = Math.max(-2, x0); x < Math.min(18, x0 + dx); ++x) {
+			for (int y = Math.max(-2, y0); y < Math.min(18, y0 + dy); ++y) {
+				for (int z = Math.max(-2, z0); z < Math.min(18, z0 + dz); ++z) {
+					world[worldIndex(x, y, z)] = closed;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reference for interior positions visible from outside the region: open positions reachable
+	 * from open neighbors across region faces, and closed positions adjacent to either.
+	 */
+	private static boolean[] exteriorVisible(boolean[] world) {
+		final boolean[] visible = new boolean[INTERIOR_STATE_COUNT];
+		final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+
+		for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+			final int x = i & 0xF;
+			final int y = (i >> 4) & 0xF;
+			final int z = i >> 8;
+
+			for (final int[] d : FACE_OFFSETS) {
+				if (!inside(x + d[0], y + d[1], z + d[2]) && !world[worldIndex(x + d[0], y + d[1], z + d[2])] && !visible[i]) {
+					visible[i] = true;
+
+					if (!world[worldIndex(x, y, z)]) {
+						queue.enqueue(i);
+					}
+				}
+			}
+		}
+
+		while (!queue.isEmpty()) {
+			final int i = queue.dequeueInt();
+
+			for (final int[] d : FACE_OFFSETS) {
+				final int x = (i & 0xF) + d[0];
+				final int y = ((i >> 4) & 0xF) + d[1];
+				final int z = (i >> 8) + d[2];
+
+				if (inside(x, y, z)) {
+					final int j = x | (y << 4) | (z << 8);
+
+					if (!visible[j]) {
+						visible[j] = true;
+
+						if (!world[worldIndex(x, y, z)]) {
+							queue.enqueue(j);
+						}
+					}
+				}
+			}
+		}
+
+		return visible;
+	}
+
+	/**
+	 * Pairs of faces connected by open interior positions, entering and leaving through open
+	 * neighbors, as a 36-bit mask. Counts each face as connected to itself if it has any entry.
+	 */
+	private static long connectedFaces(boolean[] world) {
+		final int[] component = new int[INTERIOR_STATE_COUNT];
+		final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+		long result = 0;
+		int componentCount = 0;
+
+		for (int i = 0; i < INTERIOR_STATE_COUNT; ++i) {
+			if (component[i] != 0 || world[worldIndex(i & 0xF, (i >> 4) & 0xF, i >> 8)]) {
+				continue;
+			}
+
+			component[i] = ++componentCount;
+			queue.enqueue(i);
+			int faces = 0;
+
+			while (!queue.isEmpty()) {
+				final int j = queue.dequeueInt();
+
+				for (int f = 0; f < 6; ++f) {
+					final int[] d = FACE_OFFSETS[f];
+					final int x = (j & 0xF) + d[0];
+					final int y = ((j >> 4) & 0xF) + d[1];
+					final int z = (j >> 8) + d[2];
+
+					if (world[worldIndex(x, y, z)]) {
+						continue;
+					}
+
+					if (inside(x, y, z)) {
+						final int k = x | (y << 4) | (z << 8);
+
+						if (component[k] == 0) {
+							component[k] = componentCount;
+							queue.enqueue(k);
+						}
+					} else {
+						faces |= 1 << f;
+					}
+				}
+			}
+
+			for (int a = 0; a < 6; ++a) {
+				if ((faces & (1 << a)) != 0) {
+					result |= (long) faces << (a * 6);
+				}
+			}
+		}
+
+		return result;
+	}
+}
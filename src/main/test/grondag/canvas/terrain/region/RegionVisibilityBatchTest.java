@@ -0,0 +1,200 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import grondag.canvas.render.frustum.CanvasFrustum;
+
+class RegionVisibilityBatchTest {
+	private static final int RENDER_DISTANCE = 32;
+
+	/**
+	 * Largest radius at which every cluster holding loaded columns is placed correctly.
+	 * Well beyond {@link RenderRegionIndexer#MAX_LOADED_CHUNK_RADIUS}, for benchmarking.
+	 */
+	private static final int BENCHMARK_RENDER_DISTANCE = 64 - RegionVisibilityBatch.CLUSTER_DIAMETER + 1;
+	private static final int TRIAL_COUNT = 200;
+
+	/** Sets planes directly from a camera orientation so tests don't need matrix support. */
+	private static class TestFrustum extends CanvasFrustum {
+		void setView(float yaw, float pitch, float fov, float aspect) {
+			final float fx = (float) (-Math.sin(yaw) * Math.cos(pitch));
+			final float fy = (float) -Math.sin(pitch);
+			final float fz = (float) (Math.cos(yaw) * Math.cos(pitch));
+
+			// right = forward x world up
+			float rx = -fz;
+			float rz = fx;
+			final float rLen = (float) Math.sqrt(rx * rx + rz * rz);
+			rx /= rLen;
+			rz /= rLen;
+
+			// up = right x forward
+			final float ux = -rz * fy;
+			final float uy = rz * fx - rx * fz;
+			final float uz = rx * fy;
+
+			final float tanY = (float) Math.tan(fov * 0.5f);
+			final float tanX = tanY * aspect;
+
+			float[] p = plane(-(rx + fx * tanX), -(fy * tanX), -(rz + fz * tanX), 0);
+			leftX = p[0]; leftY = p[1]; leftZ = p[2]; leftW = p[3]; leftXe = p[4]; leftYe = p[5]; leftZe = p[6]; leftRegionExtent = p[7];
+			p = plane(rx - fx * tanX, -(fy * tanX), rz - fz * tanX, 0);
+			rightX = p[0]; rightY = p[1]; rightZ = p[2]; rightW = p[3]; rightXe = p[4]; rightYe = p[5]; rightZe = p[6]; rightRegionExtent = p[7];
+			p = plane(ux - fx * tanY, uy - fy * tanY, uz - fz * tanY, 0);
+			topX = p[0]; topY = p[1]; topZ = p[2]; topW = p[3]; topXe = p[4]; topYe = p[5]; topZe = p[6]; topRegionExtent = p[7];
+			p = plane(-(ux + fx * tanY), -(uy + fy * tanY), -(uz + fz * tanY), 0);
+			bottomX = p[0]; bottomY = p[1]; bottomZ = p[2]; bottomW = p[3]; bottomXe = p[4]; bottomYe = p[5]; bottomZe = p[6]; bottomRegionExtent = p[7];
+			p = plane(-fx, -fy, -fz, 0.05f);
+			nearX = p[0]; nearY = p[1]; nearZ = p[2]; nearW = p[3]; nearXe = p[4]; nearYe = p[5]; nearZe = p[6]; nearRegionExtent = p[7];
+		}
+
+		/** Normalizes an outward-facing plane and derives extents the same way as extractPlanes. */
+		private static float[] plane(float x, float y, float z, float w) {
+			final float mag = (float) (1 / Math.sqrt(x * x + y * y + z * z));
+			x *= mag;
+			y *= mag;
+			z *= mag;
+			final float xe = Math.abs(x);
+			final float ye = Math.abs(y);
+			final float ze = Math.abs(z);
+			return new float[] {x, y, z, w, xe, ye, ze, w - 8 * (xe + ye + ze) - MIN_GAP};
+		}
+	}
+
+	private static int chunkIndexAxis(int chunk) {
+		return RenderRegionIndexer.chunkIndex(chunk << 4, 0) & 127;
+	}
+
+	private static boolean isInsideRenderDistance(int dx, int dz, int renderDistance) {
+		return dx * dx + dz * dz <= renderDistance * renderDistance;
+	}
+
+	@Test
+	void clusterOriginContainsLoadedChunks() {
+		final Random r = new Random(42);
+
+		for (int n = 0; n < 1000; ++n) {
+			final int cameraChunk = r.nextInt(200000) - 100000;
+
+			for (int chunk = cameraChunk - RenderRegionIndexer.MAX_LOADED_CHUNK_RADIUS; chunk <= cameraChunk + RenderRegionIndexer.MAX_LOADED_CHUNK_RADIUS; ++chunk) {
+				final int origin = RegionVisibilityBatch.clusterOriginChunk(chunkIndexAxis(chunk) >> RegionVisibilityBatch.CLUSTER_DIAMETER_BITS, cameraChunk);
+				assert chunk >= origin && chunk < origin + RegionVisibilityBatch.CLUSTER_DIAMETER;
+			}
+		}
+	}
+
+	@Test
+	void matchesFlatTest() {
+		compareWithFlatTest(RENDER_DISTANCE);
+	}
+
+	@Test
+	void matchesFlatTestAtMaxRadius() {
+		compareWithFlatTest(BENCHMARK_RENDER_DISTANCE);
+	}
+
+	private static void compareWithFlatTest(int renderDistance) {
+		final Random r = new Random(42);
+		final TestFrustum frustum = new TestFrustum();
+		long flatNanos = 0;
+		long batchNanos = 0;
+		int visibleCount = 0;
+
+		for (int n = 0; n < TRIAL_COUNT; ++n) {
+			final double camX = r.nextDouble() * 20000 - 10000;
+			final double camY = r.nextDouble() * 384 - 64;
+			final double camZ = r.nextDouble() * 20000 - 10000;
+			final int camChunkX = (int) Math.floor(camX) >> 4;
+			final int camChunkZ = (int) Math.floor(camZ) >> 4;
+
+			frustum.setView(r.nextFloat() * 6.2832f, (r.nextFloat() - 0.5f) * 3.1f, 0.5f + r.nextFloat() * 1.5f, 16f / 9f);
+
+			final RegionVisibilityBatch batch = new RegionVisibilityBatch();
+
+			for (int dz = -renderDistance; dz <= renderDistance; ++dz) {
+				for (int dx = -renderDistance; dx <= renderDistance; ++dx) {
+					if (isInsideRenderDistance(dx, dz, renderDistance)) {
+						final int chunkX = camChunkX + dx;
+						final int chunkZ = camChunkZ + dz;
+						batch.loadColumn(RenderRegionIndexer.chunkIndex(chunkX << 4, chunkZ << 4), chunkX, chunkZ);
+					}
+				}
+			}
+
+			long start = System.nanoTime();
+			batch.update(frustum, n, camX, camY, camZ);
+			batchNanos += System.nanoTime() - start;
+
+			// flat reference: every region in render distance tests all planes
+			final boolean[] expected = new boolean[RegionVisibilityBatch.COLUMN_COUNT * RegionVisibilityBatch.ROW_COUNT];
+			start = System.nanoTime();
+
+			for (int dz = -renderDistance; dz <= renderDistance; ++dz) {
+				for (int dx = -renderDistance; dx <= renderDistance; ++dx) {
+					if (!isInsideRenderDistance(dx, dz, renderDistance)) continue;
+
+					final int chunkX = camChunkX + dx;
+					final int chunkZ = camChunkZ + dz;
+					final int column = RenderRegionIndexer.chunkIndex(chunkX << 4, chunkZ << 4);
+					final float cx = (float) ((chunkX << 4) + 8 - camX);
+					final float cz = (float) ((chunkZ << 4) + 8 - camZ);
+
+					for (int y = 0; y < RegionVisibilityBatch.ROW_COUNT; ++y) {
+						final float cy = (float) ((y << 4) - RenderRegionIndexer.Y_BLOCKPOS_OFFSET + 8 - camY);
+						expected[RegionVisibilityBatch.regionIndex(column, y)] = frustum.isRegionVisible(cx, cy, cz, CanvasFrustum.ALL_PLANES);
+					}
+				}
+			}
+
+			flatNanos += System.nanoTime() - start;
+
+			for (int dz = -renderDistance; dz <= renderDistance; ++dz) {
+				for (int dx = -renderDistance; dx <= renderDistance; ++dx) {
+					if (!isInsideRenderDistance(dx, dz, renderDistance)) continue;
+
+					final int chunkX = camChunkX + dx;
+					final int chunkZ = camChunkZ + dz;
+					final int column = RenderRegionIndexer.chunkIndex(chunkX << 4, chunkZ << 4);
+					assert batch.columnCenterX(column) == (float) ((chunkX << 4) + 8 - camX);
+					assert batch.columnCenterZ(column) == (float) ((chunkZ << 4) + 8 - camZ);
+
+					for (int y = 0; y < RegionVisibilityBatch.ROW_COUNT; ++y) {
+						final int i = RegionVisibilityBatch.regionIndex(column, y);
+						assert expected[i] == batch.isInFrustum(i);
+
+						if (expected[i]) {
+							++visibleCount;
+						}
+					}
+				}
+			}
+		}
+
+		System.out.println("Render distance:              " + renderDistance);
+		System.out.println("Visible regions per view:     " + visibleCount / TRIAL_COUNT);
+		System.out.println("Flat duration per view:       " + flatNanos / TRIAL_COUNT);
+		System.out.println("Batch duration per view:      " + batchNanos / TRIAL_COUNT);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.terrain.region.input;
+
+import java.util.Random;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.junit.jupiter.api.Test;
+
+class LightSnapshotTest {
+	private static final int MIN_SECTION_Y = -5;
+	private static final int MAX_SECTION_Y = 20;
+	private static final int TRIAL_COUNT = 200;
+
+	/**
+	 * Light data by section in the layout the light engine uses, with lookups that
+	 * follow the vanilla light engine. This is what live world lookups return.
+	 */
+	private static class ReferenceWorld {
+		final Long2ObjectOpenHashMap<byte[]> block = new Long2ObjectOpenHashMap<>();
+		final Long2ObjectOpenHashMap<byte[]> sky = new Long2ObjectOpenHashMap<>();
+
+		static long key(int x, int y, int z) {
+			return ((long) x & 0xFFFFF) | (((long) y & 0xFFFFF) << 20) | (((long) z & 0xFFFFF) << 40);
+		}
+
+		int blockLight(int x, int y, int z) {
+			final byte[] data = block.get(key(x >> 4, y >> 4, z >> 4));
+			return data == null ? 0 : LightSnapshot.nibble(data, x & 0xF, y & 0xF, z & 0xF);
+		}
+
+		/** Same as SkyLightSectionStorage: full light at or above the top section with data. */
+		int skyLight(int x, int y, int z) {
+			int topSection = Integer.MIN_VALUE;
+
+			for (int sy = MIN_SECTION_Y; sy <= MAX_SECTION_Y; ++sy) {
+				if (sky.containsKey(key(x >> 4, sy, z >> 4))) {
+					topSection = sy + 1;
+				}
+			}
+
+			int sectionY = y >> 4;
+
+			if (sectionY >= topSection) {
+				return 15;
+			}
+
+			byte[] data = sky.get(key(x >> 4, sectionY, z >> 4));
+			int localY = y & 0xF;
+
+			while (data == null) {
+				if (++sectionY >= topSection) {
+					return 15;
+				}
+
+				localY = 0;
+				data = sky.get(key(x >> 4, sectionY, z >> 4));
+			}
+
+			return LightSnapshot.nibble(data, x & 0xF, localY, z & 0xF);
+		}
+
+		void generate(Random r, int sectionX, int sectionY, int sectionZ) {
+			block.clear();
+			sky.clear();
+
+			for (int sx = sectionX - 2; sx <= sectionX + 2; ++sx) {
+				for (int sz = sectionZ - 2; sz <= sectionZ + 2; ++sz) {
+					// Sky data from the bottom up to a random top, with gaps, or none for the column
+					final int top = r.nextInt(8) == 0 ? MIN_SECTION_Y - 1 : MIN_SECTION_Y + r.nextInt(MAX_SECTION_Y - MIN_SECTION_Y + 1);
+
+					for (int sy = MIN_SECTION_Y; sy <= MAX_SECTION_Y; ++sy) {
+						if (sy <= top && (sy == top || r.nextInt(4) != 0)) {
+							sky.put(key(sx, sy, sz), randomData(r));
+						}
+
+						if (r.nextInt(3) == 0) {
+							block.put(key(sx, sy, sz), randomData(r));
+						}
+					}
+				}
+			}
+		}
+
+		private static byte[] randomData(Random r) {
+			if (r.nextInt(5) == 0) {
+				return LightSnapshot.EMPTY_DATA;
+			}
+
+			final byte[] result = new byte[LightSnapshot.DATA_SIZE];
+			r.nextBytes(result);
+			return result;
+		}
+	}
+
+	@Test
+	void matchesWorldLookups() {
+		final Random r = new Random(42);
+		final ReferenceWorld world = new ReferenceWorld();
+		final LightSnapshot snapshot = new LightSnapshot();
+		final LightSnapshot copy = new LightSnapshot();
+
+		for (int n = 0; n < TRIAL_COUNT; ++n) {
+			final int sectionX = r.nextInt(200) - 100;
+			final int sectionY = MIN_SECTION_Y + 1 + r.nextInt(MAX_SECTION_Y - MIN_SECTION_Y - 1);
+			final int sectionZ = r.nextInt(200) - 100;
+			world.generate(r, sectionX, sectionY, sectionZ);
+
+			snapshot.capture(sectionX, sectionY, sectionZ,
+					(x, y, z) -> world.block.get(ReferenceWorld.key(x, y, z)),
+					(x, y, z) -> world.sky.get(ReferenceWorld.key(x, y, z)),
+					MAX_SECTION_Y);
+
+			copy.copyFrom(snapshot);
+
+			final int minX = (sectionX - 1) << 4;
+			final int minY = (sectionY - 1) << 4;
+			final int minZ = (sectionZ - 1) << 4;
+
+			for (int x = minX; x < minX + 48; ++x) {
+				for (int y = minY; y < minY + 48; ++y) {
+					for (int z = minZ; z < minZ + 48; ++z) {
+						assert snapshot.blockLight(x, y, z) == world.blockLight(x, y, z);
+						assert snapshot.skyLight(x, y, z) == world.skyLight(x, y, z);
+						assert copy.blockLight(x, y, z) == world.blockLight(x, y, z);
+						assert copy.skyLight(x, y, z) == world.skyLight(x, y, z);
+					}
+				}
+			}
+
+			assert snapshot.blockLight(minX - 1, minY, minZ) == -1;
+			assert snapshot.skyLight(minX, minY + 48, minZ) == -1;
+			assert snapshot.skyLight(minX, minY, minZ + 48) == -1;
+		}
+	}
+
+	@Test
+	void noSkyLightIsDark() {
+		final Random r = new Random(7);
+		final ReferenceWorld world = new ReferenceWorld();
+		final LightSnapshot snapshot = new LightSnapshot();
+		world.generate(r, 0, 4, 0);
+		snapshot.capture(0, 4, 0, (x, y, z) -> world.block.get(ReferenceWorld.key(x, y, z)), null, MAX_SECTION_Y);
+
+		for (int x = -16; x < 32; ++x) {
+			for (int y = 48; y < 96; ++y) {
+				for (int z = -16; z < 32; ++z) {
+					assert snapshot.skyLight(x, y, z) == 0;
+					assert snapshot.blockLight(x, y, z) == world.blockLight(x, y, z);
+				}
+			}
+		}
+	}
+}
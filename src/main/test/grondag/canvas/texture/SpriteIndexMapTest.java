@@ -0,0 +1,138 @@
+/*
+ * This file is part of Canvas Renderer and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.canvas.texture;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntUnaryOperator;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers sprite indexing from many threads, the way terrain build workers
+ * do during heavy chunk loading.  Checks that every sprite gets exactly one
+ * dense index and reports throughput against the previous fully-locked map.
+ */
+class SpriteIndexMapTest {
+	static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+	static final int SPRITES = 2048;
+	static final int LOOKUPS_PER_THREAD = 4_000_000;
+
+	@Test
+	void test() throws InterruptedException {
+		final Object sync = new Object();
+		final SpriteIndexMap map = new SpriteIndexMap(sync);
+		final AtomicIntegerArray allocations = new AtomicIntegerArray(SPRITES);
+		final int[] nextIndex = new int[1];
+
+		final IntUnaryOperator allocator = spriteId -> {
+			allocations.incrementAndGet(spriteId);
+			return nextIndex[0]++;
+		};
+
+		final int[][] seen = new int[THREADS][SPRITES];
+
+		final long lockFreeNanos = hammer(t -> {
+			final Random r = new Random(t);
+			final int[] mine = seen[t];
+
+			for (int i = 0; i < LOOKUPS_PER_THREAD; ++i) {
+				final int spriteId = r.nextInt(SPRITES);
+				mine[spriteId] = map.index(spriteId, allocator);
+			}
+		});
+
+		assert map.size() == SPRITES;
+		assert nextIndex[0] == SPRITES;
+
+		final boolean[] used = new boolean[SPRITES];
+
+		for (int s = 0; s < SPRITES; ++s) {
+			assert allocations.get(s) == 1;
+
+			final int index = map.index(s, allocator);
+			assert index >= 0 && index < SPRITES;
+			assert !used[index];
+			used[index] = true;
+
+			for (int t = 0; t < THREADS; ++t) {
+				assert seen[t][s] == index;
+			}
+		}
+
+		final Int2IntOpenHashMap lockedMap = new Int2IntOpenHashMap(64, Hash.VERY_FAST_LOAD_FACTOR);
+		final int[] lockedNext = new int[1];
+
+		final long lockedNanos = hammer(t -> {
+			final Random r = new Random(t);
+
+			for (int i = 0; i < LOOKUPS_PER_THREAD; ++i) {
+				final int spriteId = r.nextInt(SPRITES);
+
+				synchronized (sync) {
+					lockedMap.computeIfAbsent(spriteId, k -> lockedNext[0]++);
+				}
+			}
+		});
+
+		final double lookups = (double) THREADS * LOOKUPS_PER_THREAD;
+		System.out.println(String.format("SpriteIndexMap, %d threads: lock-free %,.0f lookups/ms, locked %,.0f lookups/ms",
+				THREADS, lookups * 1000000 / lockFreeNanos, lookups * 1000000 / lockedNanos));
+	}
+
+	interface Worker {
+		void run(int thread);
+	}
+
+	static long hammer(Worker worker) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[THREADS];
+
+		for (int t = 0; t < THREADS; ++t) {
+			final int thread = t;
+
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+
+				worker.run(thread);
+			});
+
+			threads[t].start();
+		}
+
+		final long startTime = System.nanoTime();
+		start.countDown();
+
+		for (final Thread t : threads) {
+			t.join();
+		}
+
+		return System.nanoTime() - startTime;
+	}
+}